@@ -30,6 +30,12 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        unitTests.all {
+            // Wall-clock benchmarks are skipped unless asked for: ./gradlew test -Pbenchmarks
+            it.systemProperty("phiz.benchmarks", project.hasProperty("benchmarks").toString())
+        }
+    }
 }
 
 dependencies {
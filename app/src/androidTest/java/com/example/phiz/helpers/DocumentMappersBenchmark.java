@@ -0,0 +1,118 @@
+package com.example.phiz.helpers;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.phiz.models.QuizResult;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares DocumentMappers against DocumentSnapshot.toObject() on real snapshots.
+ *
+ * Runs against the local Firestore cache with the network disabled, so it needs
+ * no backend: grade documents are written locally and read back with Source.CACHE.
+ * Results are logged under the "MapperBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DocumentMappersBenchmark {
+    private static final String TAG = "MapperBenchmark";
+    private static final int DOCUMENT_COUNT = 500;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    private FirebaseFirestore db;
+    private List<DocumentSnapshot> docs;
+
+    @Before
+    public void setUp() throws Exception {
+        db = FirebaseFirestore.getInstance();
+        Tasks.await(db.disableNetwork(), 10, TimeUnit.SECONDS);
+
+        CollectionReference grades = db.collection("benchmark_grades");
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            Map<String, Object> grade = new HashMap<>();
+            grade.put("quizId", "physics_quiz");
+            grade.put("userId", "user" + (i % 50));
+            grade.put("userName", "Student " + (i % 50));
+            grade.put("quizName", "Physics Quiz");
+            grade.put("score", (long) (i % 160));
+            grade.put("totalQuestions", 5L);
+            grade.put("timestamp", Timestamp.now());
+            // Local writes resolve only once the server acks, so don't wait on them
+            grades.document("g" + i).set(grade);
+        }
+
+        docs = Tasks.await(grades.get(Source.CACHE), 30, TimeUnit.SECONDS).getDocuments();
+        assertEquals(DOCUMENT_COUNT, docs.size());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        // Drop the pending local writes so they are never sent to the backend
+        Tasks.await(db.terminate(), 10, TimeUnit.SECONDS);
+        Tasks.await(db.clearPersistence(), 10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void handWrittenMapperIsFasterThanToObject() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parseWithToObject();
+            parseWithMapper();
+        }
+
+        long reflectiveNanos = 0;
+        long mapperNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            parseWithToObject();
+            reflectiveNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            parseWithMapper();
+            mapperNanos += System.nanoTime() - start;
+        }
+
+        double reflectivePerDoc = reflectiveNanos / (double) (MEASURED_ROUNDS * DOCUMENT_COUNT);
+        double mapperPerDoc = mapperNanos / (double) (MEASURED_ROUNDS * DOCUMENT_COUNT);
+        Log.i(TAG, String.format("toObject: %.0f ns/doc, DocumentMappers: %.0f ns/doc, speedup %.2fx",
+                reflectivePerDoc, mapperPerDoc, reflectivePerDoc / mapperPerDoc));
+
+        assertTrue("DocumentMappers should beat toObject()", mapperNanos < reflectiveNanos);
+    }
+
+    private int parseWithToObject() {
+        int total = 0;
+        for (DocumentSnapshot doc : docs) {
+            QuizResult result = doc.toObject(QuizResult.class);
+            total += result.getScore();
+        }
+        return total;
+    }
+
+    private int parseWithMapper() {
+        int total = 0;
+        for (DocumentSnapshot doc : docs) {
+            QuizResult result = DocumentMappers.toQuizResult(doc);
+            total += result.getScore();
+        }
+        return total;
+    }
+}
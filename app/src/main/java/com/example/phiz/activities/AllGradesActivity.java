@@ -17,6 +17,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.phiz.R;
 import com.example.phiz.helpers.FirestoreHelper;
+import com.example.phiz.helpers.PagingScrollListener;
 import com.example.phiz.models.QuizResult;
 import com.google.android.material.card.MaterialCardView;
 import com.google.firebase.Timestamp;
@@ -40,6 +41,10 @@ public class AllGradesActivity extends AppCompatActivity {
     private FirestoreHelper firestoreHelper;
     private List<UserGrade> userGradesList = new ArrayList<>();
 
+    // Grade feed paging
+    private static final int PAGE_SIZE = 25;
+    private PagingScrollListener pager;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -60,27 +65,34 @@ public class AllGradesActivity extends AppCompatActivity {
         backButton = findViewById(R.id.backButton);
         progressBar = findViewById(R.id.progressBar);
 
-        allGradesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        allGradesRecyclerView.setLayoutManager(layoutManager);
         adapter = new AllGradesAdapter(userGradesList);
         allGradesRecyclerView.setAdapter(adapter);
 
         backButton.setOnClickListener(v -> finish());
 
-        loadAllGrades();
+        pager = new PagingScrollListener(layoutManager, this::loadNextPage);
+        allGradesRecyclerView.addOnScrollListener(pager);
+        loadNextPage();
     }
 
-    private void loadAllGrades() {
+    private void loadNextPage() {
+        if (!pager.startLoading()) return;
         progressBar.setVisibility(View.VISIBLE);
 
-        // Use FirestoreHelper to get all grades from all users' subcollections
-        firestoreHelper.getAllGrades(
-                grades -> {
-                    userGradesList.clear();
-                    for (FirestoreHelper.UserGrade userGrade : grades) {
-                        userGradesList.add(new UserGrade(userGrade.userName, userGrade.grade));
+        // One collection-group query per page instead of one query per user
+        firestoreHelper.getGradeFeedPage(pager.getCursor(), PAGE_SIZE,
+                page -> {
+                    pager.onPageLoaded(page);
+
+                    int insertStart = userGradesList.size();
+                    for (FirestoreHelper.UserGrade userGrade : page.getItems()) {
+                        String userName = userGrade.userName != null ? userGrade.userName : "Unknown";
+                        userGradesList.add(new UserGrade(userName, userGrade.grade));
                     }
 
-                    adapter.notifyDataSetChanged();
+                    adapter.notifyItemRangeInserted(insertStart, page.getItems().size());
                     progressBar.setVisibility(View.GONE);
 
                     if (userGradesList.isEmpty()) {
@@ -92,6 +104,7 @@ public class AllGradesActivity extends AppCompatActivity {
                     }
                 },
                 e -> {
+                    pager.onPageFailed();
                     progressBar.setVisibility(View.GONE);
                     Toast.makeText(this, "Error loading grades: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
@@ -1,6 +1,7 @@
 package com.example.phiz.activities;
 
 import android.os.Bundle;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
@@ -9,11 +10,15 @@ import android.widget.RadioGroup;
 import android.widget.Spinner;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.phiz.R;
 import com.example.phiz.helpers.NotificationHelper;
 import com.example.phiz.models.Question;
+import com.example.phiz.models.SimulationSpec;
+import com.example.phiz.physics.SimulationQuestions;
+import com.example.phiz.physics.SimulationRunner;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
@@ -35,12 +40,16 @@ public class CreateQuestionActivity extends AppCompatActivity {
     private TextInputEditText explanationInput;
     private TextInputEditText pointValueInput;
     private Button saveQuestionButton;
+    private Button generateFromSimulationButton;
     private ProgressBar progressBar;
     private MaterialToolbar toolbar;
 
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
 
+    // Simulation behind the generated options, kept while its correct option still matches
+    private SimulationSpec pendingSimulation;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -59,6 +68,7 @@ public class CreateQuestionActivity extends AppCompatActivity {
         setupDifficultySpinner();
         setupToolbar();
         setupSaveButton();
+        setupSimulationButton();
     }
 
     private void initializeViews() {
@@ -73,6 +83,7 @@ public class CreateQuestionActivity extends AppCompatActivity {
         explanationInput = findViewById(R.id.explanationInput);
         pointValueInput = findViewById(R.id.pointValueInput);
         saveQuestionButton = findViewById(R.id.saveQuestionButton);
+        generateFromSimulationButton = findViewById(R.id.generateFromSimulationButton);
         progressBar = findViewById(R.id.progressBar);
     }
 
@@ -96,6 +107,77 @@ public class CreateQuestionActivity extends AppCompatActivity {
         saveQuestionButton.setOnClickListener(v -> saveQuestion());
     }
 
+    // ==================== SIMULATION QUESTIONS ====================
+
+    private void setupSimulationButton() {
+        generateFromSimulationButton.setOnClickListener(v -> showSimulationDialog());
+    }
+
+    private void showSimulationDialog() {
+        View dialogView = LayoutInflater.from(this).inflate(R.layout.dialog_simulation_question, null);
+        TextInputEditText massInput = dialogView.findViewById(R.id.simMassInput);
+        TextInputEditText forceInput = dialogView.findViewById(R.id.simForceInput);
+        TextInputEditText frictionInput = dialogView.findViewById(R.id.simFrictionInput);
+        TextInputEditText angleInput = dialogView.findViewById(R.id.simAngleInput);
+        TextInputEditText secondsInput = dialogView.findViewById(R.id.simSecondsInput);
+        Spinner quantitySpinner = dialogView.findViewById(R.id.simQuantitySpinner);
+
+        String[] quantities = {
+                SimulationSpec.QUANTITY_VELOCITY,
+                SimulationSpec.QUANTITY_POSITION,
+                SimulationSpec.QUANTITY_ACCELERATION
+        };
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(
+                this,
+                android.R.layout.simple_spinner_item,
+                quantities
+        );
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        quantitySpinner.setAdapter(adapter);
+
+        new AlertDialog.Builder(this)
+                .setTitle("Generate from Simulation")
+                .setView(dialogView)
+                .setPositiveButton("Generate", (dialog, which) -> {
+                    try {
+                        SimulationSpec spec = new SimulationSpec(
+                                parseNumber(massInput),
+                                parseNumber(forceInput),
+                                parseNumber(frictionInput),
+                                parseNumber(angleInput),
+                                parseNumber(secondsInput),
+                                quantitySpinner.getSelectedItem().toString());
+                        if (spec.getMass() <= 0 || spec.getSeconds() <= 0) {
+                            Toast.makeText(this, "Mass and time must be positive", Toast.LENGTH_SHORT).show();
+                            return;
+                        }
+                        applyGeneratedQuestion(SimulationQuestions.generate(spec, System.nanoTime()));
+                    } catch (NumberFormatException e) {
+                        Toast.makeText(this, "Please enter a number in every field", Toast.LENGTH_SHORT).show();
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void applyGeneratedQuestion(SimulationQuestions.Generated generated) {
+        questionTextInput.setText(generated.questionText);
+        option1Input.setText(generated.options.get(0));
+        option2Input.setText(generated.options.get(1));
+        option3Input.setText(generated.options.get(2));
+        option4Input.setText(generated.options.get(3));
+        int[] radioIds = {R.id.radioOption1, R.id.radioOption2, R.id.radioOption3, R.id.radioOption4};
+        correctAnswerRadioGroup.check(radioIds[generated.correctAnswerIndex]);
+        explanationInput.setText(generated.explanation);
+        pendingSimulation = generated.spec;
+    }
+
+    private double parseNumber(TextInputEditText input) {
+        return Double.parseDouble(getTextFromInput(input));
+    }
+
     private void saveQuestion() {
         String questionText = getTextFromInput(questionTextInput);
         String option1 = getTextFromInput(option1Input);
@@ -145,6 +227,13 @@ public class CreateQuestionActivity extends AppCompatActivity {
                 difficulty
         );
 
+        // Keep the simulation only if the chosen answer still matches it, so grading can re-check it
+        if (pendingSimulation != null
+                && SimulationQuestions.verifyOption(new SimulationRunner(), pendingSimulation,
+                options.get(correctAnswerIndex))) {
+            question.setSimulation(pendingSimulation);
+        }
+
         // Show progress
         setLoading(true);
 
@@ -206,5 +295,6 @@ public class CreateQuestionActivity extends AppCompatActivity {
         explanationInput.setText("");
         pointValueInput.setText("20");
         difficultySpinner.setSelection(1);
+        pendingSimulation = null;
     }
 }
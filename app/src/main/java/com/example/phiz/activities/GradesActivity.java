@@ -11,13 +11,17 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.phiz.R;
 import com.example.phiz.helpers.FirestoreHelper;
+import com.example.phiz.helpers.PagingScrollListener;
+import com.example.phiz.models.Doodle;
 import com.example.phiz.models.QuizResult;
+import com.example.phiz.views.InkView;
 import com.google.android.material.card.MaterialCardView;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
@@ -43,6 +47,8 @@ public class GradesActivity extends AppCompatActivity {
     private FirestoreHelper firestoreHelper;
     private List<QuizResult> quizResults = new ArrayList<>();
     private boolean isViewingOtherUser = false;
+    private String gradesUserId;
+    private PagingScrollListener pager;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -67,9 +73,12 @@ public class GradesActivity extends AppCompatActivity {
         subtitleTextView = findViewById(R.id.subtitleTextView);
         emptyTextView = findViewById(R.id.emptyTextView);
 
-        gradesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new GradeAdapter(quizResults);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        gradesRecyclerView.setLayoutManager(layoutManager);
+        adapter = new GradeAdapter(quizResults, this::showWorking);
         gradesRecyclerView.setAdapter(adapter);
+        pager = new PagingScrollListener(layoutManager, this::loadGrades);
+        gradesRecyclerView.addOnScrollListener(pager);
 
         // Check if viewing another user's grades (teacher viewing student)
         String userId = getIntent().getStringExtra("userId");
@@ -78,7 +87,8 @@ public class GradesActivity extends AppCompatActivity {
         if (userId != null && !userId.isEmpty()) {
             // Teacher viewing a student's grades
             isViewingOtherUser = true;
-            loadGrades(userId);
+            gradesUserId = userId;
+            loadGrades();
             if (titleTextView != null) {
                 titleTextView.setText(studentName != null ? studentName + "'s Grades" : "Student Grades");
             }
@@ -92,7 +102,8 @@ public class GradesActivity extends AppCompatActivity {
             takeQuizButton.setVisibility(View.GONE);
         } else {
             // User viewing their own grades
-            loadGrades(currentUser.getUid());
+            gradesUserId = currentUser.getUid();
+            loadGrades();
         }
 
         backButton.setOnClickListener(v -> finish());
@@ -103,13 +114,17 @@ public class GradesActivity extends AppCompatActivity {
         });
     }
 
-    private void loadGrades(String oderId) {
-        // Use FirestoreHelper to get grades from user's subcollection
-        firestoreHelper.getUserGrades(oderId,
-                grades -> {
-                    quizResults.clear();
-                    quizResults.addAll(grades);
-                    adapter.notifyDataSetChanged();
+    private void loadGrades() {
+        if (!pager.startLoading()) return;
+
+        // Use FirestoreHelper to get grades from user's subcollection, one page at a time
+        firestoreHelper.getUserGrades(gradesUserId, pager.getCursor(), FirestoreHelper.DEFAULT_PAGE_SIZE,
+                page -> {
+                    pager.onPageLoaded(page);
+
+                    int insertStart = quizResults.size();
+                    quizResults.addAll(page.getItems());
+                    adapter.notifyItemRangeInserted(insertStart, page.getItems().size());
 
                     if (quizResults.isEmpty()) {
                         gradesRecyclerView.setVisibility(View.GONE);
@@ -120,17 +135,59 @@ public class GradesActivity extends AppCompatActivity {
                     }
                 },
                 e -> {
+                    pager.onPageFailed();
                     Toast.makeText(this, "Error loading grades: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
                 });
     }
 
+    /**
+     * Download a grade's saved doodles only when asked for, and show them under their questions
+     */
+    private void showWorking(QuizResult result) {
+        if (result.getGradeId() == null) return;
+
+        firestoreHelper.getGradeDoodles(gradesUserId, result.getGradeId(),
+                doodles -> {
+                    if (isFinishing()) return;
+                    if (doodles.isEmpty()) {
+                        Toast.makeText(this, "No working was saved for this quiz", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+
+                    View dialogView = LayoutInflater.from(this).inflate(R.layout.dialog_doodles, null);
+                    LinearLayout container = dialogView.findViewById(R.id.doodleContainer);
+                    for (Doodle doodle : doodles) {
+                        View item = LayoutInflater.from(this).inflate(R.layout.item_doodle, container, false);
+                        TextView questionText = item.findViewById(R.id.doodleQuestionTextView);
+                        InkView inkView = item.findViewById(R.id.doodleInkView);
+                        questionText.setText((doodle.getQuestionIndex() + 1) + ". " + doodle.getQuestionText());
+                        inkView.setInk(doodle.getInk().toBytes());
+                        container.addView(item);
+                    }
+
+                    new AlertDialog.Builder(this)
+                            .setTitle("Working")
+                            .setView(dialogView)
+                            .setPositiveButton("Close", null)
+                            .show();
+                },
+                e -> Toast.makeText(this, "Error loading working: " + e.getMessage(),
+                        Toast.LENGTH_SHORT).show());
+    }
+
     private static class GradeAdapter extends RecyclerView.Adapter<GradeAdapter.GradeViewHolder> {
+        interface OnWorkingClickListener {
+            void onWorkingClick(QuizResult result);
+        }
+
         private List<QuizResult> results;
+        private final OnWorkingClickListener workingListener;
         private SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.US);
 
-        public GradeAdapter(List<QuizResult> results) {
+        public GradeAdapter(List<QuizResult> results, OnWorkingClickListener workingListener) {
             this.results = results;
+            this.workingListener = workingListener;
         }
 
         @NonNull
@@ -159,6 +216,16 @@ public class GradesActivity extends AppCompatActivity {
             int percentage = maxScore > 0 ? (int) (((float) result.getScore() / maxScore) * 100) : 0;
             if (percentage > 100) percentage = 100; // Cap at 100%
             holder.percentageTextView.setText(percentage + "%");
+
+            // Only quizzes with saved doodles open the working
+            if (result.getDoodleCount() > 0) {
+                holder.workingTextView.setVisibility(View.VISIBLE);
+                holder.itemView.setOnClickListener(v -> workingListener.onWorkingClick(result));
+            } else {
+                holder.workingTextView.setVisibility(View.GONE);
+                holder.itemView.setOnClickListener(null);
+                holder.itemView.setClickable(false);
+            }
         }
 
         @Override
@@ -167,7 +234,7 @@ public class GradesActivity extends AppCompatActivity {
         }
 
         static class GradeViewHolder extends RecyclerView.ViewHolder {
-            TextView quizNameTextView, dateTextView, scoreTextView, percentageTextView;
+            TextView quizNameTextView, dateTextView, scoreTextView, percentageTextView, workingTextView;
 
             public GradeViewHolder(@NonNull View itemView) {
                 super(itemView);
@@ -175,6 +242,7 @@ public class GradesActivity extends AppCompatActivity {
                 dateTextView = itemView.findViewById(R.id.dateTextView);
                 scoreTextView = itemView.findViewById(R.id.scoreTextView);
                 percentageTextView = itemView.findViewById(R.id.percentageTextView);
+                workingTextView = itemView.findViewById(R.id.workingTextView);
             }
         }
     }
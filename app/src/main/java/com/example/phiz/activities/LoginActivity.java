@@ -16,7 +16,6 @@ import com.example.phiz.helpers.FirestoreHelper;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 public class LoginActivity extends AppCompatActivity {
     private TextInputEditText emailEditText, passwordEditText;
@@ -25,7 +24,6 @@ public class LoginActivity extends AppCompatActivity {
     private ProgressBar progressBar;
 
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,7 +31,6 @@ public class LoginActivity extends AppCompatActivity {
         setContentView(R.layout.activity_login);
 
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
 
         emailEditText = findViewById(R.id.emailEditText);
         passwordEditText = findViewById(R.id.passwordEditText);
@@ -88,33 +85,33 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     private void checkUserRoleAndNavigate(String uid) {
-        db.collection("users").document(uid).get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        String role = documentSnapshot.getString("role");
-
-                        // Initialize FCM token after successful login
-                        FCMTokenManager tokenManager = FCMTokenManager.getInstance(this);
-                        tokenManager.initializeToken();
-                        tokenManager.subscribeToRoleTopics(role);
-
-                        // Update last activity
-                        FirestoreHelper.getInstance().updateLastActivity(uid, null);
-
-                        Intent intent;
-                        if ("teacher".equals(role)) {
-                            intent = new Intent(LoginActivity.this, TeacherHomeActivity.class);
-                        } else {
-                            intent = new Intent(LoginActivity.this, StudentHomeActivity.class);
-                        }
-                        startActivity(intent);
-                        finish();
+        FirestoreHelper.getInstance().getUserCached(uid, FirestoreHelper.DEFAULT_USER_MAX_STALENESS_MS,
+                user -> {
+                    String role = user.getRole();
+
+                    // Initialize FCM token after successful login
+                    FCMTokenManager tokenManager = FCMTokenManager.getInstance(this);
+                    tokenManager.initializeToken();
+                    tokenManager.subscribeToRoleTopics(role);
+
+                    // Update last activity
+                    FirestoreHelper.getInstance().updateLastActivity(uid, null);
+
+                    Intent intent;
+                    if ("teacher".equals(role)) {
+                        intent = new Intent(LoginActivity.this, TeacherHomeActivity.class);
                     } else {
+                        intent = new Intent(LoginActivity.this, StudentHomeActivity.class);
+                    }
+                    startActivity(intent);
+                    finish();
+                },
+                e -> {
+                    if ("User not found".equals(e.getMessage())) {
                         Toast.makeText(this, "User data not found", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                 });
     }
 }
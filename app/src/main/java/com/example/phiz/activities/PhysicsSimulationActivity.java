@@ -1,21 +1,27 @@
 package com.example.phiz.activities;
 
 import android.os.Bundle;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.SeekBar;
+import android.widget.Spinner;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.phiz.R;
-import com.example.phiz.views.PhysicsSimulationView;
+import com.example.phiz.views.PhysicsSimulation;
+import com.example.phiz.views.PhysicsSimulationSurfaceView;
 import com.google.android.material.card.MaterialCardView;
 
 import java.util.Locale;
 
 public class PhysicsSimulationActivity extends AppCompatActivity {
-    private PhysicsSimulationView simulationView;
+    private PhysicsSimulation simulationView;
     private SeekBar massSeekBar, forceSeekBar, frictionSeekBar, angleSeekBar;
+    private Spinner scenarioSpinner;
     private TextView massValueTextView, forceValueTextView, frictionValueTextView,
             angleValueTextView, accelerationTextView, velocityTextView, positionTextView,
             lawDescriptionTextView;
@@ -26,17 +32,19 @@ public class PhysicsSimulationActivity extends AppCompatActivity {
     private float appliedForce = 30.0f;
     private float frictionCoefficient = 0.2f;
     private float angle = 0.0f;
+    private int scenario = PhysicsSimulationSurfaceView.SCENARIO_INCLINE;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_physics_simulation);
 
-        simulationView = findViewById(R.id.simulationView);
+        simulationView = (PhysicsSimulation) findViewById(R.id.simulationView);
         massSeekBar = findViewById(R.id.massSeekBar);
         forceSeekBar = findViewById(R.id.forceSeekBar);
         frictionSeekBar = findViewById(R.id.frictionSeekBar);
         angleSeekBar = findViewById(R.id.angleSeekBar);
+        scenarioSpinner = findViewById(R.id.scenarioSpinner);
         massValueTextView = findViewById(R.id.massValueTextView);
         forceValueTextView = findViewById(R.id.forceValueTextView);
         frictionValueTextView = findViewById(R.id.frictionValueTextView);
@@ -49,6 +57,7 @@ public class PhysicsSimulationActivity extends AppCompatActivity {
         resetButton = findViewById(R.id.resetButton);
         backButton = findViewById(R.id.backButton);
 
+        setupScenarioSpinner();
         updateLawDescription();
 
         simulationView.setOnPhysicsUpdateListener((acceleration, velocity, position) -> {
@@ -142,7 +151,75 @@ public class PhysicsSimulationActivity extends AppCompatActivity {
         simulationView.setParameters(mass, appliedForce, frictionCoefficient, angle);
     }
 
+    private void setupScenarioSpinner() {
+        // Order matches the SCENARIO_ constants of PhysicsSimulationSurfaceView
+        String[] scenarios = {"Block on an incline", "Projectile", "Atwood machine", "Spring chain", "Ball pit"};
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(
+                this,
+                android.R.layout.simple_spinner_item,
+                scenarios
+        );
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        scenarioSpinner.setAdapter(adapter);
+
+        if (!(simulationView instanceof PhysicsSimulationSurfaceView)) {
+            // Only the render-thread view runs the multi-body scenarios
+            scenarioSpinner.setVisibility(View.GONE);
+            return;
+        }
+        scenarioSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                if (position == scenario) return;
+                scenario = position;
+                ((PhysicsSimulationSurfaceView) simulationView).setScenario(position);
+
+                // The sliders only drive the incline
+                boolean incline = scenario == PhysicsSimulationSurfaceView.SCENARIO_INCLINE;
+                massSeekBar.setEnabled(incline);
+                forceSeekBar.setEnabled(incline);
+                frictionSeekBar.setEnabled(incline);
+                angleSeekBar.setEnabled(incline);
+                updateLawDescription();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+    }
+
     private void updateLawDescription() {
+        switch (scenario) {
+            case PhysicsSimulationSurfaceView.SCENARIO_PROJECTILE:
+                lawDescriptionTextView.setText("Projectile Motion:\n\n" +
+                        "Gravity only pulls down, so the horizontal speed stays constant while the " +
+                        "vertical speed changes by 9.8 m/s every second.\n\n" +
+                        "Range on flat ground: R = v² sin(2θ) / g\n\n" +
+                        "Readouts follow the ball: speed and height.");
+                return;
+            case PhysicsSimulationSurfaceView.SCENARIO_ATWOOD:
+                lawDescriptionTextView.setText("Atwood Machine:\n\n" +
+                        "Two masses (2 kg and 3 kg) share one rope over a pulley, so they accelerate together.\n\n" +
+                        "a = (m₂ - m₁) g / (m₁ + m₂) ≈ 1.96 m/s²\n\n" +
+                        "Readouts follow the heavier mass.");
+                return;
+            case PhysicsSimulationSurfaceView.SCENARIO_SPRING_CHAIN:
+                lawDescriptionTextView.setText("Hooke's Law:\n\n" +
+                        "Each spring pulls with F = -kx, proportional to how far it is stretched. " +
+                        "Upper springs carry more weight, so they stretch more.\n\n" +
+                        "Damping slowly takes energy out of the oscillation.\n\n" +
+                        "Readouts follow the bottom mass.");
+                return;
+            case PhysicsSimulationSurfaceView.SCENARIO_BALL_PIT:
+                lawDescriptionTextView.setText("Collisions:\n\n" +
+                        "Colliding balls exchange momentum along the line between their centres; " +
+                        "total momentum is conserved in each collision.\n\n" +
+                        "Each bounce keeps half of the approach speed, so the pile settles.");
+                return;
+            default:
+                break;
+        }
         String description = "Newton's Laws:\n\n" +
                 "1st Law: An object remains at rest or in uniform motion unless acted upon by a force.\n\n" +
                 "2nd Law: F = ma (Force equals mass times acceleration)\n\n" +
@@ -2,9 +2,9 @@ package com.example.phiz.activities;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.CountDownTimer;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.view.View;
 import android.widget.Button;
 import android.widget.RadioButton;
@@ -13,13 +13,26 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.AppCompatTextView;
 import androidx.core.content.ContextCompat;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 
 import com.example.phiz.R;
+import com.example.phiz.helpers.AdaptiveSelector;
+import com.example.phiz.helpers.AdaptiveStateStore;
 import com.example.phiz.helpers.FirestoreHelper;
 import com.example.phiz.helpers.NotificationHelper;
+import com.example.phiz.helpers.QuestionBankCache;
+import com.example.phiz.helpers.QuizClock;
+import com.example.phiz.helpers.QuizResponses;
+import com.example.phiz.models.Doodle;
 import com.example.phiz.models.Question;
 import com.example.phiz.models.QuizResult;
+import com.example.phiz.models.SimulationSpec;
+import com.example.phiz.models.User;
+import com.example.phiz.physics.SimulationQuestions;
+import com.example.phiz.physics.SimulationRunner;
 import com.example.phiz.views.DoodleView;
 import com.example.phiz.workers.InactivityCheckWorker;
 import com.example.phiz.workers.WeeklyProgressWorker;
@@ -27,21 +40,39 @@ import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class QuizActivity extends AppCompatActivity {
-    private TextView questionNumberTextView, questionTextView, feedbackTextView, timerTextView;
+    private TextView questionNumberTextView, questionTextView, feedbackTextView, explanationTextView, timerTextView;
     private RadioGroup answersRadioGroup;
     private RadioButton option1, option2, option3, option4;
     private Button submitButton, nextButton;
     private MaterialCardView feedbackCard;
 
-    private List<Question> questions;
+    // Filled as sampled questions arrive; the quiz starts with the first one
+    private final List<Question> questions = new ArrayList<>();
+    private boolean questionsComplete = false;  // No more questions are coming
+    private boolean waitingForQuestion = false;  // Moved past the last question before the next arrived
+    private int receivedQuestions = 0;
+    private PreparedQuestion currentPrepared;
+    private PreparedQuestion nextPrepared;  // Question N+1, warmed while N is on screen
+    private final ExecutorService textExecutor = Executors.newSingleThreadExecutor();
+
+    // Adaptive selection: each question is chosen after the previous answer to suit the student
+    private AdaptiveSelector selector;  // null when questions were sampled at random
+    private final Map<String, Question> adaptiveBank = new LinkedHashMap<>();  // questionId -> question
+    // The question to follow the current one for either answer, chosen and warmed while it is on screen
+    private int nextSlotIfCorrect = -1, nextSlotIfWrong = -1;
+    private PreparedQuestion preparedIfCorrect, preparedIfWrong;
+
     private int currentQuestionIndex = 0;
     private int score = 0;
     private int correctAnswers = 0;
@@ -49,16 +80,26 @@ public class QuizActivity extends AppCompatActivity {
     private int shuffledCorrectAnswerIndex = 0;
 
     // Timer
-    private CountDownTimer countDownTimer;
     private static final long QUESTION_TIME_MS = 30000; // 30 seconds per question
     private static final long AUTO_PROGRESS_DELAY_MS = 2000; // 2 seconds delay before auto-progress
+    private static final int WARNING_SECONDS = 10;
+
+    // One clock and one callback drive the countdown, time-up and auto-progress
+    private final QuizClock clock = new QuizClock(QUESTION_TIME_MS, AUTO_PROGRESS_DELAY_MS);
+    private final Handler clockHandler = new Handler(Looper.getMainLooper());
+    private final Runnable clockTick = this::onClockTick;
+    private int shownSeconds = -1;
+
+    // Per-question answers and timings, saved with the result for item analysis
+    private final QuizResponses responses = new QuizResponses(MAX_QUESTIONS);
 
-    // Handler for auto-progression
-    private Handler autoProgressHandler = new Handler(Looper.getMainLooper());
+    // Re-runs simulation questions to grade them
+    private final SimulationRunner simulationRunner = new SimulationRunner();
 
     // Doodle
     private DoodleView doodleView;
     private FloatingActionButton doodleToggleButton, clearDoodleButton;
+    private final List<Doodle> doodles = new ArrayList<>();  // Working saved with the result
 
     // Point system constants
     private static final int POINTS_PER_CORRECT = 20;
@@ -68,7 +109,6 @@ public class QuizActivity extends AppCompatActivity {
     private static final int MAX_QUESTIONS = 5;
 
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -76,11 +116,11 @@ public class QuizActivity extends AppCompatActivity {
         setContentView(R.layout.activity_quiz);
 
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
 
         questionNumberTextView = findViewById(R.id.questionNumberTextView);
         questionTextView = findViewById(R.id.questionTextView);
         feedbackTextView = findViewById(R.id.feedbackTextView);
+        explanationTextView = findViewById(R.id.explanationTextView);
         feedbackCard = findViewById(R.id.feedbackCard);
         timerTextView = findViewById(R.id.timerTextView);
         answersRadioGroup = findViewById(R.id.answersRadioGroup);
@@ -114,70 +154,172 @@ public class QuizActivity extends AppCompatActivity {
 
         submitButton.setEnabled(false);
         questionTextView.setText("Loading questions...");
-        loadQuestionsFromFirebase();
-    }
-
-    private void loadQuestionsFromFirebase() {
-        db.collection("questions")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    try {
-                        if (!queryDocumentSnapshots.isEmpty()) {
-                            questions = new ArrayList<>();
-
-                            for (DocumentSnapshot doc : queryDocumentSnapshots.getDocuments()) {
-                                Question question = new Question();
-                                question.setQuestionId(doc.getString("questionId"));
-                                question.setQuestionText(doc.getString("questionText"));
-
-                                List<String> options = (List<String>) doc.get("options");
-                                question.setOptions(options);
-
-                                Long correctIndex = doc.getLong("correctAnswerIndex");
-                                question.setCorrectAnswerIndex(correctIndex != null ? correctIndex.intValue() : 0);
-
-                                question.setExplanation(doc.getString("explanation"));
-
-                                Long pointValue = doc.getLong("pointValue");
-                                question.setPointValue(pointValue != null ? pointValue.intValue() : POINTS_PER_CORRECT);
-
-                                question.setDifficulty(doc.getString("difficulty"));
-
-                                // Only add questions that have valid data
-                                if (question.getQuestionText() != null && options != null && options.size() >= 4) {
-                                    questions.add(question);
-                                }
-                            }
-
-                            if (!questions.isEmpty()) {
-                                // Randomize question order
-                                Collections.shuffle(questions);
-
-                                // Limit to configured number of questions
-                                if (questions.size() > MAX_QUESTIONS) {
-                                    questions = new ArrayList<>(questions.subList(0, MAX_QUESTIONS));
-                                }
-
-                                // Start the quiz
-                                submitButton.setEnabled(true);
-                                displayQuestion();
-                            } else {
-                                Toast.makeText(this, "No valid questions found", Toast.LENGTH_SHORT).show();
-                                finish();
-                            }
-                        } else {
-                            Toast.makeText(this, "No questions available", Toast.LENGTH_SHORT).show();
-                            finish();
-                        }
-                    } catch (Exception e) {
-                        Toast.makeText(this, "Error parsing questions: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                        finish();
+        loadQuestions();
+    }
+
+    private void loadQuestions() {
+        // Serve the quiz from the on-device question bank when it has anything,
+        // then refresh it in the background for next time
+        QuestionBankCache cache = QuestionBankCache.getInstance(this);
+        cache.load(() -> {
+            if (cache.size() > 0) {
+                if (!startAdaptiveQuiz(cache.getAll())) {
+                    for (Question question : cache.sample(MAX_QUESTIONS, null)) {
+                        onQuestionArrived(question);
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Error loading questions: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    finish();
-                });
+                    onQuestionsComplete(true, null);
+                }
+                cache.sync(null);
+            } else {
+                // First run: stream a sample instead of waiting for the whole bank to
+                // download, showing each question as it arrives; fill the bank afterwards
+                FirestoreHelper.getInstance().streamRandomQuestions(MAX_QUESTIONS, null,
+                        this::onQuestionArrived,
+                        (success, e) -> {
+                            onQuestionsComplete(success, e);
+                            cache.sync(null);
+                        });
+            }
+        });
+    }
+
+    /**
+     * Choose questions one at a time from the whole bank, each at the signed-in
+     * student's estimated ability. Returns false if there is no student or no
+     * usable question, so the caller samples at random instead.
+     */
+    private boolean startAdaptiveQuiz(List<Question> bank) {
+        FirebaseUser user = mAuth.getCurrentUser();
+        if (user == null) return false;
+
+        for (Question question : bank) {
+            if (question.getQuestionId() != null && isUsable(question)) {
+                adaptiveBank.put(question.getQuestionId(), question);
+            }
+        }
+        if (adaptiveBank.isEmpty()) return false;
+
+        selector = AdaptiveStateStore.getInstance(this)
+                .load(user.getUid(), new ArrayList<>(adaptiveBank.values()));
+        selector.startQuiz();
+        offerAdaptiveQuestion(questions.size() < MAX_QUESTIONS ? selector.next() : -1);
+        return true;
+    }
+
+    /**
+     * Add the chosen question, or end the quiz when it is full or the bank runs out
+     */
+    private void offerAdaptiveQuestion(int slot) {
+        if (slot >= 0) {
+            onQuestionArrived(adaptiveBank.get(selector.getId(slot)));
+        }
+        if (slot < 0 || questions.size() >= MAX_QUESTIONS) {
+            onQuestionsComplete(true, null);
+        }
+    }
+
+    /**
+     * Update the ability and difficulty estimates, then add whichever of the
+     * two pre-chosen next questions matches the answer, already warmed
+     */
+    private void recordAdaptiveAnswer(Question question, boolean correct) {
+        if (selector == null) return;
+        int slot = selector.indexOf(question.getQuestionId());
+        int nextSlot = correct ? nextSlotIfCorrect : nextSlotIfWrong;
+        PreparedQuestion prepared = correct ? preparedIfCorrect : preparedIfWrong;
+        nextSlotIfCorrect = nextSlotIfWrong = -1;
+        preparedIfCorrect = preparedIfWrong = null;
+        if (slot >= 0) {
+            selector.recordAnswer(slot, correct);
+        }
+        if (questionsComplete) return;
+
+        if (questions.size() >= MAX_QUESTIONS) {
+            nextSlot = -1;
+        } else if (nextSlot >= 0) {
+            selector.markAsked(nextSlot);
+            nextPrepared = prepared;
+        } else {
+            nextSlot = selector.next();
+        }
+        offerAdaptiveQuestion(nextSlot);
+    }
+
+    /**
+     * Choose the question to follow the current one for a right and for a wrong
+     * answer, and lay out both while the student is still answering
+     */
+    private void prepareAdaptiveCandidates() {
+        if (questionsComplete || nextSlotIfCorrect >= 0 || nextSlotIfWrong >= 0
+                || currentQuestionIndex != questions.size() - 1 || questions.size() >= MAX_QUESTIONS) {
+            return;
+        }
+        int slot = selector.indexOf(questions.get(currentQuestionIndex).getQuestionId());
+        if (slot < 0) return;
+
+        int next = currentQuestionIndex + 1;
+        nextSlotIfCorrect = selector.peekNext(slot, true);
+        nextSlotIfWrong = selector.peekNext(slot, false);
+        if (nextSlotIfCorrect >= 0) {
+            preparedIfCorrect = prepareQuestion(next, adaptiveBank.get(selector.getId(nextSlotIfCorrect)));
+        }
+        if (nextSlotIfWrong == nextSlotIfCorrect) {
+            preparedIfWrong = preparedIfCorrect;
+        } else if (nextSlotIfWrong >= 0) {
+            preparedIfWrong = prepareQuestion(next, adaptiveBank.get(selector.getId(nextSlotIfWrong)));
+        }
+    }
+
+    private static boolean isUsable(Question question) {
+        List<String> options = question.getOptions();
+        return question.getQuestionText() != null && options != null && options.size() >= 4;
+    }
+
+    private void onQuestionArrived(Question question) {
+        if (isFinishing() || questions.size() >= MAX_QUESTIONS) return;
+        receivedQuestions++;
+
+        // Only add questions that have valid data
+        if (!isUsable(question)) return;
+        if (question.getPointValue() <= 0) {
+            question.setPointValue(POINTS_PER_CORRECT);
+        }
+        questions.add(question);
+
+        if (questions.size() == 1) {
+            // Start the quiz
+            submitButton.setEnabled(true);
+            displayQuestion();
+        } else if (waitingForQuestion) {
+            waitingForQuestion = false;
+            nextQuestion();
+        } else {
+            prepareNextQuestion();
+        }
+    }
+
+    private void onQuestionsComplete(boolean success, Exception e) {
+        if (isFinishing()) return;
+        questionsComplete = true;
+
+        if (questions.isEmpty()) {
+            if (!success) {
+                Toast.makeText(this, "Error loading questions: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            } else if (receivedQuestions == 0) {
+                Toast.makeText(this, "No questions available", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "No valid questions found", Toast.LENGTH_SHORT).show();
+            }
+            finish();
+            return;
+        }
+
+        // The quiz may be shorter than planned
+        updateQuestionNumber();
+        if (waitingForQuestion) {
+            waitingForQuestion = false;
+            showFinishButton();
+        }
     }
 
     private void toggleDoodle() {
@@ -208,32 +350,101 @@ public class QuizActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (countDownTimer != null) {
-            countDownTimer.cancel();
+        clock.stop();
+        clockHandler.removeCallbacks(clockTick);
+        textExecutor.shutdownNow();
+    }
+
+    // ==================== QUESTION PREPARATION ====================
+
+    /**
+     * Display state for a question, built ahead of time: the shuffled option order,
+     * and the question and explanation text laid out off the UI thread
+     */
+    private static class PreparedQuestion {
+        final int index;
+        final List<Integer> order;
+        final Future<PrecomputedTextCompat> questionText;
+        final Future<PrecomputedTextCompat> explanation;  // null if the question has none
+
+        PreparedQuestion(int index, List<Integer> order, Future<PrecomputedTextCompat> questionText,
+                         Future<PrecomputedTextCompat> explanation) {
+            this.index = index;
+            this.order = order;
+            this.questionText = questionText;
+            this.explanation = explanation;
         }
-        autoProgressHandler.removeCallbacksAndMessages(null);
+    }
+
+    private PreparedQuestion prepareQuestion(int index) {
+        return prepareQuestion(index, questions.get(index));
+    }
+
+    private PreparedQuestion prepareQuestion(int index, Question q) {
+
+        // Create a list of indices and shuffle them
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < q.getOptions().size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order);
+
+        Future<PrecomputedTextCompat> questionText = PrecomputedTextCompat.getTextFuture(
+                q.getQuestionText(), TextViewCompat.getTextMetricsParams(questionTextView), textExecutor);
+        Future<PrecomputedTextCompat> explanation = null;
+        if (q.getExplanation() != null && !q.getExplanation().isEmpty()) {
+            explanation = PrecomputedTextCompat.getTextFuture(
+                    q.getExplanation(), TextViewCompat.getTextMetricsParams(explanationTextView), textExecutor);
+        }
+        return new PreparedQuestion(index, order, questionText, explanation);
+    }
+
+    /**
+     * Warm the next question, if it has arrived, while the current one is on screen.
+     * An adaptive quiz hasn't chosen it yet, so both possible next questions are warmed.
+     */
+    private void prepareNextQuestion() {
+        int next = currentQuestionIndex + 1;
+        if (next < questions.size() && (nextPrepared == null || nextPrepared.index != next)) {
+            nextPrepared = prepareQuestion(next);
+        } else if (next == questions.size() && selector != null) {
+            prepareAdaptiveCandidates();
+        }
+    }
+
+    private static void setPreparedText(TextView view, Future<PrecomputedTextCompat> text, CharSequence fallback) {
+        if (view instanceof AppCompatTextView) {
+            // Applied at measure time, by then usually already computed
+            ((AppCompatTextView) view).setTextFuture(text);
+        } else {
+            view.setText(fallback);
+        }
+    }
+
+    private int plannedQuestionCount() {
+        return questionsComplete ? questions.size() : MAX_QUESTIONS;
+    }
+
+    private void updateQuestionNumber() {
+        questionNumberTextView.setText("Question " + (currentQuestionIndex + 1) + " of " + plannedQuestionCount());
+    }
+
+    private boolean isLastQuestion() {
+        return questionsComplete && currentQuestionIndex == questions.size() - 1;
     }
 
     private void displayQuestion() {
-        if (questions == null || questions.isEmpty()) return;
+        if (questions.isEmpty()) return;
 
         if (currentQuestionIndex < questions.size()) {
             Question q = questions.get(currentQuestionIndex);
-            questionNumberTextView.setText("Question " + (currentQuestionIndex + 1) + " of " + questions.size());
-            questionTextView.setText(q.getQuestionText());
+            currentPrepared = nextPrepared != null && nextPrepared.index == currentQuestionIndex
+                    ? nextPrepared : prepareQuestion(currentQuestionIndex);
+            updateQuestionNumber();
+            setPreparedText(questionTextView, currentPrepared.questionText, q.getQuestionText());
 
             List<String> options = q.getOptions();
-            if (options == null || options.size() < 4) {
-                Toast.makeText(this, "Invalid question format", Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            // Create a list of indices and shuffle them
-            List<Integer> indices = new ArrayList<>();
-            for (int i = 0; i < options.size(); i++) {
-                indices.add(i);
-            }
-            Collections.shuffle(indices);
+            List<Integer> indices = currentPrepared.order;
 
             // Set options in shuffled order and track correct answer position
             option1.setText(options.get(indices.get(0)));
@@ -246,6 +457,7 @@ public class QuizActivity extends AppCompatActivity {
 
             answersRadioGroup.clearCheck();
             feedbackCard.setVisibility(View.GONE);
+            explanationTextView.setVisibility(View.GONE);
             answerSubmitted = false;
 
             // Enable radio buttons
@@ -254,6 +466,7 @@ public class QuizActivity extends AppCompatActivity {
             // Show submit button, hide next button
             submitButton.setVisibility(View.VISIBLE);
             nextButton.setVisibility(View.GONE);
+            nextButton.setEnabled(true);
             nextButton.setOnClickListener(v -> nextQuestion());
 
             // Clear doodle for new question
@@ -263,9 +476,21 @@ public class QuizActivity extends AppCompatActivity {
 
             // Start the countdown timer
             startTimer();
+
+            prepareNextQuestion();
         }
     }
 
+    /**
+     * Show the current question's explanation under the feedback, if it has one
+     */
+    private void showExplanation() {
+        Question q = questions.get(currentQuestionIndex);
+        if (currentPrepared == null || currentPrepared.explanation == null) return;
+        setPreparedText(explanationTextView, currentPrepared.explanation, q.getExplanation());
+        explanationTextView.setVisibility(View.VISIBLE);
+    }
+
     private void setRadioButtonsEnabled(boolean enabled) {
         option1.setEnabled(enabled);
         option2.setEnabled(enabled);
@@ -274,41 +499,61 @@ public class QuizActivity extends AppCompatActivity {
     }
 
     private void startTimer() {
-        // Cancel any existing timer
-        if (countDownTimer != null) {
-            countDownTimer.cancel();
-        }
-
+        shownSeconds = -1;
         timerTextView.setTextColor(ContextCompat.getColor(this, R.color.orange_primary));
+        clock.startQuestion(SystemClock.elapsedRealtime());
+        onClockTick();
+    }
 
-        countDownTimer = new CountDownTimer(QUESTION_TIME_MS, 1000) {
-            @Override
-            public void onTick(long millisUntilFinished) {
-                long secondsLeft = millisUntilFinished / 1000;
+    /**
+     * Runs whenever the clock has something to do: a new second to show,
+     * time-up, or auto-progress. Reschedules itself for the clock's next wakeup.
+     */
+    private void onClockTick() {
+        long now = SystemClock.elapsedRealtime();
+
+        if (clock.getPhase() == QuizClock.PHASE_QUESTION) {
+            int secondsLeft = clock.getSecondsLeft(now);
+            if (secondsLeft != shownSeconds) {
+                shownSeconds = secondsLeft;
                 timerTextView.setText(String.valueOf(secondsLeft));
 
                 // Change color to red when 10 seconds or less
-                if (secondsLeft <= 10) {
-                    timerTextView.setTextColor(ContextCompat.getColor(QuizActivity.this, R.color.red_primary));
+                if (secondsLeft <= WARNING_SECONDS) {
+                    timerTextView.setTextColor(ContextCompat.getColor(this, R.color.red_primary));
                 }
             }
-
-            @Override
-            public void onFinish() {
-                timerTextView.setText("0");
+            if (clock.isTimeUp(now)) {
                 onTimeUp();
             }
-        }.start();
+        } else if (clock.isAdvanceDue(now)) {
+            nextQuestion();
+        }
+
+        scheduleClockTick();
+    }
+
+    private void scheduleClockTick() {
+        clockHandler.removeCallbacks(clockTick);
+        long now = SystemClock.elapsedRealtime();
+        long wakeup = clock.nextWakeup(now);
+        if (wakeup >= 0) {
+            clockHandler.postDelayed(clockTick, wakeup - now);
+        }
     }
 
     private void onTimeUp() {
         if (answerSubmitted) return;
+        long responseTime = clock.endQuestion(SystemClock.elapsedRealtime());
 
         Question q = questions.get(currentQuestionIndex);
+        responses.record(currentQuestionIndex, q.getQuestionId(), QuizResponses.NO_ANSWER, false, responseTime);
+        recordAdaptiveAnswer(q, false);
         String correctAnswer = q.getCorrectAnswer();
         feedbackTextView.setText("Time's up! The correct answer is: " + correctAnswer);
         feedbackTextView.setTextColor(ContextCompat.getColor(this, R.color.red_primary));
         feedbackCard.setVisibility(View.VISIBLE);
+        showExplanation();
 
         answerSubmitted = true;
         submitButton.setVisibility(View.GONE);
@@ -321,19 +566,16 @@ public class QuizActivity extends AppCompatActivity {
     private void submitAnswer() {
         if (answerSubmitted) return;
 
-        // Stop the timer when answer is submitted
-        if (countDownTimer != null) {
-            countDownTimer.cancel();
-        }
-
+        // The countdown keeps running until an answer is actually selected
         int selectedId = answersRadioGroup.getCheckedRadioButtonId();
         if (selectedId == -1) {
             Toast.makeText(this, "Please select an answer", Toast.LENGTH_SHORT).show();
-            // Restart timer since they didn't submit
-            startTimer();
             return;
         }
 
+        // Stop the timer when answer is submitted
+        long responseTime = clock.endQuestion(SystemClock.elapsedRealtime());
+
         int selectedAnswer = -1;
         if (selectedId == R.id.option1RadioButton) selectedAnswer = 0;
         else if (selectedId == R.id.option2RadioButton) selectedAnswer = 1;
@@ -341,7 +583,11 @@ public class QuizActivity extends AppCompatActivity {
         else if (selectedId == R.id.option4RadioButton) selectedAnswer = 3;
 
         Question q = questions.get(currentQuestionIndex);
-        boolean isCorrect = (selectedAnswer == shuffledCorrectAnswerIndex);
+        // Saved in the question's own option order, so answers compare across shuffles
+        int originalOption = selectedAnswer >= 0 ? currentPrepared.order.get(selectedAnswer) : QuizResponses.NO_ANSWER;
+        boolean isCorrect = isCorrectAnswer(q, selectedAnswer, originalOption);
+        responses.record(currentQuestionIndex, q.getQuestionId(), originalOption, isCorrect, responseTime);
+        recordAdaptiveAnswer(q, isCorrect);
 
         int pointValue = q.getPointValue() > 0 ? q.getPointValue() : POINTS_PER_CORRECT;
 
@@ -357,6 +603,7 @@ public class QuizActivity extends AppCompatActivity {
         }
 
         feedbackCard.setVisibility(View.VISIBLE);
+        showExplanation();
         answerSubmitted = true;
         submitButton.setVisibility(View.GONE);
         setRadioButtonsEnabled(false);
@@ -365,22 +612,38 @@ public class QuizActivity extends AppCompatActivity {
         scheduleAutoProgress();
     }
 
+    /**
+     * Simulation questions are graded against a re-run of their simulation,
+     * the rest against the stored answer key
+     */
+    private boolean isCorrectAnswer(Question q, int selectedAnswer, int originalOption) {
+        SimulationSpec simulation = q.getSimulation();
+        if (simulation != null && originalOption >= 0) {
+            return SimulationQuestions.verifyOption(simulationRunner, simulation, q.getOptions().get(originalOption));
+        }
+        return selectedAnswer == shuffledCorrectAnswerIndex;
+    }
+
     private void scheduleAutoProgress() {
         // Show next button for last question only
-        if (currentQuestionIndex == questions.size() - 1) {
-            nextButton.setText("Go Home");
-            nextButton.setVisibility(View.VISIBLE);
-            // Set click listener to go home
-            nextButton.setOnClickListener(v -> {
-                finishQuiz();
-                goHome();
-            });
+        if (isLastQuestion()) {
+            showFinishButton();
         } else {
             // Auto-progress to next question after delay
-            autoProgressHandler.postDelayed(() -> {
-                nextQuestion();
-            }, AUTO_PROGRESS_DELAY_MS);
+            clock.scheduleAdvance(SystemClock.elapsedRealtime());
         }
+        scheduleClockTick();
+    }
+
+    private void showFinishButton() {
+        nextButton.setText("Go Home");
+        nextButton.setEnabled(true);
+        nextButton.setVisibility(View.VISIBLE);
+        // Set click listener to go home
+        nextButton.setOnClickListener(v -> {
+            finishQuiz();
+            goHome();
+        });
     }
 
     private void goHome() {
@@ -392,15 +655,40 @@ public class QuizActivity extends AppCompatActivity {
 
     private void nextQuestion() {
         // Cancel any pending auto-progress
-        autoProgressHandler.removeCallbacksAndMessages(null);
+        clock.stop();
+        clockHandler.removeCallbacks(clockTick);
 
-        currentQuestionIndex++;
-        if (currentQuestionIndex < questions.size()) {
+        if (currentQuestionIndex + 1 < questions.size()) {
+            saveDoodle();
+            currentQuestionIndex++;
             displayQuestion();
+        } else if (!questionsComplete) {
+            // The next question is still on its way; it is shown as soon as it arrives
+            waitingForQuestion = true;
+            nextButton.setText("Loading next question...");
+            nextButton.setEnabled(false);
+            nextButton.setVisibility(View.VISIBLE);
+        } else {
+            // Fewer questions than planned turned up: this was the last one
+            showFinishButton();
         }
     }
 
+    /**
+     * Keep the current question's doodle, if any, before it is cleared
+     */
+    private void saveDoodle() {
+        if (doodleView == null || currentQuestionIndex >= questions.size()) return;
+        byte[] ink = doodleView.getInk();
+        if (ink == null) return;
+
+        Question q = questions.get(currentQuestionIndex);
+        doodles.add(new Doodle(currentQuestionIndex, q.getQuestionId(), q.getQuestionText(), ink));
+    }
+
     private void finishQuiz() {
+        saveDoodle();
+
         // Calculate bonuses
         int completionBonus = COMPLETION_BONUS;
         int perfectBonus = (correctAnswers == questions.size()) ? PERFECT_SCORE_BONUS : 0;
@@ -409,6 +697,9 @@ public class QuizActivity extends AppCompatActivity {
         FirebaseUser user = mAuth.getCurrentUser();
         if (user != null) {
             String userId = user.getUid();
+            if (selector != null) {
+                AdaptiveStateStore.getInstance(this).save(userId, selector);
+            }
 
             QuizResult result = new QuizResult(
                     "physics_quiz",
@@ -417,133 +708,110 @@ public class QuizActivity extends AppCompatActivity {
                     totalPointsEarned,
                     questions.size()
             );
+            responses.writeTo(result, questions.size());
 
-            // Use FirestoreHelper to save grade to user's grades subcollection
-            FirestoreHelper.getInstance().saveGradeAndUpdateScore(userId, result, (success, e) -> {
-                if (success) {
-                    // Show grade posted notification to student
-                    NotificationHelper.getInstance(this)
-                            .showGradePostedNotification(totalPointsEarned, questions.size());
+            // Save grade, score and last activity in one transaction; achievements and
+            // alerts below are computed locally from the updated user it returns
+            FirestoreHelper.getInstance().completeQuiz(userId, result, doodles,
+                    updatedUser -> {
+                        // Show grade posted notification to student
+                        NotificationHelper.getInstance(this)
+                                .showGradePostedNotification(totalPointsEarned, questions.size());
 
-                    // Update activity tracking
-                    InactivityCheckWorker.updateLastActivity(this);
-                    FirestoreHelper.getInstance().updateLastActivity(userId, null);
+                        // Update activity tracking
+                        InactivityCheckWorker.updateLastActivity(this);
 
-                    // Update weekly progress tracking
-                    updateProgressTracking(userId, totalPointsEarned);
+                        // Update weekly progress tracking
+                        updateProgressTracking(updatedUser, totalPointsEarned);
 
-                    // Check for achievements
-                    checkAchievements(userId, totalPointsEarned);
+                        // Check for achievements
+                        checkAchievements(updatedUser, totalPointsEarned);
 
-                    // Notify teachers of quiz completion
-                    notifyTeachersOfCompletion(userId, totalPointsEarned);
-                } else if (e != null) {
-                    Toast.makeText(this, "Error saving results: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                }
-            });
+                        // Notify teachers of quiz completion
+                        notifyTeachersOfCompletion(updatedUser, totalPointsEarned);
+                    },
+                    e -> Toast.makeText(this, "Error saving results: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show());
         }
     }
 
-    private void updateProgressTracking(String userId, int score) {
+    private void updateProgressTracking(User user, int score) {
         // Update the weekly progress worker with the new score
         WeeklyProgressWorker.updateCurrentScore(this, score);
 
-        // Get and update total score for progress tracking
-        FirestoreHelper.getInstance().getUser(userId,
-                user -> {
-                    if (user != null) {
-                        WeeklyProgressWorker.updateCurrentScore(this, user.getTotalScore());
-                    }
-                },
-                e -> { /* Ignore errors */ }
-        );
-    }
-
-    private void checkAchievements(String userId, int quizScore) {
-        FirestoreHelper.getInstance().getUser(userId,
-                user -> {
-                    if (user == null) return;
-
-                    int totalScore = user.getTotalScore();
-                    int testsCompleted = user.getTestsCompleted();
-                    NotificationHelper notificationHelper = NotificationHelper.getInstance(this);
-
-                    // Check for first quiz achievement
-                    if (testsCompleted == 1) {
-                        notificationHelper.showAchievementNotification(
-                                "First Steps!",
-                                "You completed your first physics quiz!"
-                        );
-                    }
+        // Update total score for progress tracking
+        WeeklyProgressWorker.updateCurrentScore(this, user.getTotalScore());
+    }
 
-                    // Check for 5 quizzes achievement
-                    if (testsCompleted == 5) {
-                        notificationHelper.showAchievementNotification(
-                                "Quiz Enthusiast!",
-                                "You've completed 5 quizzes. Keep it up!"
-                        );
-                    }
+    private void checkAchievements(User user, int quizScore) {
+        int totalScore = user.getTotalScore();
+        int testsCompleted = user.getTestsCompleted();
+        NotificationHelper notificationHelper = NotificationHelper.getInstance(this);
 
-                    // Check for 10 quizzes achievement
-                    if (testsCompleted == 10) {
-                        notificationHelper.showAchievementNotification(
-                                "Physics Regular!",
-                                "10 quizzes completed! You're on a roll!"
-                        );
-                    }
+        // Check for first quiz achievement
+        if (testsCompleted == 1) {
+            notificationHelper.showAchievementNotification(
+                    "First Steps!",
+                    "You completed your first physics quiz!"
+            );
+        }
 
-                    // Check for score milestones
-                    if (totalScore >= 100 && totalScore - quizScore < 100) {
-                        notificationHelper.showAchievementNotification(
-                                "Century Club!",
-                                "You've earned 100+ points total!"
-                        );
-                    }
+        // Check for 5 quizzes achievement
+        if (testsCompleted == 5) {
+            notificationHelper.showAchievementNotification(
+                    "Quiz Enthusiast!",
+                    "You've completed 5 quizzes. Keep it up!"
+            );
+        }
 
-                    if (totalScore >= 500 && totalScore - quizScore < 500) {
-                        notificationHelper.showAchievementNotification(
-                                "High Achiever!",
-                                "You've earned 500+ points! Impressive!"
-                        );
-                    }
+        // Check for 10 quizzes achievement
+        if (testsCompleted == 10) {
+            notificationHelper.showAchievementNotification(
+                    "Physics Regular!",
+                    "10 quizzes completed! You're on a roll!"
+            );
+        }
 
-                    if (totalScore >= 1000 && totalScore - quizScore < 1000) {
-                        notificationHelper.showAchievementNotification(
-                                "Physics Master!",
-                                "1000+ points! You're a true physics expert!"
-                        );
-                    }
+        // Check for score milestones
+        if (totalScore >= 100 && totalScore - quizScore < 100) {
+            notificationHelper.showAchievementNotification(
+                    "Century Club!",
+                    "You've earned 100+ points total!"
+            );
+        }
 
-                    // Check for perfect score on quiz
-                    if (correctAnswers == questions.size()) {
-                        notificationHelper.showAchievementNotification(
-                                "Perfect Score!",
-                                "You got all questions right! Amazing!"
-                        );
-                    }
-                },
-                e -> { /* Ignore achievement check errors */ }
-        );
-    }
+        if (totalScore >= 500 && totalScore - quizScore < 500) {
+            notificationHelper.showAchievementNotification(
+                    "High Achiever!",
+                    "You've earned 500+ points! Impressive!"
+            );
+        }
 
-    private void notifyTeachersOfCompletion(String studentId, int score) {
-        // Get student name for the notification
-        FirestoreHelper.getInstance().getUser(studentId,
-                student -> {
-                    if (student == null) return;
+        if (totalScore >= 1000 && totalScore - quizScore < 1000) {
+            notificationHelper.showAchievementNotification(
+                    "Physics Master!",
+                    "1000+ points! You're a true physics expert!"
+            );
+        }
+
+        // Check for perfect score on quiz
+        if (correctAnswers == questions.size()) {
+            notificationHelper.showAchievementNotification(
+                    "Perfect Score!",
+                    "You got all questions right! Amazing!"
+            );
+        }
+    }
 
-                    String studentName = student.getName();
-                    int percentage = (questions.size() > 0) ?
-                            (correctAnswers * 100 / questions.size()) : 0;
+    private void notifyTeachersOfCompletion(User student, int score) {
+        String studentName = student.getName();
+        int percentage = (questions.size() > 0) ?
+                (correctAnswers * 100 / questions.size()) : 0;
 
-                    // Check if low score alert is needed (below 50%)
-                    if (percentage < 50) {
-                        NotificationHelper.getInstance(this)
-                                .showLowScoreAlertForTeacher(studentName, score, percentage);
-                    }
-                },
-                e -> { /* Ignore errors */ }
-        );
+        // Check if low score alert is needed (below 50%)
+        if (percentage < 50) {
+            NotificationHelper.getInstance(this)
+                    .showLowScoreAlertForTeacher(studentName, score, percentage);
+        }
     }
 }
@@ -22,14 +22,12 @@ import com.example.phiz.workers.InactivityCheckWorker;
 import com.google.android.material.card.MaterialCardView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 public class StudentHomeActivity extends AppCompatActivity {
     private TextView welcomeTextView, scoreTextView;
     private MaterialCardView simulationCard, quizCard, gradesCard, logoutButton, settingsButton;
 
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
     private String userId;
 
     // Permission request launcher
@@ -47,7 +45,6 @@ public class StudentHomeActivity extends AppCompatActivity {
         setContentView(R.layout.activity_student_home);
 
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
 
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) {
@@ -65,14 +62,11 @@ public class StudentHomeActivity extends AppCompatActivity {
         logoutButton = findViewById(R.id.logoutButton);
         settingsButton = findViewById(R.id.settingsButton);
 
-        loadUserData();
-
         // Request notification permission for Android 13+
         requestNotificationPermission();
 
-        // Update last activity
+        // Update last activity (the Firestore side is written by loadUserData)
         InactivityCheckWorker.updateLastActivity(this);
-        FirestoreHelper.getInstance().updateLastActivity(userId, null);
 
         simulationCard.setOnClickListener(v -> {
             startActivity(new Intent(StudentHomeActivity.this, PhysicsSimulationActivity.class));
@@ -132,17 +126,16 @@ public class StudentHomeActivity extends AppCompatActivity {
     }
 
     private void loadUserData() {
-        db.collection("users").document(userId).get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        String name = documentSnapshot.getString("name");
-                        Long totalScore = documentSnapshot.getLong("totalScore");
-
-                        welcomeTextView.setText(name);
-                        scoreTextView.setText((totalScore != null ? totalScore : 0) + " points");
-                    }
-                })
-                .addOnFailureListener(e -> {
+        // Stamp last activity; the profile itself comes from the user cache, which
+        // a snapshot listener keeps current, so resuming the screen costs no read
+        FirestoreHelper helper = FirestoreHelper.getInstance();
+        helper.updateLastActivity(userId, null);
+        helper.getUserCached(userId, FirestoreHelper.DEFAULT_USER_MAX_STALENESS_MS,
+                user -> {
+                    welcomeTextView.setText(user.getName());
+                    scoreTextView.setText(user.getTotalScore() + " points");
+                },
+                e -> {
                     Toast.makeText(this, "Error loading data: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
                 });
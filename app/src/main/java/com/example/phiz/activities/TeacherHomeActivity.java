@@ -22,12 +22,12 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.phiz.R;
 import com.example.phiz.helpers.FCMTokenManager;
+import com.example.phiz.helpers.FirestoreHelper;
+import com.example.phiz.helpers.PagingScrollListener;
 import com.example.phiz.models.User;
 import com.google.android.material.card.MaterialCardView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -43,8 +43,8 @@ public class TeacherHomeActivity extends AppCompatActivity {
     private StudentAdapter adapter;
 
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
     private List<User> studentsList = new ArrayList<>();
+    private PagingScrollListener pager;
 
     // Permission request launcher
     private final ActivityResultLauncher<String> requestPermissionLauncher =
@@ -60,7 +60,6 @@ public class TeacherHomeActivity extends AppCompatActivity {
         setContentView(R.layout.activity_teacher_home);
 
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
 
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) {
@@ -80,7 +79,8 @@ public class TeacherHomeActivity extends AppCompatActivity {
         // Request notification permission for Android 13+
         requestNotificationPermission();
 
-        studentsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        studentsRecyclerView.setLayoutManager(layoutManager);
         adapter = new StudentAdapter(studentsList, student -> {
             Intent intent = new Intent(TeacherHomeActivity.this, GradesActivity.class);
             intent.putExtra("userId", student.getUid());
@@ -89,6 +89,9 @@ public class TeacherHomeActivity extends AppCompatActivity {
         });
         studentsRecyclerView.setAdapter(adapter);
 
+        // Load students a page at a time as the teacher scrolls
+        pager = new PagingScrollListener(layoutManager, this::loadStudents);
+        studentsRecyclerView.addOnScrollListener(pager);
         loadStudents();
 
         createQuestionButton.setOnClickListener(v -> {
@@ -142,16 +145,16 @@ public class TeacherHomeActivity extends AppCompatActivity {
     }
 
     private void loadStudents() {
-        db.collection("users")
-                .whereEqualTo("role", "student")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    studentsList.clear();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        User user = document.toObject(User.class);
-                        studentsList.add(user);
-                    }
-                    adapter.notifyDataSetChanged();
+        if (!pager.startLoading()) return;
+
+        FirestoreHelper.getInstance().getUsersByRole("student", pager.getCursor(),
+                FirestoreHelper.DEFAULT_PAGE_SIZE,
+                page -> {
+                    pager.onPageLoaded(page);
+
+                    int insertStart = studentsList.size();
+                    studentsList.addAll(page.getItems());
+                    adapter.notifyItemRangeInserted(insertStart, page.getItems().size());
 
                     if (studentsList.isEmpty()) {
                         studentsRecyclerView.setVisibility(View.GONE);
@@ -160,8 +163,9 @@ public class TeacherHomeActivity extends AppCompatActivity {
                         studentsRecyclerView.setVisibility(View.VISIBLE);
                         emptyStateLayout.setVisibility(View.GONE);
                     }
-                })
-                .addOnFailureListener(e -> {
+                },
+                e -> {
+                    pager.onPageFailed();
                     Toast.makeText(this, "Error loading students: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
                 });
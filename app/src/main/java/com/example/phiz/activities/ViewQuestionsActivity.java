@@ -16,12 +16,12 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.phiz.R;
+import com.example.phiz.helpers.FirestoreHelper;
+import com.example.phiz.helpers.PagingScrollListener;
 import com.example.phiz.models.Question;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,8 +36,8 @@ public class ViewQuestionsActivity extends AppCompatActivity {
     private QuestionAdapter adapter;
 
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
     private List<Question> questionsList = new ArrayList<>();
+    private PagingScrollListener pager;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -45,7 +45,6 @@ public class ViewQuestionsActivity extends AppCompatActivity {
         setContentView(R.layout.activity_view_questions);
 
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
 
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) {
@@ -71,26 +70,31 @@ public class ViewQuestionsActivity extends AppCompatActivity {
     }
 
     private void setupRecyclerView() {
-        questionsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        questionsRecyclerView.setLayoutManager(layoutManager);
         adapter = new QuestionAdapter(questionsList, this::confirmDeleteQuestion);
         questionsRecyclerView.setAdapter(adapter);
+        pager = new PagingScrollListener(layoutManager, this::loadQuestions);
+        questionsRecyclerView.addOnScrollListener(pager);
     }
 
     private void loadQuestions() {
+        if (!pager.startLoading()) return;
+        int generation = pager.getGeneration();
         setLoading(true);
-        db.collection("questions")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
+        FirestoreHelper.getInstance().getAllQuestions(pager.getCursor(), FirestoreHelper.DEFAULT_PAGE_SIZE,
+                page -> {
+                    if (!pager.isCurrent(generation)) return;
+                    pager.onPageLoaded(page);
                     setLoading(false);
-                    questionsList.clear();
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Question question = document.toObject(Question.class);
-                        questionsList.add(question);
-                    }
-                    adapter.notifyDataSetChanged();
+                    int insertStart = questionsList.size();
+                    questionsList.addAll(page.getItems());
+                    adapter.notifyItemRangeInserted(insertStart, page.getItems().size());
                     updateEmptyState();
-                })
-                .addOnFailureListener(e -> {
+                },
+                e -> {
+                    if (!pager.isCurrent(generation)) return;
+                    pager.onPageFailed();
                     setLoading(false);
                     Toast.makeText(this, "Error loading questions: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
@@ -98,6 +102,17 @@ public class ViewQuestionsActivity extends AppCompatActivity {
                 });
     }
 
+    /**
+     * Drop the loaded pages and load the list again from the first page
+     */
+    private void reloadQuestions() {
+        pager.reset();
+        int removed = questionsList.size();
+        questionsList.clear();
+        adapter.notifyItemRangeRemoved(0, removed);
+        loadQuestions();
+    }
+
     private void confirmDeleteQuestion(Question question) {
         new AlertDialog.Builder(this)
                 .setTitle("Delete Question")
@@ -108,19 +123,16 @@ public class ViewQuestionsActivity extends AppCompatActivity {
     }
 
     private void deleteQuestion(Question question) {
-        db.collection("questions")
-                .document(question.getQuestionId())
-                .delete()
-                .addOnSuccessListener(aVoid -> {
-                    questionsList.remove(question);
-                    adapter.notifyDataSetChanged();
-                    updateEmptyState();
-                    Toast.makeText(this, "Question deleted", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Error deleting question: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                });
+        FirestoreHelper.getInstance().deleteQuestion(question.getQuestionId(), (success, e) -> {
+            if (success) {
+                // Reload so the loaded pages and the paging cursor match the bank again
+                reloadQuestions();
+                Toast.makeText(this, "Question deleted", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "Error deleting question: " + e.getMessage(),
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void setLoading(boolean isLoading) {
@@ -0,0 +1,244 @@
+package com.example.phiz.helpers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Adaptive question choice with a Rasch (one-parameter IRT) model, updated Elo-style.
+ *
+ * A student of ability a answers a question of difficulty b correctly with
+ * probability p = 1 / (1 + e^-(a - b)). After each answer both estimates move
+ * towards the outcome by a step times (correct - p):
+ * - ability is kept as a mean and a variance. The answer's Fisher information
+ *   p(1 - p) shrinks the variance, and the new variance is the step, so early
+ *   answers count most and {@link #getStandardError} says how sure the estimate is
+ * - difficulty takes a step that shrinks with the question's attempts, so
+ *   well-used questions settle
+ *
+ * The next question is the unasked one with the most information at the current
+ * ability. Under this model that is the one whose difficulty is closest to it;
+ * picking at random among the few closest keeps students from all getting the
+ * same sequence. {@link #peekNext} makes that choice ahead of an answer, for
+ * either outcome, so the next question can be prepared while this one is asked.
+ *
+ * Questions live in slots of parallel primitive arrays, so choosing one is a
+ * single scan that allocates nothing. Not thread-safe; use from one thread.
+ */
+public class AdaptiveSelector {
+    public static final double PRIOR_VARIANCE = 1.0;  // Ability of a new student: mean 0, standard error 1 logit
+    private static final double MIN_VARIANCE = 0.01;
+    private static final double DRIFT_VARIANCE = 0.05;  // Added per quiz, students learn between quizzes
+
+    private static final double ITEM_STEP = 0.4;
+    private static final double ITEM_STEP_DECAY = 0.05;  // Step = ITEM_STEP / (1 + decay * attempts)
+    private static final double MIN_ITEM_STEP = 0.04;
+
+    private static final int CANDIDATES = 3;  // Random pick among this many most informative questions
+
+    private final Random random;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] ids;
+    private float[] difficulty;
+    private int[] attempts;
+    private int[] askedInQuiz;  // Quiz number the slot was last asked in
+
+    private double ability = 0;
+    private double variance = PRIOR_VARIANCE;
+    private int quiz = 0;
+    private int size = 0;
+
+    // Scratch space for the candidate pick
+    private final int[] bestSlots = new int[CANDIDATES];
+    private final double[] bestDistances = new double[CANDIDATES];
+
+    public AdaptiveSelector(int capacity, Random random) {
+        this.random = random;
+        int n = Math.max(capacity, 1);
+        ids = new String[n];
+        difficulty = new float[n];
+        attempts = new int[n];
+        askedInQuiz = new int[n];
+    }
+
+    /**
+     * Starting difficulty for a question's easy / medium / hard label, in logits
+     */
+    public static double priorDifficulty(String label) {
+        if ("easy".equals(label)) return -1.0;
+        if ("hard".equals(label)) return 1.0;
+        return 0.0;
+    }
+
+    // ==================== QUESTIONS ====================
+
+    /**
+     * Add a question, or return its slot if it is already known
+     *
+     * @param attempts answers its difficulty has already been fitted to
+     */
+    public int add(String id, double difficulty, int attempts) {
+        Integer existing = slots.get(id);
+        if (existing != null) return existing;
+
+        if (size == ids.length) {
+            int n = size * 2;
+            ids = Arrays.copyOf(ids, n);
+            this.difficulty = Arrays.copyOf(this.difficulty, n);
+            this.attempts = Arrays.copyOf(this.attempts, n);
+            askedInQuiz = Arrays.copyOf(askedInQuiz, n);
+        }
+        int slot = size++;
+        ids[slot] = id;
+        this.difficulty[slot] = (float) difficulty;
+        this.attempts[slot] = Math.max(0, attempts);
+        askedInQuiz[slot] = -1;
+        slots.put(id, slot);
+        return slot;
+    }
+
+    /**
+     * Slot of a question, or -1 if it isn't known
+     */
+    public int indexOf(String id) {
+        Integer slot = slots.get(id);
+        return slot != null ? slot : -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getId(int slot) {
+        return ids[slot];
+    }
+
+    public double getDifficulty(int slot) {
+        return difficulty[slot];
+    }
+
+    public int getAttempts(int slot) {
+        return attempts[slot];
+    }
+
+    // ==================== ABILITY ====================
+
+    public void setAbility(double ability, double variance) {
+        this.ability = ability;
+        this.variance = Math.max(MIN_VARIANCE, Math.min(PRIOR_VARIANCE, variance));
+    }
+
+    public double getAbility() {
+        return ability;
+    }
+
+    public double getVariance() {
+        return variance;
+    }
+
+    /**
+     * Uncertainty of the ability estimate, in logits
+     */
+    public double getStandardError() {
+        return Math.sqrt(variance);
+    }
+
+    public double probabilityCorrect(int slot) {
+        return 1.0 / (1.0 + Math.exp(difficulty[slot] - ability));
+    }
+
+    // ==================== SELECTION ====================
+
+    /**
+     * Start a new quiz: every question can be asked again, and the ability
+     * estimate loosens a little since the student may have learned since
+     */
+    public void startQuiz() {
+        quiz++;
+        variance = Math.min(PRIOR_VARIANCE, variance + DRIFT_VARIANCE);
+    }
+
+    /**
+     * Choose the next question for this quiz and mark it asked
+     *
+     * @return its slot, or -1 if every question has been asked
+     */
+    public int next() {
+        int chosen = choose(ability);
+        if (chosen >= 0) markAsked(chosen);
+        return chosen;
+    }
+
+    /**
+     * Choose the question that would follow answering the one in answeredSlot
+     * this way, without changing any state. Pass it to {@link #markAsked} once
+     * the answer is in and it turns out to be the one.
+     *
+     * @return its slot, or -1 if every other question has been asked
+     */
+    public int peekNext(int answeredSlot, boolean correct) {
+        double p = probabilityCorrect(answeredSlot);
+        double residual = (correct ? 1 : 0) - p;
+        return choose(ability + varianceAfter(p) * residual);
+    }
+
+    public void markAsked(int slot) {
+        askedInQuiz[slot] = quiz;
+    }
+
+    /**
+     * A random one of the most informative unasked questions at the given ability, or -1
+     */
+    private int choose(double ability) {
+        int found = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (askedInQuiz[slot] == quiz) continue;
+            // Information p(1 - p) falls as |ability - difficulty| grows
+            double distance = Math.abs(difficulty[slot] - ability);
+            if (found < CANDIDATES) {
+                insertCandidate(found++, slot, distance);
+            } else if (distance < bestDistances[CANDIDATES - 1]) {
+                insertCandidate(CANDIDATES - 1, slot, distance);
+            }
+        }
+        if (found == 0) return -1;
+        return bestSlots[random.nextInt(found)];
+    }
+
+    /**
+     * Put a candidate at position, then move it up to keep the list sorted by distance
+     */
+    private void insertCandidate(int position, int slot, double distance) {
+        int i = position;
+        while (i > 0 && bestDistances[i - 1] > distance) {
+            bestSlots[i] = bestSlots[i - 1];
+            bestDistances[i] = bestDistances[i - 1];
+            i--;
+        }
+        bestSlots[i] = slot;
+        bestDistances[i] = distance;
+    }
+
+    /**
+     * Update the ability and the question's difficulty with one answer
+     */
+    public void recordAnswer(int slot, boolean correct) {
+        double p = probabilityCorrect(slot);
+        double residual = (correct ? 1 : 0) - p;
+
+        variance = varianceAfter(p);
+        ability += variance * residual;
+
+        double step = Math.max(MIN_ITEM_STEP, ITEM_STEP / (1 + ITEM_STEP_DECAY * attempts[slot]));
+        difficulty[slot] -= (float) (step * residual);
+        attempts[slot]++;
+    }
+
+    /**
+     * Ability variance after an answer that was expected correct with probability p
+     */
+    private double varianceAfter(double p) {
+        return Math.max(MIN_VARIANCE, 1.0 / (1.0 / variance + p * (1 - p)));
+    }
+}
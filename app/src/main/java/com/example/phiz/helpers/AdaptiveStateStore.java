@@ -0,0 +1,108 @@
+package com.example.phiz.helpers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.phiz.models.Question;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * On-device state of {@link AdaptiveSelector} between quizzes.
+ *
+ * Kept in SharedPreferences: each student's ability estimate (mean and
+ * variance), and the difficulty fitted so far to every question that has been
+ * answered on this device, as one JSON object {questionId: [difficulty, attempts]}.
+ * Questions never answered start from their easy / medium / hard label.
+ */
+public class AdaptiveStateStore {
+    private static final String TAG = "AdaptiveStateStore";
+    private static final String PREFS_NAME = "adaptive_prefs";
+    private static final String KEY_ABILITY_PREFIX = "ability_";
+    private static final String KEY_VARIANCE_PREFIX = "ability_variance_";
+    private static final String KEY_QUESTIONS = "question_difficulties";
+
+    private static AdaptiveStateStore instance;
+    private final Context context;
+    private final Random random = new Random();
+
+    private AdaptiveStateStore(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized AdaptiveStateStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new AdaptiveStateStore(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Build a selector over the given questions with the student's saved ability
+     */
+    public AdaptiveSelector load(String userId, List<Question> bank) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        JSONObject fitted = readQuestions(prefs);
+
+        AdaptiveSelector selector = new AdaptiveSelector(bank.size(), random);
+        for (Question question : bank) {
+            String id = question.getQuestionId();
+            if (id == null) continue;
+            double prior = AdaptiveSelector.priorDifficulty(question.getDifficulty());
+            JSONArray params = fitted.optJSONArray(id);
+            if (params != null) {
+                selector.add(id, params.optDouble(0, prior), params.optInt(1, 0));
+            } else {
+                selector.add(id, prior, 0);
+            }
+        }
+
+        selector.setAbility(
+                prefs.getFloat(KEY_ABILITY_PREFIX + userId, 0f),
+                prefs.getFloat(KEY_VARIANCE_PREFIX + userId, (float) AdaptiveSelector.PRIOR_VARIANCE));
+        return selector;
+    }
+
+    /**
+     * Save the student's ability and the difficulties of answered questions
+     */
+    public void save(String userId, AdaptiveSelector selector) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        // Keep questions this selector didn't load, e.g. ones missing from a stale bank
+        JSONObject fitted = readQuestions(prefs);
+        try {
+            for (int slot = 0; slot < selector.size(); slot++) {
+                if (selector.getAttempts(slot) == 0) continue;
+                fitted.put(selector.getId(slot), new JSONArray()
+                        .put(selector.getDifficulty(slot))
+                        .put(selector.getAttempts(slot)));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Error serializing question difficulties", e);
+            return;
+        }
+
+        prefs.edit()
+                .putFloat(KEY_ABILITY_PREFIX + userId, (float) selector.getAbility())
+                .putFloat(KEY_VARIANCE_PREFIX + userId, (float) selector.getVariance())
+                .putString(KEY_QUESTIONS, fitted.toString())
+                .apply();
+    }
+
+    private static JSONObject readQuestions(SharedPreferences prefs) {
+        String json = prefs.getString(KEY_QUESTIONS, null);
+        if (json == null) return new JSONObject();
+        try {
+            return new JSONObject(json);
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable question difficulties", e);
+            return new JSONObject();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.phiz.helpers;
+
+import com.example.phiz.models.Doodle;
+import com.example.phiz.models.Leaderboard;
+import com.example.phiz.models.LeaderboardEntry;
+import com.example.phiz.models.NotificationPreferences;
+import com.example.phiz.models.Question;
+import com.example.phiz.models.QuizResult;
+import com.example.phiz.models.SimulationSpec;
+import com.example.phiz.models.Test;
+import com.example.phiz.models.User;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written Firestore document -> model mappers.
+ *
+ * DocumentSnapshot.toObject() goes through Firestore's reflective bean mapper,
+ * which dominates parse time for long lists. These mappers read the fields
+ * directly and produce the same result: fields missing from the document keep
+ * the model's default values, and numbers stored as long or double are both accepted.
+ *
+ * The map-based variants take doc.getData() so they can run without a snapshot.
+ */
+public final class DocumentMappers {
+
+    /**
+     * Maps one document to a model object, or null if the document has no data
+     */
+    public interface Mapper<T> {
+        T map(DocumentSnapshot doc);
+    }
+
+    private DocumentMappers() {
+    }
+
+    // ==================== SNAPSHOT MAPPERS ====================
+
+    public static User toUser(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return data != null ? userFromMap(data) : null;
+    }
+
+    /**
+     * The question, or null if the document is missing or soft-deleted
+     */
+    public static Question toQuestion(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return data != null && !isDeletedQuestion(data) ? questionFromMap(data) : null;
+    }
+
+    /**
+     * Whether a question document is a tombstone left by FirestoreHelper.deleteQuestion
+     */
+    public static boolean isDeletedQuestion(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return data != null && isDeletedQuestion(data);
+    }
+
+    private static boolean isDeletedQuestion(Map<String, Object> data) {
+        return getBoolean(data, "deleted", false);
+    }
+
+    public static QuizResult toQuizResult(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        if (data == null) return null;
+        QuizResult result = quizResultFromMap(data);
+        // Grades saved before the id was stored
+        if (result.getGradeId() == null) result.setGradeId(doc.getId());
+        return result;
+    }
+
+    public static Doodle toDoodle(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return data != null ? doodleFromMap(data) : null;
+    }
+
+    public static Test toTest(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return data != null ? testFromMap(data) : null;
+    }
+
+    public static Leaderboard toLeaderboard(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return data != null ? leaderboardFromMap(data) : null;
+    }
+
+    // ==================== MAP MAPPERS ====================
+
+    public static User userFromMap(Map<String, Object> data) {
+        User user = new User();
+        user.setUid(getString(data, "uid"));
+        user.setEmail(getString(data, "email"));
+        user.setName(getString(data, "name"));
+        user.setRole(getString(data, "role"));
+        user.setTotalScore(getInt(data, "totalScore", 0));
+        user.setTestsCompleted(getInt(data, "testsCompleted", 0));
+        user.setFcmToken(getString(data, "fcmToken"));
+        user.setLastActivityAt(getTimestamp(data, "lastActivityAt"));
+
+        Object prefs = data.get("notificationPreferences");
+        if (prefs instanceof Map) {
+            user.setNotificationPreferences(notificationPreferencesFromMap(asMap(prefs)));
+        }
+        return user;
+    }
+
+    public static NotificationPreferences notificationPreferencesFromMap(Map<String, Object> data) {
+        // Start from the defaults so missing fields behave like toObject()
+        NotificationPreferences prefs = new NotificationPreferences();
+        prefs.setQuizNotifications(getBoolean(data, "quizNotifications", prefs.isQuizNotifications()));
+        prefs.setGradeNotifications(getBoolean(data, "gradeNotifications", prefs.isGradeNotifications()));
+        prefs.setAchievementNotifications(getBoolean(data, "achievementNotifications",
+                prefs.isAchievementNotifications()));
+        prefs.setStudyReminders(getBoolean(data, "studyReminders", prefs.isStudyReminders()));
+        prefs.setWeeklyProgress(getBoolean(data, "weeklyProgress", prefs.isWeeklyProgress()));
+        if (data.containsKey("reminderTime")) {
+            prefs.setReminderTime(getString(data, "reminderTime"));
+        }
+        if (data.containsKey("reminderDays")) {
+            prefs.setReminderDays(getStringList(data, "reminderDays"));
+        }
+        return prefs;
+    }
+
+    public static Question questionFromMap(Map<String, Object> data) {
+        Question question = new Question();
+        question.setQuestionId(getString(data, "questionId"));
+        question.setQuestionText(getString(data, "questionText"));
+        question.setOptions(getStringList(data, "options"));
+        question.setCorrectAnswerIndex(getInt(data, "correctAnswerIndex", 0));
+        question.setExplanation(getString(data, "explanation"));
+        question.setPointValue(getInt(data, "pointValue", 0));
+        question.setDifficulty(getString(data, "difficulty"));
+        question.setSortKey(getDouble(data, "sortKey", 0));
+        question.setUpdatedAt(getTimestamp(data, "updatedAt"));
+
+        Object simulation = data.get("simulation");
+        if (simulation instanceof Map) {
+            question.setSimulation(simulationSpecFromMap(asMap(simulation)));
+        }
+        return question;
+    }
+
+    public static SimulationSpec simulationSpecFromMap(Map<String, Object> data) {
+        SimulationSpec spec = new SimulationSpec();
+        spec.setMass(getDouble(data, "mass", 0));
+        spec.setAppliedForce(getDouble(data, "appliedForce", 0));
+        spec.setFrictionCoefficient(getDouble(data, "frictionCoefficient", 0));
+        spec.setAngle(getDouble(data, "angle", 0));
+        spec.setSeconds(getDouble(data, "seconds", 0));
+        spec.setQuantity(getString(data, "quantity"));
+        spec.setAnswer(getDouble(data, "answer", 0));
+        return spec;
+    }
+
+    public static QuizResult quizResultFromMap(Map<String, Object> data) {
+        QuizResult result = new QuizResult();
+        result.setGradeId(getString(data, "gradeId"));
+        result.setQuizId(getString(data, "quizId"));
+        result.setUserId(getString(data, "userId"));
+        result.setUserName(getString(data, "userName"));
+        result.setQuizName(getString(data, "quizName"));
+        result.setScore(getInt(data, "score", 0));
+        result.setTotalQuestions(getInt(data, "totalQuestions", 0));
+        result.setTimestamp(getTimestamp(data, "timestamp"));
+        result.setDoodleCount(getInt(data, "doodleCount", 0));
+        result.setQuestionIds(getStringList(data, "questionIds"));
+        result.setSelectedOptions(getIntList(data, "selectedOptions"));
+        result.setCorrect(getBooleanList(data, "correct"));
+        result.setResponseTimesMs(getLongList(data, "responseTimesMs"));
+        return result;
+    }
+
+    public static Doodle doodleFromMap(Map<String, Object> data) {
+        Doodle doodle = new Doodle();
+        doodle.setQuestionIndex(getInt(data, "questionIndex", 0));
+        doodle.setQuestionId(getString(data, "questionId"));
+        doodle.setQuestionText(getString(data, "questionText"));
+        Object ink = data.get("ink");
+        doodle.setInk(ink instanceof Blob ? (Blob) ink : null);
+        return doodle;
+    }
+
+    public static Test testFromMap(Map<String, Object> data) {
+        Test test = new Test();
+        test.setTestId(getString(data, "testId"));
+        test.setTestName(getString(data, "testName"));
+        test.setDescription(getString(data, "description"));
+        test.setSubject(getString(data, "subject"));
+        test.setTotalPoints(getInt(data, "totalPoints", 0));
+        test.setPassingScore(getInt(data, "passingScore", 0));
+        test.setTimeLimit(getInt(data, "timeLimit", 0));
+        test.setDifficulty(getString(data, "difficulty"));
+        test.setActive(getBoolean(data, "active", false));
+        test.setCreatedBy(getString(data, "createdBy"));
+        test.setCreatedAt(getTimestamp(data, "createdAt"));
+        test.setUpdatedAt(getTimestamp(data, "updatedAt"));
+
+        Object questions = data.get("questions");
+        if (questions instanceof List) {
+            List<?> rawQuestions = (List<?>) questions;
+            List<Question> parsed = new ArrayList<>(rawQuestions.size());
+            for (Object rawQuestion : rawQuestions) {
+                if (rawQuestion instanceof Map) {
+                    parsed.add(questionFromMap(asMap(rawQuestion)));
+                }
+            }
+            test.setQuestions(parsed);
+        }
+        return test;
+    }
+
+    public static Leaderboard leaderboardFromMap(Map<String, Object> data) {
+        Leaderboard leaderboard = new Leaderboard();
+        int bucketSize = getInt(data, "bucketSize", leaderboard.getBucketSize());
+        if (bucketSize > 0) leaderboard.setBucketSize(bucketSize);
+        leaderboard.setStudentCount(getInt(data, "studentCount", 0));
+        leaderboard.setUpdatedAt(getTimestamp(data, "updatedAt"));
+
+        Object top = data.get("top");
+        if (top instanceof List) {
+            List<LeaderboardEntry> entries = new ArrayList<>();
+            for (Object rawEntry : (List<?>) top) {
+                if (rawEntry instanceof Map) {
+                    Map<String, Object> entry = asMap(rawEntry);
+                    entries.add(new LeaderboardEntry(getString(entry, "uid"), getString(entry, "name"),
+                            getInt(entry, "totalScore", 0)));
+                }
+            }
+            leaderboard.setTop(entries);
+        }
+
+        Object buckets = data.get("buckets");
+        if (buckets instanceof Map) {
+            Map<String, Long> counts = new HashMap<>();
+            for (Map.Entry<String, Object> bucket : asMap(buckets).entrySet()) {
+                if (bucket.getValue() instanceof Number) {
+                    counts.put(bucket.getKey(), ((Number) bucket.getValue()).longValue());
+                }
+            }
+            leaderboard.setBuckets(counts);
+        }
+        return leaderboard;
+    }
+
+    // ==================== FIELD READERS ====================
+
+    private static String getString(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static int getInt(Map<String, Object> data, String field, int defaultValue) {
+        Object value = data.get(field);
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    private static double getDouble(Map<String, Object> data, String field, double defaultValue) {
+        Object value = data.get(field);
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+    }
+
+    private static boolean getBoolean(Map<String, Object> data, String field, boolean defaultValue) {
+        Object value = data.get(field);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    private static Timestamp getTimestamp(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Timestamp ? (Timestamp) value : null;
+    }
+
+    private static List<String> getStringList(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (!(value instanceof List)) return null;
+        List<?> raw = (List<?>) value;
+        List<String> strings = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            strings.add(item != null ? item.toString() : null);
+        }
+        return strings;
+    }
+
+    private static List<Integer> getIntList(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (!(value instanceof List)) return null;
+        List<?> raw = (List<?>) value;
+        List<Integer> ints = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            ints.add(item instanceof Number ? ((Number) item).intValue() : null);
+        }
+        return ints;
+    }
+
+    private static List<Boolean> getBooleanList(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (!(value instanceof List)) return null;
+        List<?> raw = (List<?>) value;
+        List<Boolean> booleans = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            booleans.add(item instanceof Boolean ? (Boolean) item : null);
+        }
+        return booleans;
+    }
+
+    private static List<Long> getLongList(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (!(value instanceof List)) return null;
+        List<?> raw = (List<?>) value;
+        List<Long> longs = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            longs.add(item instanceof Number ? ((Number) item).longValue() : null);
+        }
+        return longs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+}
@@ -6,13 +6,8 @@ import android.util.Log;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.messaging.FirebaseMessaging;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Manager class for FCM token lifecycle.
  * Handles token retrieval, storage, and cleanup.
@@ -24,12 +19,10 @@ public class FCMTokenManager {
 
     private static FCMTokenManager instance;
     private final Context context;
-    private final FirebaseFirestore db;
     private final FirebaseAuth auth;
 
     private FCMTokenManager(Context context) {
         this.context = context.getApplicationContext();
-        this.db = FirebaseFirestore.getInstance();
         this.auth = FirebaseAuth.getInstance();
     }
 
@@ -80,20 +73,14 @@ public class FCMTokenManager {
         }
 
         String userId = user.getUid();
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("fcmToken", token);
-        updates.put("lastTokenUpdate", FieldValue.serverTimestamp());
-
-        db.collection(FirestoreHelper.COLLECTION_USERS)
-                .document(userId)
-                .update(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "FCM token saved to Firestore for user: " + userId);
-                    saveTokenLocally(token);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error saving FCM token to Firestore", e);
-                });
+        FirestoreHelper.getInstance().saveFCMToken(userId, token, (success, e) -> {
+            if (success) {
+                Log.d(TAG, "FCM token saved to Firestore for user: " + userId);
+                saveTokenLocally(token);
+            } else {
+                Log.e(TAG, "Error saving FCM token to Firestore", e);
+            }
+        });
     }
 
     /**
@@ -110,18 +97,7 @@ public class FCMTokenManager {
         String userId = user.getUid();
 
         // Delete from Firestore
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("fcmToken", FieldValue.delete());
-
-        db.collection(FirestoreHelper.COLLECTION_USERS)
-                .document(userId)
-                .update(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "FCM token deleted from Firestore for user: " + userId);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error deleting FCM token from Firestore", e);
-                });
+        FirestoreHelper.getInstance().deleteFCMToken(userId, null);
 
         // Clear local token
         clearLocalToken();
@@ -2,26 +2,44 @@ package com.example.phiz.helpers;
 
 import android.util.Log;
 
+import com.example.phiz.models.Doodle;
+import com.example.phiz.models.Leaderboard;
+import com.example.phiz.models.LeaderboardEntry;
 import com.example.phiz.models.NotificationPreferences;
 import com.example.phiz.models.Question;
 import com.example.phiz.models.QuizResult;
 import com.example.phiz.models.Test;
 import com.example.phiz.models.User;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
 import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Helper class for Firebase Firestore operations.
@@ -30,6 +48,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Data Structure:
  * - users/{userId} - User documents
  * - users/{userId}/grades/{gradeId} - Grades subcollection under each user
+ * - users/{userId}/grades/{gradeId}/doodles/{questionIndex} - Saved working for a grade
  * - questions/{questionId} - Question documents
  * - tests/{testId} - Test documents
  */
@@ -41,16 +60,44 @@ public class FirestoreHelper {
     public static final String COLLECTION_QUESTIONS = "questions";
     public static final String COLLECTION_TESTS = "tests";
     public static final String SUBCOLLECTION_GRADES = "grades";
+    public static final String SUBCOLLECTION_DOODLES = "doodles";
+    public static final String COLLECTION_LEADERBOARDS = "leaderboards";
+    public static final String DOC_STUDENT_LEADERBOARD = "students";
+
+    // Firestore limit on values in a single whereIn filter
+    private static final int WHERE_IN_LIMIT = 10;
+
+    // Rounds of extra draws when random question sampling hits duplicates
+    private static final int MAX_SAMPLE_ROUNDS = 3;
+
+    // Default staleness accepted by getUserCached
+    public static final long DEFAULT_USER_MAX_STALENESS_MS = 60 * 1000L;
 
     // Singleton instance
     private static FirestoreHelper instance;
     private final FirebaseFirestore db;
     private final FirebaseAuth auth;
 
+    // userId -> name, for grades that predate the denormalized userName field
+    private final Map<String, String> userNameCache = new ConcurrentHashMap<>();
+
+    private final Random random = new Random();
+
+    // Merges field updates to users/{uid} queued within a short window into one batch
+    private final WriteCoalescer userWrites;
+
+    // Recently read user profiles; the signed-in user is kept fresh by a snapshot listener
+    private final UserCache userCache = new UserCache(UserCache.DEFAULT_CAPACITY);
+    private ListenerRegistration currentUserListener;
+    private String listenedUserId;
+    private Map<String, Object> listenedUserData;  // Last snapshot, plus our own writes since
+
     // Private constructor for singleton
     private FirestoreHelper() {
         db = FirebaseFirestore.getInstance();
         auth = FirebaseAuth.getInstance();
+        userWrites = new WriteCoalescer(db, WriteCoalescer.DEFAULT_WINDOW_MS);
+        auth.addAuthStateListener(firebaseAuth -> listenToCurrentUser(firebaseAuth.getCurrentUser()));
     }
 
     /**
@@ -92,6 +139,69 @@ public class FirestoreHelper {
         void onComplete(boolean success, Exception e);
     }
 
+    // ==================== PAGING ====================
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Run one page of a query ordered on the server. Pass null as startAfter for
+     * the first page, then the previous page's cursor. Documents the mapper skips
+     * (tombstones) are made up from further down the query, so a page is only
+     * short when the query has run out.
+     */
+    private <T> void getPage(Query query, DocumentSnapshot startAfter, int pageSize,
+                             DocumentMappers.Mapper<T> mapper, String errorMessage,
+                             OnSuccessListener<Page<T>> onSuccess, OnFailureListener onFailure) {
+        fillPage(query, startAfter, pageSize, mapper, new ArrayList<>(), errorMessage, onSuccess, onFailure);
+    }
+
+    private <T> void fillPage(Query query, DocumentSnapshot startAfter, int pageSize,
+                              DocumentMappers.Mapper<T> mapper, List<T> items, String errorMessage,
+                              OnSuccessListener<Page<T>> onSuccess, OnFailureListener onFailure) {
+        int wanted = pageSize - items.size();
+        Query pageQuery = query.limit(wanted);
+        if (startAfter != null) {
+            pageQuery = pageQuery.startAfter(startAfter);
+        }
+
+        pageQuery.get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                    for (DocumentSnapshot doc : docs) {
+                        T item = mapper.map(doc);
+                        if (item != null) items.add(item);
+                    }
+                    DocumentSnapshot cursor = docs.isEmpty() ? startAfter : docs.get(docs.size() - 1);
+                    boolean hasMore = docs.size() == wanted;
+                    if (hasMore && items.size() < pageSize) {
+                        fillPage(query, cursor, pageSize, mapper, items, errorMessage, onSuccess, onFailure);
+                        return;
+                    }
+                    if (onSuccess != null) onSuccess.onSuccess(toPage(items, cursor, hasMore, pageSize));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, errorMessage, e);
+                    if (onFailure != null) onFailure.onFailure(e);
+                });
+    }
+
+    /**
+     * Wrap a page of items with its cursor; the next page is hinted for when
+     * the user is half a page from the end.
+     */
+    private static <T> Page<T> toPage(List<T> items, DocumentSnapshot cursor, boolean hasMore, int pageSize) {
+        return new Page<>(items, cursor, hasMore, pageSize / 2);
+    }
+
+    /**
+     * Page of items mapped one-for-one from the documents; a full page means there may be more
+     */
+    private static <T> Page<T> toPage(List<T> items, List<DocumentSnapshot> docs,
+                                      DocumentSnapshot startAfter, int pageSize) {
+        DocumentSnapshot cursor = docs.isEmpty() ? startAfter : docs.get(docs.size() - 1);
+        return toPage(items, cursor, docs.size() == pageSize, pageSize);
+    }
+
     // ==================== USER OPERATIONS ====================
 
     /**
@@ -103,6 +213,7 @@ public class FirestoreHelper {
                 .set(user)
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "User created successfully: " + user.getUid());
+                    userCache.put(user.getUid(), user);
                     if (listener != null) listener.onComplete(true, null);
                 })
                 .addOnFailureListener(e -> {
@@ -120,9 +231,11 @@ public class FirestoreHelper {
                 .get()
                 .addOnSuccessListener(document -> {
                     if (document.exists()) {
-                        User user = document.toObject(User.class);
+                        User user = DocumentMappers.toUser(document);
+                        userCache.put(userId, user);
                         if (onSuccess != null) onSuccess.onSuccess(user);
                     } else {
+                        userCache.invalidate(userId);
                         if (onFailure != null) onFailure.onFailure(new Exception("User not found"));
                     }
                 })
@@ -145,40 +258,148 @@ public class FirestoreHelper {
     }
 
     /**
-     * Update user data
+     * Get user by ID from the in-memory cache if it is no older than maxStalenessMs,
+     * otherwise from Firestore. The signed-in user is always served from the cache
+     * once loaded, since a snapshot listener keeps it current.
+     */
+    public void getUserCached(String userId, long maxStalenessMs,
+                              OnSuccessListener<User> onSuccess, OnFailureListener onFailure) {
+        User cached = userCache.get(userId, maxStalenessMs);
+        if (cached != null) {
+            if (onSuccess != null) onSuccess.onSuccess(cached);
+            return;
+        }
+        getUser(userId, onSuccess, onFailure);
+    }
+
+    /**
+     * Get current authenticated user, from the cache when possible
+     */
+    public void getCurrentUserCached(long maxStalenessMs, OnSuccessListener<User> onSuccess,
+                                     OnFailureListener onFailure) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            if (onFailure != null) onFailure.onFailure(new Exception("No authenticated user"));
+            return;
+        }
+        getUserCached(userId, maxStalenessMs, onSuccess, onFailure);
+    }
+
+    /**
+     * Keep the signed-in user's cache entry current with one snapshot listener.
+     * Also sees our own writes immediately through Firestore's latency compensation.
+     */
+    private synchronized void listenToCurrentUser(FirebaseUser firebaseUser) {
+        String userId = firebaseUser != null ? firebaseUser.getUid() : null;
+        if (userId != null && userId.equals(listenedUserId)) return;
+
+        if (currentUserListener != null) {
+            currentUserListener.remove();
+            currentUserListener = null;
+        }
+        if (listenedUserId != null) {
+            userCache.unpin(listenedUserId);
+        }
+        listenedUserId = userId;
+        listenedUserData = null;
+
+        if (userId == null) {
+            // Signed out: don't keep anyone's profile around
+            userCache.clear();
+            return;
+        }
+
+        currentUserListener = userRef(userId).addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Current user listener failed", e);
+                synchronized (this) {
+                    userCache.unpin(userId);
+                    userCache.invalidate(userId);
+                    if (userId.equals(listenedUserId)) listenedUserData = null;
+                }
+                return;
+            }
+            if (snapshot != null && snapshot.exists()) {
+                synchronized (this) {
+                    if (!userId.equals(listenedUserId)) return;
+                    listenedUserData = new HashMap<>(snapshot.getData());
+                    userCache.put(userId, DocumentMappers.toUser(snapshot));
+                    userCache.pin(userId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Apply our own update to the signed-in user's cached profile straight away,
+     * so it stays current while the write waits in the coalescer; the listener
+     * then sees the write itself once it is committed locally. Other users'
+     * entries are just dropped.
+     */
+    private synchronized void applyToCachedUser(String userId, Map<String, Object> fields,
+                                                Map<String, Long> increments) {
+        if (!userId.equals(listenedUserId) || listenedUserData == null) {
+            userCache.invalidate(userId);
+            return;
+        }
+        listenedUserData = applyUpdate(listenedUserData, fields, increments);
+        userCache.put(userId, DocumentMappers.userFromMap(listenedUserData));
+    }
+
+    /**
+     * Cache a user's document data as it is after a write we made
+     */
+    private synchronized void putCachedUser(String userId, Map<String, Object> data) {
+        if (userId.equals(listenedUserId)) listenedUserData = new HashMap<>(data);
+        userCache.put(userId, DocumentMappers.userFromMap(data));
+    }
+
+    /**
+     * Update user data.
+     * The update is coalesced with other pending updates to the same user.
      */
     public void updateUser(String userId, Map<String, Object> updates, OnCompleteListener listener) {
-        db.collection(COLLECTION_USERS)
-                .document(userId)
-                .update(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "User updated successfully: " + userId);
-                    if (listener != null) listener.onComplete(true, null);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error updating user", e);
-                    if (listener != null) listener.onComplete(false, e);
-                });
+        queueUserUpdate(userId, updates, listener);
     }
 
     /**
      * Update user's total score
      */
     public void updateUserScore(String userId, int scoreToAdd, OnCompleteListener listener) {
-        db.collection(COLLECTION_USERS)
-                .document(userId)
-                .update(
-                        "totalScore", FieldValue.increment(scoreToAdd),
-                        "testsCompleted", FieldValue.increment(1)
-                )
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "User score updated: " + userId);
-                    if (listener != null) listener.onComplete(true, null);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error updating user score", e);
-                    if (listener != null) listener.onComplete(false, e);
-                });
+        DocumentReference userRef = userRef(userId);
+        Map<String, Long> increments = new HashMap<>();
+        increments.put("totalScore", (long) scoreToAdd);
+        increments.put("testsCompleted", 1L);
+        applyToCachedUser(userId, Collections.emptyMap(), increments);
+        userWrites.increment(userRef, "totalScore", scoreToAdd, null);
+        userWrites.increment(userRef, "testsCompleted", 1, invalidatingListener(userId, listener));
+    }
+
+    /**
+     * Queue a coalesced update to a user. The signed-in user's cached profile
+     * gets the update at once; anyone else's is dropped now and once the write lands.
+     */
+    private void queueUserUpdate(String userId, Map<String, Object> updates, OnCompleteListener listener) {
+        applyToCachedUser(userId, updates, Collections.emptyMap());
+        userWrites.update(userRef(userId), updates, invalidatingListener(userId, listener));
+    }
+
+    private OnCompleteListener invalidatingListener(String userId, OnCompleteListener listener) {
+        return (success, e) -> {
+            userCache.invalidate(userId);
+            if (listener != null) listener.onComplete(success, e);
+        };
+    }
+
+    /**
+     * Write all queued user updates now instead of waiting for the coalescing window
+     */
+    public void flushUserUpdates(OnCompleteListener listener) {
+        userWrites.flush(listener);
+    }
+
+    private DocumentReference userRef(String userId) {
+        return db.collection(COLLECTION_USERS).document(userId);
     }
 
     /**
@@ -190,6 +411,7 @@ public class FirestoreHelper {
                 .delete()
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "User deleted: " + userId);
+                    userCache.invalidate(userId);
                     if (listener != null) listener.onComplete(true, null);
                 })
                 .addOnFailureListener(e -> {
@@ -207,7 +429,7 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<User> users = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        users.add(doc.toObject(User.class));
+                        users.add(DocumentMappers.toUser(doc));
                     }
                     if (onSuccess != null) onSuccess.onSuccess(users);
                 })
@@ -217,6 +439,17 @@ public class FirestoreHelper {
                 });
     }
 
+    /**
+     * Get one page of all users, ordered by document ID
+     */
+    public void getAllUsers(DocumentSnapshot startAfter, int pageSize,
+                            OnSuccessListener<Page<User>> onSuccess, OnFailureListener onFailure) {
+        Query query = db.collection(COLLECTION_USERS)
+                .orderBy(FieldPath.documentId());
+        getPage(query, startAfter, pageSize, DocumentMappers::toUser,
+                "Error getting users page", onSuccess, onFailure);
+    }
+
     /**
      * Get users by role (student/teacher)
      */
@@ -227,7 +460,7 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<User> users = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        users.add(doc.toObject(User.class));
+                        users.add(DocumentMappers.toUser(doc));
                     }
                     if (onSuccess != null) onSuccess.onSuccess(users);
                 })
@@ -237,6 +470,18 @@ public class FirestoreHelper {
                 });
     }
 
+    /**
+     * Get one page of users with the given role, ordered by document ID
+     */
+    public void getUsersByRole(String role, DocumentSnapshot startAfter, int pageSize,
+                               OnSuccessListener<Page<User>> onSuccess, OnFailureListener onFailure) {
+        Query query = db.collection(COLLECTION_USERS)
+                .whereEqualTo("role", role)
+                .orderBy(FieldPath.documentId());
+        getPage(query, startAfter, pageSize, DocumentMappers::toUser,
+                "Error getting users by role page", onSuccess, onFailure);
+    }
+
     /**
      * Get all students
      */
@@ -252,9 +497,28 @@ public class FirestoreHelper {
     }
 
     /**
-     * Get top students by score
+     * Get top students by score.
+     * Served from the leaderboard document; falls back to an ordered query when
+     * the leaderboard doesn't exist yet or holds fewer entries than requested.
      */
     public void getTopStudents(int limit, OnSuccessListener<List<User>> onSuccess, OnFailureListener onFailure) {
+        getLeaderboard(leaderboard -> {
+            List<LeaderboardEntry> top = leaderboard.getTop();
+            if (top.size() < limit && top.size() < leaderboard.getStudentCount()) {
+                queryTopStudents(limit, onSuccess, onFailure);
+                return;
+            }
+            List<User> users = new ArrayList<>();
+            for (LeaderboardEntry entry : top.subList(0, Math.min(limit, top.size()))) {
+                User user = new User(entry.getUid(), null, entry.getName(), "student");
+                user.setTotalScore(entry.getTotalScore());
+                users.add(user);
+            }
+            if (onSuccess != null) onSuccess.onSuccess(users);
+        }, e -> queryTopStudents(limit, onSuccess, onFailure));
+    }
+
+    private void queryTopStudents(int limit, OnSuccessListener<List<User>> onSuccess, OnFailureListener onFailure) {
         db.collection(COLLECTION_USERS)
                 .whereEqualTo("role", "student")
                 .orderBy("totalScore", Query.Direction.DESCENDING)
@@ -263,7 +527,7 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<User> users = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        users.add(doc.toObject(User.class));
+                        users.add(DocumentMappers.toUser(doc));
                     }
                     if (onSuccess != null) onSuccess.onSuccess(users);
                 })
@@ -273,6 +537,37 @@ public class FirestoreHelper {
                 });
     }
 
+    /**
+     * Get the student leaderboard: the top students plus the score histogram
+     * used by Leaderboard.getRank. A single document read regardless of class size.
+     */
+    public void getLeaderboard(OnSuccessListener<Leaderboard> onSuccess, OnFailureListener onFailure) {
+        db.collection(COLLECTION_LEADERBOARDS)
+                .document(DOC_STUDENT_LEADERBOARD)
+                .get()
+                .addOnSuccessListener(document -> {
+                    if (document.exists()) {
+                        if (onSuccess != null) onSuccess.onSuccess(DocumentMappers.toLeaderboard(document));
+                    } else {
+                        if (onFailure != null) onFailure.onFailure(new Exception("Leaderboard not found"));
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error getting leaderboard", e);
+                    if (onFailure != null) onFailure.onFailure(e);
+                });
+    }
+
+    /**
+     * Get a student's rank (1 = best) from the leaderboard document
+     */
+    public void getStudentRank(String userId, int totalScore,
+                               OnSuccessListener<Integer> onSuccess, OnFailureListener onFailure) {
+        getLeaderboard(leaderboard -> {
+            if (onSuccess != null) onSuccess.onSuccess(leaderboard.getRank(userId, totalScore));
+        }, onFailure);
+    }
+
     /**
      * Check if user exists
      */
@@ -311,27 +606,27 @@ public class FirestoreHelper {
     }
 
     /**
-     * Save grade and update user score in a single batch
+     * Save grade and update user score in a single batch.
+     * Written on its own, not with whatever other user updates happen to be queued.
      */
     public void saveGradeAndUpdateScore(String userId, QuizResult grade, OnCompleteListener listener) {
         WriteBatch batch = db.batch();
 
         // Add grade to subcollection
-        DocumentReference gradeRef = db.collection(COLLECTION_USERS)
-                .document(userId)
-                .collection(SUBCOLLECTION_GRADES)
-                .document();
+        DocumentReference gradeRef = gradeRef(userId);
+        grade.setGradeId(gradeRef.getId());
         batch.set(gradeRef, grade);
 
         // Update user score
-        DocumentReference userRef = db.collection(COLLECTION_USERS).document(userId);
-        batch.update(userRef,
+        batch.update(userRef(userId),
                 "totalScore", FieldValue.increment(grade.getScore()),
                 "testsCompleted", FieldValue.increment(1));
 
+        userCache.invalidate(userId);
         batch.commit()
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Grade saved and user score updated");
+                    userCache.invalidate(userId);
                     if (listener != null) listener.onComplete(true, null);
                 })
                 .addOnFailureListener(e -> {
@@ -340,6 +635,184 @@ public class FirestoreHelper {
                 });
     }
 
+    /**
+     * Quiz completion in one transaction: saves the grade, increments the user's
+     * score and quiz count, stamps last activity, and returns the updated user.
+     * Any other updates queued for the user are written in the same transaction.
+     * If the transaction certainly wrote nothing (offline, or the commit was
+     * rejected), the same writes go out as one batch, which Firestore queues
+     * locally until it can commit. If the commit may have landed, the grade
+     * document decides, so the increments are never applied twice.
+     */
+    public void completeQuiz(String userId, QuizResult grade,
+                             OnSuccessListener<User> onSuccess, OnFailureListener onFailure) {
+        completeQuiz(userId, grade, Collections.emptyList(), onSuccess, onFailure);
+    }
+
+    /**
+     * Quiz completion that also saves the student's working, one doodle per
+     * question, under the grade in the same transaction
+     */
+    public void completeQuiz(String userId, QuizResult grade, List<Doodle> doodles,
+                             OnSuccessListener<User> onSuccess, OnFailureListener onFailure) {
+        DocumentReference userRef = userRef(userId);
+        DocumentReference gradeRef = gradeRef(userId);
+        grade.setGradeId(gradeRef.getId());
+        grade.setDoodleCount(doodles.size());
+        userCache.invalidate(userId);
+
+        // Pull the user's queued update out of the coalescer and commit it here instead
+        Map<String, Long> queuedIncrements = new HashMap<>();
+        List<OnCompleteListener> queuedListeners = new ArrayList<>();
+        Map<String, Object> queuedFields = userWrites.take(userRef, queuedIncrements, queuedListeners);
+
+        // The quiz's own fields go on top of the queued ones
+        Map<String, Object> fields = new HashMap<>(queuedFields);
+        fields.put("lastActivityAt", Timestamp.now());
+        Map<String, Long> increments = new HashMap<>(queuedIncrements);
+        increments.merge("totalScore", (long) grade.getScore(), Long::sum);
+        increments.merge("testsCompleted", 1L, Long::sum);
+        Map<String, Object> update = new HashMap<>(fields);
+        for (Map.Entry<String, Long> increment : increments.entrySet()) {
+            update.put(increment.getKey(), FieldValue.increment(increment.getValue()));
+        }
+
+        // The user as read inside the transaction; set only once the commit is attempted
+        AtomicReference<Map<String, Object>> preRead = new AtomicReference<>();
+
+        OnSuccessListener<Map<String, Object>> succeed = updatedData -> {
+            putCachedUser(userId, updatedData);
+            for (OnCompleteListener l : queuedListeners) l.onComplete(true, null);
+            if (onSuccess != null) onSuccess.onSuccess(DocumentMappers.userFromMap(updatedData));
+        };
+        OnFailureListener fail = e -> {
+            Log.e(TAG, "Error saving quiz completion", e);
+            // The other updates weren't ours to lose: queue them again
+            userWrites.restore(userRef, queuedFields, queuedIncrements, queuedListeners);
+            if (onFailure != null) onFailure.onFailure(e);
+        };
+        OnFailureListener savedWithoutUser = e -> {
+            // The quiz is saved; only the follow-ups that need the user miss out
+            Log.e(TAG, "Error reading user after quiz completion", e);
+            userCache.invalidate(userId);
+            for (OnCompleteListener l : queuedListeners) l.onComplete(true, null);
+            if (onFailure != null) onFailure.onFailure(e);
+        };
+        // A plain batch queues offline instead of failing; only used once the
+        // transaction is known not to have written anything
+        Runnable saveByBatch = () -> {
+            WriteBatch batch = db.batch();
+            batch.set(gradeRef, grade);
+            for (Doodle doodle : doodles) {
+                batch.set(doodleRef(gradeRef, doodle), doodle);
+            }
+            batch.update(userRef, update);
+            batch.commit()
+                    .addOnSuccessListener(aVoid -> {
+                        Log.d(TAG, "Quiz completion saved by batch for user: " + userId);
+                        if (preRead.get() != null) {
+                            succeed.onSuccess(applyUpdate(preRead.get(), fields, increments));
+                            return;
+                        }
+                        // Nothing was read before the batch; it has landed, so read the result
+                        userRef.get()
+                                .addOnSuccessListener(userDoc -> {
+                                    if (userDoc.exists()) {
+                                        succeed.onSuccess(userDoc.getData());
+                                    } else {
+                                        savedWithoutUser.onFailure(new FirebaseFirestoreException(
+                                                "User not found: " + userId, FirebaseFirestoreException.Code.NOT_FOUND));
+                                    }
+                                })
+                                .addOnFailureListener(savedWithoutUser);
+                    })
+                    .addOnFailureListener(fail);
+        };
+
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot userDoc = transaction.get(userRef);
+                    Map<String, Object> data = userDoc.getData();
+                    if (data == null) {
+                        throw new FirebaseFirestoreException("User not found: " + userId,
+                                FirebaseFirestoreException.Code.NOT_FOUND);
+                    }
+                    transaction.set(gradeRef, grade);
+                    for (Doodle doodle : doodles) {
+                        transaction.set(doodleRef(gradeRef, doodle), doodle);
+                    }
+                    transaction.update(userRef, update);
+                    preRead.set(data);
+                    return applyUpdate(data, fields, increments);
+                })
+                .addOnSuccessListener(updatedData -> {
+                    Log.d(TAG, "Quiz completion saved for user: " + userId);
+                    succeed.onSuccess(updatedData);
+                })
+                .addOnFailureListener(e -> {
+                    FirebaseFirestoreException.Code code = e instanceof FirebaseFirestoreException
+                            ? ((FirebaseFirestoreException) e).getCode() : FirebaseFirestoreException.Code.UNKNOWN;
+                    if (code == FirebaseFirestoreException.Code.NOT_FOUND) {
+                        fail.onFailure(e);
+                    } else if (preRead.get() == null
+                            || code == FirebaseFirestoreException.Code.ABORTED
+                            || code == FirebaseFirestoreException.Code.FAILED_PRECONDITION) {
+                        // Never reached the commit (offline reads fail first), or the commit was rejected
+                        Log.w(TAG, "Quiz completion transaction wrote nothing, falling back to a batch", e);
+                        saveByBatch.run();
+                    } else {
+                        // The commit may have landed (UNAVAILABLE, DEADLINE_EXCEEDED...): the grade says
+                        Log.w(TAG, "Quiz completion commit failed, checking whether it landed", e);
+                        gradeRef.get(Source.SERVER)
+                                .addOnSuccessListener(gradeDoc -> {
+                                    if (gradeDoc.exists()) {
+                                        succeed.onSuccess(applyUpdate(preRead.get(), fields, increments));
+                                    } else {
+                                        saveByBatch.run();
+                                    }
+                                })
+                                .addOnFailureListener(checkError -> {
+                                    // Can't tell; re-queueing the increments could count them twice
+                                    Log.e(TAG, "Could not confirm quiz completion for user: " + userId, checkError);
+                                    userCache.invalidate(userId);
+                                    for (OnCompleteListener l : queuedListeners) l.onComplete(false, e);
+                                    if (onFailure != null) onFailure.onFailure(e);
+                                });
+                    }
+                });
+    }
+
+    private static DocumentReference doodleRef(DocumentReference gradeRef, Doodle doodle) {
+        return gradeRef.collection(SUBCOLLECTION_DOODLES).document(String.valueOf(doodle.getQuestionIndex()));
+    }
+
+    /**
+     * The document data as it is after an update, computed locally from the pre-write read
+     */
+    private static Map<String, Object> applyUpdate(Map<String, Object> data, Map<String, Object> fields,
+                                                   Map<String, Long> increments) {
+        Map<String, Object> result = new HashMap<>(data);
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            Object value = field.getValue();
+            if (FieldValue.delete().equals(value)) {
+                result.remove(field.getKey());
+            } else if (FieldValue.serverTimestamp().equals(value)) {
+                result.put(field.getKey(), Timestamp.now());
+            } else {
+                result.put(field.getKey(), value);
+            }
+        }
+        for (Map.Entry<String, Long> increment : increments.entrySet()) {
+            Object current = result.get(increment.getKey());
+            long base = current instanceof Number ? ((Number) current).longValue() : 0;
+            result.put(increment.getKey(), base + increment.getValue());
+        }
+        return result;
+    }
+
+    private DocumentReference gradeRef(String userId) {
+        return userRef(userId).collection(SUBCOLLECTION_GRADES).document();
+    }
+
     /**
      * Save grade for current user
      */
@@ -365,7 +838,7 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<QuizResult> grades = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        QuizResult grade = doc.toObject(QuizResult.class);
+                        QuizResult grade = DocumentMappers.toQuizResult(doc);
                         grades.add(grade);
                     }
                     if (onSuccess != null) onSuccess.onSuccess(grades);
@@ -376,6 +849,46 @@ public class FirestoreHelper {
                 });
     }
 
+    /**
+     * Get one page of a user's grades, newest first
+     */
+    public void getUserGrades(String userId, DocumentSnapshot startAfter, int pageSize,
+                              OnSuccessListener<Page<QuizResult>> onSuccess, OnFailureListener onFailure) {
+        Query query = db.collection(COLLECTION_USERS)
+                .document(userId)
+                .collection(SUBCOLLECTION_GRADES)
+                .orderBy("timestamp", Query.Direction.DESCENDING);
+        getPage(query, startAfter, pageSize, DocumentMappers::toQuizResult,
+                "Error getting user grades page", onSuccess, onFailure);
+    }
+
+    /**
+     * Get the saved working for one grade, in question order.
+     * Loaded separately from the grade so lists of grades stay small.
+     */
+    public void getGradeDoodles(String userId, String gradeId,
+                                OnSuccessListener<List<Doodle>> onSuccess, OnFailureListener onFailure) {
+        db.collection(COLLECTION_USERS)
+                .document(userId)
+                .collection(SUBCOLLECTION_GRADES)
+                .document(gradeId)
+                .collection(SUBCOLLECTION_DOODLES)
+                .orderBy("questionIndex")
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<Doodle> doodles = new ArrayList<>();
+                    for (QueryDocumentSnapshot doc : querySnapshot) {
+                        Doodle doodle = DocumentMappers.toDoodle(doc);
+                        if (doodle != null && doodle.getInk() != null) doodles.add(doodle);
+                    }
+                    if (onSuccess != null) onSuccess.onSuccess(doodles);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error getting grade doodles", e);
+                    if (onFailure != null) onFailure.onFailure(e);
+                });
+    }
+
     /**
      * Get current user's grades
      */
@@ -404,75 +917,114 @@ public class FirestoreHelper {
     }
 
     /**
-     * Get all grades from all users (for teacher view)
+     * Get all grades from all users (for teacher view).
+     * Single collection-group query over every grades subcollection, newest first.
      */
     public void getAllGrades(OnSuccessListener<List<UserGrade>> onSuccess, OnFailureListener onFailure) {
-        // First get all users
-        db.collection(COLLECTION_USERS)
+        db.collectionGroup(SUBCOLLECTION_GRADES)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
                 .get()
-                .addOnSuccessListener(userSnapshots -> {
-                    List<UserGrade> allGrades = new ArrayList<>();
-                    List<User> users = new ArrayList<>();
-
-                    for (QueryDocumentSnapshot doc : userSnapshots) {
-                        users.add(doc.toObject(User.class));
-                    }
-
-                    if (users.isEmpty()) {
+                .addOnSuccessListener(querySnapshot -> {
+                    List<UserGrade> allGrades = toUserGrades(querySnapshot.getDocuments());
+                    resolveMissingUserNames(allGrades, () -> {
                         if (onSuccess != null) onSuccess.onSuccess(allGrades);
-                        return;
-                    }
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error getting all grades", e);
+                    if (onFailure != null) onFailure.onFailure(e);
+                });
+    }
 
-                    // Counter to track completed queries
-                    AtomicInteger completedQueries = new AtomicInteger(0);
-                    int totalUsers = users.size();
-
-                    // Get grades for each user
-                    for (User user : users) {
-                        db.collection(COLLECTION_USERS)
-                                .document(user.getUid())
-                                .collection(SUBCOLLECTION_GRADES)
-                                .get()
-                                .addOnSuccessListener(gradeSnapshots -> {
-                                    synchronized (allGrades) {
-                                        for (QueryDocumentSnapshot gradeDoc : gradeSnapshots) {
-                                            QuizResult grade = gradeDoc.toObject(QuizResult.class);
-                                            allGrades.add(new UserGrade(user.getName(), user.getUid(), grade));
-                                        }
-                                    }
+    /**
+     * Get one page of the teacher grade feed, newest first.
+     * Pass null as startAfter for the first page, then the previous page's cursor.
+     */
+    public void getGradeFeedPage(DocumentSnapshot startAfter, int pageSize,
+                                 OnSuccessListener<Page<UserGrade>> onSuccess, OnFailureListener onFailure) {
+        Query query = db.collectionGroup(SUBCOLLECTION_GRADES)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
+        }
 
-                                    // Check if all queries completed
-                                    if (completedQueries.incrementAndGet() == totalUsers) {
-                                        // Sort by timestamp descending
-                                        allGrades.sort((a, b) -> {
-                                            if (a.grade.getTimestamp() == null && b.grade.getTimestamp() == null) return 0;
-                                            if (a.grade.getTimestamp() == null) return 1;
-                                            if (b.grade.getTimestamp() == null) return -1;
-                                            return b.grade.getTimestamp().compareTo(a.grade.getTimestamp());
-                                        });
-                                        if (onSuccess != null) onSuccess.onSuccess(allGrades);
-                                    }
-                                })
-                                .addOnFailureListener(e -> {
-                                    // Still increment counter on failure to avoid hanging
-                                    if (completedQueries.incrementAndGet() == totalUsers) {
-                                        allGrades.sort((a, b) -> {
-                                            if (a.grade.getTimestamp() == null && b.grade.getTimestamp() == null) return 0;
-                                            if (a.grade.getTimestamp() == null) return 1;
-                                            if (b.grade.getTimestamp() == null) return -1;
-                                            return b.grade.getTimestamp().compareTo(a.grade.getTimestamp());
-                                        });
-                                        if (onSuccess != null) onSuccess.onSuccess(allGrades);
-                                    }
-                                });
-                    }
+        query.get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                    List<UserGrade> grades = toUserGrades(docs);
+                    resolveMissingUserNames(grades, () -> {
+                        if (onSuccess != null) onSuccess.onSuccess(toPage(grades, docs, startAfter, pageSize));
+                    });
                 })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting all grades", e);
+                    Log.e(TAG, "Error getting grade feed page", e);
                     if (onFailure != null) onFailure.onFailure(e);
                 });
     }
 
+    /**
+     * Convert grade documents to UserGrade rows. The owner ID is taken from the
+     * document path (users/{userId}/grades/{gradeId}) so it is always present.
+     */
+    private List<UserGrade> toUserGrades(List<DocumentSnapshot> gradeDocs) {
+        List<UserGrade> grades = new ArrayList<>();
+        for (DocumentSnapshot gradeDoc : gradeDocs) {
+            QuizResult grade = DocumentMappers.toQuizResult(gradeDoc);
+            if (grade == null) continue;
+            DocumentReference userRef = gradeDoc.getReference().getParent().getParent();
+            String userId = userRef != null ? userRef.getId() : grade.getUserId();
+            grades.add(new UserGrade(grade.getUserName(), userId, grade));
+        }
+        return grades;
+    }
+
+    /**
+     * Fill in names for grades written before userName was denormalized.
+     * Looks up only the missing users, in chunks, and remembers them for later pages.
+     */
+    private void resolveMissingUserNames(List<UserGrade> grades, Runnable onDone) {
+        List<String> missingIds = new ArrayList<>();
+        for (UserGrade userGrade : grades) {
+            if (userGrade.userName != null || userGrade.oderId == null) continue;
+            String cachedName = userNameCache.get(userGrade.oderId);
+            if (cachedName != null) {
+                userGrade.userName = cachedName;
+            } else if (!missingIds.contains(userGrade.oderId)) {
+                missingIds.add(userGrade.oderId);
+            }
+        }
+
+        if (missingIds.isEmpty()) {
+            onDone.run();
+            return;
+        }
+
+        List<Task<QuerySnapshot>> lookups = new ArrayList<>();
+        for (int i = 0; i < missingIds.size(); i += WHERE_IN_LIMIT) {
+            List<String> chunk = missingIds.subList(i, Math.min(i + WHERE_IN_LIMIT, missingIds.size()));
+            lookups.add(db.collection(COLLECTION_USERS)
+                    .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                    .get());
+        }
+
+        Tasks.whenAllComplete(lookups).addOnCompleteListener(done -> {
+            for (Task<QuerySnapshot> lookup : lookups) {
+                if (!lookup.isSuccessful() || lookup.getResult() == null) continue;
+                for (QueryDocumentSnapshot userDoc : lookup.getResult()) {
+                    String name = userDoc.getString("name");
+                    if (name != null) userNameCache.put(userDoc.getId(), name);
+                }
+            }
+            for (UserGrade userGrade : grades) {
+                if (userGrade.userName == null && userGrade.oderId != null) {
+                    userGrade.userName = userNameCache.get(userGrade.oderId);
+                }
+            }
+            onDone.run();
+        });
+    }
+
     /**
      * Delete a grade from user's subcollection
      */
@@ -505,7 +1057,7 @@ public class FirestoreHelper {
                 .get()
                 .addOnSuccessListener(querySnapshot -> {
                     if (!querySnapshot.isEmpty()) {
-                        QuizResult result = querySnapshot.getDocuments().get(0).toObject(QuizResult.class);
+                        QuizResult result = DocumentMappers.toQuizResult(querySnapshot.getDocuments().get(0));
                         if (onSuccess != null) onSuccess.onSuccess(result != null ? result.getScore() : 0);
                     } else {
                         if (onSuccess != null) onSuccess.onSuccess(0);
@@ -518,15 +1070,16 @@ public class FirestoreHelper {
     }
 
     /**
-     * Get grade count for a user
+     * Get grade count for a user (server-side count aggregation)
      */
     public void getUserGradeCount(String userId, OnSuccessListener<Integer> onSuccess, OnFailureListener onFailure) {
         db.collection(COLLECTION_USERS)
                 .document(userId)
                 .collection(SUBCOLLECTION_GRADES)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (onSuccess != null) onSuccess.onSuccess(querySnapshot.size());
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    if (onSuccess != null) onSuccess.onSuccess((int) snapshot.getCount());
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error getting grade count", e);
@@ -547,6 +1100,11 @@ public class FirestoreHelper {
             docRef = db.collection(COLLECTION_QUESTIONS).document();
             question.setQuestionId(docRef.getId());
         }
+        if (question.getSortKey() == 0) {
+            question.setSortKey(Question.newSortKey());
+        }
+        // A question loaded earlier carries its old timestamp; null lets the server stamp this write
+        question.setUpdatedAt(null);
 
         docRef.set(question)
                 .addOnSuccessListener(aVoid -> {
@@ -567,8 +1125,8 @@ public class FirestoreHelper {
                 .document(questionId)
                 .get()
                 .addOnSuccessListener(document -> {
-                    if (document.exists()) {
-                        Question question = document.toObject(Question.class);
+                    Question question = document.exists() ? DocumentMappers.toQuestion(document) : null;
+                    if (question != null) {
                         if (onSuccess != null) onSuccess.onSuccess(question);
                     } else {
                         if (onFailure != null) onFailure.onFailure(new Exception("Question not found"));
@@ -589,7 +1147,8 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<Question> questions = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        questions.add(doc.toObject(Question.class));
+                        Question question = DocumentMappers.toQuestion(doc);
+                        if (question != null) questions.add(question);
                     }
                     if (onSuccess != null) onSuccess.onSuccess(questions);
                 })
@@ -599,6 +1158,17 @@ public class FirestoreHelper {
                 });
     }
 
+    /**
+     * Get one page of questions, ordered by document ID
+     */
+    public void getAllQuestions(DocumentSnapshot startAfter, int pageSize,
+                                OnSuccessListener<Page<Question>> onSuccess, OnFailureListener onFailure) {
+        Query query = db.collection(COLLECTION_QUESTIONS)
+                .orderBy(FieldPath.documentId());
+        getPage(query, startAfter, pageSize, DocumentMappers::toQuestion,
+                "Error getting questions page", onSuccess, onFailure);
+    }
+
     /**
      * Get questions by difficulty
      */
@@ -609,7 +1179,8 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<Question> questions = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        questions.add(doc.toObject(Question.class));
+                        Question question = DocumentMappers.toQuestion(doc);
+                        if (question != null) questions.add(question);
                     }
                     if (onSuccess != null) onSuccess.onSuccess(questions);
                 })
@@ -623,9 +1194,11 @@ public class FirestoreHelper {
      * Update question
      */
     public void updateQuestion(String questionId, Map<String, Object> updates, OnCompleteListener listener) {
+        Map<String, Object> stamped = new HashMap<>(updates);
+        stamped.put("updatedAt", FieldValue.serverTimestamp());
         db.collection(COLLECTION_QUESTIONS)
                 .document(questionId)
-                .update(updates)
+                .update(stamped)
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Question updated: " + questionId);
                     if (listener != null) listener.onComplete(true, null);
@@ -637,12 +1210,19 @@ public class FirestoreHelper {
     }
 
     /**
-     * Delete question
+     * Delete question. It is soft-deleted: the document becomes a tombstone with a
+     * fresh updatedAt, so delta syncs of on-device question banks see the deletion.
+     * Reads skip tombstones, and a scheduled function removes them for good later.
      */
     public void deleteQuestion(String questionId, OnCompleteListener listener) {
+        Map<String, Object> tombstone = new HashMap<>();
+        tombstone.put("deleted", true);
+        tombstone.put("deletedAt", FieldValue.serverTimestamp());
+        tombstone.put("updatedAt", FieldValue.serverTimestamp());
+        tombstone.put("sortKey", FieldValue.delete());  // Out of random draws for good
         db.collection(COLLECTION_QUESTIONS)
                 .document(questionId)
-                .delete()
+                .update(tombstone)
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Question deleted: " + questionId);
                     if (listener != null) listener.onComplete(true, null);
@@ -657,16 +1237,142 @@ public class FirestoreHelper {
      * Get random questions for a quiz
      */
     public void getRandomQuestions(int count, OnSuccessListener<List<Question>> onSuccess, OnFailureListener onFailure) {
-        db.collection(COLLECTION_QUESTIONS)
+        getRandomQuestions(count, null, onSuccess, onFailure);
+    }
+
+    /**
+     * Get random questions for a quiz, optionally filtered by difficulty (null = any).
+     *
+     * Each question carries a uniform random sortKey. Every draw picks a random pivot
+     * and reads the first question at or after it, wrapping to the start of the range
+     * when the pivot lands past the last key, so a quiz reads about count documents
+     * instead of the whole bank. Duplicate draws are topped up for a few rounds.
+     */
+    public void getRandomQuestions(int count, String difficulty,
+                                   OnSuccessListener<List<Question>> onSuccess, OnFailureListener onFailure) {
+        List<Question> questions = new ArrayList<>();
+        streamRandomQuestions(count, difficulty, questions::add, (success, e) -> {
+            if (!success) {
+                if (onFailure != null) onFailure.onFailure(e);
+                return;
+            }
+            Collections.shuffle(questions, random);
+            if (onSuccess != null) onSuccess.onSuccess(questions);
+        });
+    }
+
+    /**
+     * Random questions delivered one at a time, each as soon as its draw returns,
+     * so a quiz can show its first question without waiting for the rest.
+     * Sampling works as in {@link #getRandomQuestions}; onComplete fails only if
+     * no question could be read at all.
+     */
+    public void streamRandomQuestions(int count, String difficulty, OnSuccessListener<Question> onQuestion,
+                                      OnCompleteListener onComplete) {
+        if (count <= 0) {
+            if (onComplete != null) onComplete.onComplete(true, null);
+            return;
+        }
+        streamDraws(count, difficulty, new HashSet<>(), 0, onQuestion, onComplete);
+    }
+
+    private void streamDraws(int count, String difficulty, Set<String> delivered, int round,
+                             OnSuccessListener<Question> onQuestion, OnCompleteListener onComplete) {
+        int draws = count - delivered.size();
+        int[] pending = {draws};
+        Exception[] error = {null};
+
+        for (int i = 0; i < draws; i++) {
+            drawRandomQuestion(difficulty, random.nextDouble()).addOnCompleteListener(task -> {
+                if (task.isSuccessful()) {
+                    for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                        if (delivered.size() >= count || delivered.contains(doc.getId())) continue;
+                        Question question = DocumentMappers.toQuestion(doc);
+                        if (question == null) continue;
+                        delivered.add(doc.getId());
+                        if (onQuestion != null) onQuestion.onSuccess(question);
+                    }
+                } else {
+                    error[0] = task.getException();
+                }
+
+                if (--pending[0] > 0) return;
+                // Every draw of this round is back
+                if (delivered.isEmpty() && error[0] != null) {
+                    Log.e(TAG, "Error getting random questions", error[0]);
+                    if (onComplete != null) onComplete.onComplete(false, error[0]);
+                } else if (delivered.size() < count && round + 1 < MAX_SAMPLE_ROUNDS) {
+                    streamDraws(count, difficulty, delivered, round + 1, onQuestion, onComplete);
+                } else if (delivered.size() < count) {
+                    // Sampling came up short: the bank is small, or some questions have no
+                    // sortKey yet and can't be drawn. Fill the rest from a full scan.
+                    getRandomQuestionsFullScan(count - delivered.size(), difficulty, delivered,
+                            questions -> {
+                                for (Question question : questions) {
+                                    if (onQuestion != null) onQuestion.onSuccess(question);
+                                }
+                                if (onComplete != null) onComplete.onComplete(true, null);
+                            },
+                            e -> {
+                                // Whatever was drawn still makes a quiz
+                                if (onComplete != null) onComplete.onComplete(!delivered.isEmpty(), e);
+                            });
+                } else {
+                    if (onComplete != null) onComplete.onComplete(true, null);
+                }
+            });
+        }
+    }
+
+    /**
+     * Read the first question whose sortKey is at or after the pivot,
+     * wrapping around to the lowest sortKey if there is none.
+     */
+    private Task<QuerySnapshot> drawRandomQuestion(String difficulty, double pivot) {
+        Query base = db.collection(COLLECTION_QUESTIONS);
+        if (difficulty != null) {
+            base = base.whereEqualTo("difficulty", difficulty);
+        }
+        Query ordered = base.orderBy("sortKey");
+
+        return ordered.whereGreaterThanOrEqualTo("sortKey", pivot)
+                .limit(1)
                 .get()
+                .continueWithTask(task -> {
+                    if (task.isSuccessful() && task.getResult().isEmpty()) {
+                        return ordered.limit(1).get();
+                    }
+                    return task;
+                });
+    }
+
+    /**
+     * Fallback when sampling can't find enough questions: download the matching
+     * questions not already delivered and shuffle. Questions missing a sortKey are
+     * logged; the backfillQuestionSortKeys function gives them one.
+     */
+    private void getRandomQuestionsFullScan(int count, String difficulty, Set<String> exclude,
+                                            OnSuccessListener<List<Question>> onSuccess, OnFailureListener onFailure) {
+        Query query = db.collection(COLLECTION_QUESTIONS);
+        if (difficulty != null) {
+            query = query.whereEqualTo("difficulty", difficulty);
+        }
+        query.get()
                 .addOnSuccessListener(querySnapshot -> {
                     List<Question> allQuestions = new ArrayList<>();
+                    int withoutSortKey = 0;
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        allQuestions.add(doc.toObject(Question.class));
+                        Question question = DocumentMappers.toQuestion(doc);
+                        if (question == null) continue;
+                        if (!(doc.get("sortKey") instanceof Number)) withoutSortKey++;
+                        if (!exclude.contains(doc.getId())) allQuestions.add(question);
+                    }
+                    if (withoutSortKey > 0) {
+                        Log.w(TAG, withoutSortKey + " question(s) have no sortKey and can't be sampled");
                     }
 
                     // Shuffle and take requested count
-                    java.util.Collections.shuffle(allQuestions);
+                    Collections.shuffle(allQuestions, random);
                     List<Question> randomQuestions = allQuestions.subList(0, Math.min(count, allQuestions.size()));
 
                     if (onSuccess != null) onSuccess.onSuccess(randomQuestions);
@@ -711,7 +1417,7 @@ public class FirestoreHelper {
                 .get()
                 .addOnSuccessListener(document -> {
                     if (document.exists()) {
-                        Test test = document.toObject(Test.class);
+                        Test test = DocumentMappers.toTest(document);
                         if (onSuccess != null) onSuccess.onSuccess(test);
                     } else {
                         if (onFailure != null) onFailure.onFailure(new Exception("Test not found"));
@@ -732,7 +1438,7 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<Test> tests = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        tests.add(doc.toObject(Test.class));
+                        tests.add(DocumentMappers.toTest(doc));
                     }
                     if (onSuccess != null) onSuccess.onSuccess(tests);
                 })
@@ -742,6 +1448,17 @@ public class FirestoreHelper {
                 });
     }
 
+    /**
+     * Get one page of tests, ordered by document ID
+     */
+    public void getAllTests(DocumentSnapshot startAfter, int pageSize,
+                            OnSuccessListener<Page<Test>> onSuccess, OnFailureListener onFailure) {
+        Query query = db.collection(COLLECTION_TESTS)
+                .orderBy(FieldPath.documentId());
+        getPage(query, startAfter, pageSize, DocumentMappers::toTest,
+                "Error getting tests page", onSuccess, onFailure);
+    }
+
     /**
      * Get active tests only
      */
@@ -752,7 +1469,7 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<Test> tests = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        tests.add(doc.toObject(Test.class));
+                        tests.add(DocumentMappers.toTest(doc));
                     }
                     if (onSuccess != null) onSuccess.onSuccess(tests);
                 })
@@ -772,7 +1489,7 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<Test> tests = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        tests.add(doc.toObject(Test.class));
+                        tests.add(DocumentMappers.toTest(doc));
                     }
                     if (onSuccess != null) onSuccess.onSuccess(tests);
                 })
@@ -782,6 +1499,18 @@ public class FirestoreHelper {
                 });
     }
 
+    /**
+     * Get one page of tests by creator, ordered by document ID
+     */
+    public void getTestsByCreator(String creatorId, DocumentSnapshot startAfter, int pageSize,
+                                  OnSuccessListener<Page<Test>> onSuccess, OnFailureListener onFailure) {
+        Query query = db.collection(COLLECTION_TESTS)
+                .whereEqualTo("createdBy", creatorId)
+                .orderBy(FieldPath.documentId());
+        getPage(query, startAfter, pageSize, DocumentMappers::toTest,
+                "Error getting tests by creator page", onSuccess, onFailure);
+    }
+
     /**
      * Update test
      */
@@ -845,13 +1574,14 @@ public class FirestoreHelper {
     }
 
     /**
-     * Get document count in a collection
+     * Get document count in a collection (server-side count aggregation)
      */
     public void getCollectionCount(String collection, OnSuccessListener<Integer> onSuccess, OnFailureListener onFailure) {
         db.collection(collection)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (onSuccess != null) onSuccess.onSuccess(querySnapshot.size());
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    if (onSuccess != null) onSuccess.onSuccess((int) snapshot.getCount());
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error getting collection count", e);
@@ -889,30 +1619,33 @@ public class FirestoreHelper {
     }
 
     /**
-     * Get statistics for dashboard
+     * Get statistics for dashboard.
+     * Both counts run in parallel as server-side aggregations.
      */
     public void getDashboardStats(OnSuccessListener<Map<String, Integer>> onSuccess, OnFailureListener onFailure) {
-        Map<String, Integer> stats = new HashMap<>();
-
-        // Get student count
-        db.collection(COLLECTION_USERS)
+        Task<AggregateQuerySnapshot> studentCount = db.collection(COLLECTION_USERS)
                 .whereEqualTo("role", "student")
-                .get()
-                .addOnSuccessListener(studentSnapshot -> {
-                    stats.put("studentCount", studentSnapshot.size());
-
-                    // Get question count
-                    db.collection(COLLECTION_QUESTIONS)
-                            .get()
-                            .addOnSuccessListener(questionSnapshot -> {
-                                stats.put("questionCount", questionSnapshot.size());
-                                if (onSuccess != null) onSuccess.onSuccess(stats);
-                            })
-                            .addOnFailureListener(e -> {
-                                if (onFailure != null) onFailure.onFailure(e);
-                            });
+                .count()
+                .get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> questionCount = db.collection(COLLECTION_QUESTIONS)
+                .count()
+                .get(AggregateSource.SERVER);
+        // Deleted questions stay as tombstones for a while
+        Task<AggregateQuerySnapshot> deletedQuestionCount = db.collection(COLLECTION_QUESTIONS)
+                .whereEqualTo("deleted", true)
+                .count()
+                .get(AggregateSource.SERVER);
+
+        Tasks.whenAllSuccess(studentCount, questionCount, deletedQuestionCount)
+                .addOnSuccessListener(results -> {
+                    Map<String, Integer> stats = new HashMap<>();
+                    stats.put("studentCount", (int) studentCount.getResult().getCount());
+                    stats.put("questionCount", (int) (questionCount.getResult().getCount()
+                            - deletedQuestionCount.getResult().getCount()));
+                    if (onSuccess != null) onSuccess.onSuccess(stats);
                 })
                 .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error getting dashboard stats", e);
                     if (onFailure != null) onFailure.onFailure(e);
                 });
     }
@@ -925,19 +1658,16 @@ public class FirestoreHelper {
     public void saveFCMToken(String userId, String token, OnCompleteListener listener) {
         Map<String, Object> updates = new HashMap<>();
         updates.put("fcmToken", token);
-        updates.put("lastTokenUpdate", Timestamp.now());
-
-        db.collection(COLLECTION_USERS)
-                .document(userId)
-                .update(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "FCM token saved for user: " + userId);
-                    if (listener != null) listener.onComplete(true, null);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error saving FCM token", e);
-                    if (listener != null) listener.onComplete(false, e);
-                });
+        updates.put("lastTokenUpdate", FieldValue.serverTimestamp());
+
+        queueUserUpdate(userId, updates, (success, e) -> {
+            if (success) {
+                Log.d(TAG, "FCM token saved for user: " + userId);
+            } else {
+                Log.e(TAG, "Error saving FCM token", e);
+            }
+            if (listener != null) listener.onComplete(success, e);
+        });
     }
 
     /**
@@ -947,17 +1677,16 @@ public class FirestoreHelper {
         Map<String, Object> updates = new HashMap<>();
         updates.put("fcmToken", FieldValue.delete());
 
-        db.collection(COLLECTION_USERS)
-                .document(userId)
-                .update(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "FCM token deleted for user: " + userId);
-                    if (listener != null) listener.onComplete(true, null);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error deleting FCM token", e);
-                    if (listener != null) listener.onComplete(false, e);
-                });
+        // Called on logout, so write right away while the user is still signed in
+        queueUserUpdate(userId, updates, (success, e) -> {
+            if (success) {
+                Log.d(TAG, "FCM token deleted for user: " + userId);
+            } else {
+                Log.e(TAG, "Error deleting FCM token", e);
+            }
+            if (listener != null) listener.onComplete(success, e);
+        });
+        userWrites.flush(null);
     }
 
     /**
@@ -1015,11 +1744,13 @@ public class FirestoreHelper {
         Map<String, Object> updates = new HashMap<>();
         updates.put("notificationPreferences", prefs);
 
+        userCache.invalidate(userId);
         db.collection(COLLECTION_USERS)
                 .document(userId)
                 .update(updates)
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Notification preferences saved for user: " + userId);
+                    userCache.invalidate(userId);
                     if (listener != null) listener.onComplete(true, null);
                 })
                 .addOnFailureListener(e -> {
@@ -1032,29 +1763,18 @@ public class FirestoreHelper {
      * Get notification preferences for a user
      */
     public void getNotificationPreferences(String userId, OnSuccessListener<NotificationPreferences> onSuccess, OnFailureListener onFailure) {
-        db.collection(COLLECTION_USERS)
-                .document(userId)
-                .get()
-                .addOnSuccessListener(document -> {
-                    if (document.exists()) {
-                        NotificationPreferences prefs = null;
-                        try {
-                            Map<String, Object> prefsMap = (Map<String, Object>) document.get("notificationPreferences");
-                            if (prefsMap != null) {
-                                prefs = document.toObject(User.class).getNotificationPreferences();
-                            }
-                        } catch (Exception e) {
-                            Log.w(TAG, "Error parsing notification preferences", e);
-                        }
-                        if (prefs == null) {
-                            prefs = NotificationPreferences.createDefault();
-                        }
-                        if (onSuccess != null) onSuccess.onSuccess(prefs);
-                    } else {
+        getUserCached(userId, DEFAULT_USER_MAX_STALENESS_MS,
+                user -> {
+                    NotificationPreferences prefs = user.getNotificationPreferences();
+                    if (onSuccess != null) {
+                        onSuccess.onSuccess(prefs != null ? prefs : NotificationPreferences.createDefault());
+                    }
+                },
+                e -> {
+                    if ("User not found".equals(e.getMessage())) {
                         if (onSuccess != null) onSuccess.onSuccess(NotificationPreferences.createDefault());
+                        return;
                     }
-                })
-                .addOnFailureListener(e -> {
                     Log.e(TAG, "Error getting notification preferences", e);
                     if (onFailure != null) onFailure.onFailure(e);
                 });
@@ -1118,17 +1838,14 @@ public class FirestoreHelper {
         Map<String, Object> updates = new HashMap<>();
         updates.put("lastActivityAt", Timestamp.now());
 
-        db.collection(COLLECTION_USERS)
-                .document(userId)
-                .update(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Last activity updated for user: " + userId);
-                    if (listener != null) listener.onComplete(true, null);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error updating last activity", e);
-                    if (listener != null) listener.onComplete(false, e);
-                });
+        queueUserUpdate(userId, updates, (success, e) -> {
+            if (success) {
+                Log.d(TAG, "Last activity updated for user: " + userId);
+            } else {
+                Log.e(TAG, "Error updating last activity", e);
+            }
+            if (listener != null) listener.onComplete(success, e);
+        });
     }
 
     /**
@@ -1157,7 +1874,7 @@ public class FirestoreHelper {
                 .addOnSuccessListener(querySnapshot -> {
                     List<User> users = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
-                        users.add(doc.toObject(User.class));
+                        users.add(DocumentMappers.toUser(doc));
                     }
                     if (onSuccess != null) onSuccess.onSuccess(users);
                 })
@@ -0,0 +1,49 @@
+package com.example.phiz.helpers;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+
+/**
+ * One page of results from a cursor-paged Firestore query.
+ * Pass {@link #getCursor()} back to the same query to fetch the next page.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final DocumentSnapshot cursor;
+    private final boolean hasMore;
+    private final int prefetchDistance;
+
+    public Page(List<T> items, DocumentSnapshot cursor, boolean hasMore, int prefetchDistance) {
+        this.items = items;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Last document of this page, used as the startAfter cursor for the next page
+     */
+    public DocumentSnapshot getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Whether another page may exist after this one
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Hint for how many rows before the end of the loaded list the next page
+     * should be requested, so it arrives before the user reaches the bottom
+     */
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.phiz.helpers;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+/**
+ * Tracks cursor paging state for a RecyclerView and asks for the next page
+ * once the last visible row comes within the page's prefetch distance of the end.
+ *
+ * Usage: call {@link #startLoading()} before requesting a page with
+ * {@link #getCursor()}, then {@link #onPageLoaded(Page)} or {@link #onPageFailed()}.
+ * Lists that can be reloaded call {@link #reset()} and drop results of requests
+ * made before it, checked with {@link #isCurrent(int)}.
+ */
+public class PagingScrollListener extends RecyclerView.OnScrollListener {
+    private final LinearLayoutManager layoutManager;
+    private final Runnable loadNextPage;
+
+    private DocumentSnapshot cursor;
+    private boolean hasMore = true;
+    private boolean loading = false;
+    private int prefetchDistance = 0;
+    private int generation = 0;  // Bumped by reset()
+
+    public PagingScrollListener(LinearLayoutManager layoutManager, Runnable loadNextPage) {
+        this.layoutManager = layoutManager;
+        this.loadNextPage = loadNextPage;
+    }
+
+    /**
+     * Mark a page request as in flight. Returns false if one is already running
+     * or the end of the list was reached.
+     */
+    public boolean startLoading() {
+        if (loading || !hasMore) return false;
+        loading = true;
+        return true;
+    }
+
+    public void onPageLoaded(Page<?> page) {
+        loading = false;
+        cursor = page.getCursor();
+        hasMore = page.hasMore();
+        prefetchDistance = page.getPrefetchDistance();
+    }
+
+    public void onPageFailed() {
+        loading = false;
+    }
+
+    /**
+     * Start over from the first page; a request still in flight is no longer current
+     */
+    public void reset() {
+        cursor = null;
+        hasMore = true;
+        loading = false;
+        prefetchDistance = 0;
+        generation++;
+    }
+
+    /**
+     * Take before requesting a page, to check the result with {@link #isCurrent(int)}
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Whether a request made at this generation still belongs to the list, i.e. no reset since
+     */
+    public boolean isCurrent(int generation) {
+        return this.generation == generation;
+    }
+
+    public DocumentSnapshot getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0 || loading || !hasMore) return;
+
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= layoutManager.getItemCount() - 1 - prefetchDistance) {
+            loadNextPage.run();
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.phiz.helpers;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.phiz.models.Question;
+import com.example.phiz.models.SimulationSpec;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Offline-first local copy of the question bank.
+ *
+ * The bank is persisted as JSON in the app's files directory and kept in sync
+ * with Firestore by delta queries on the question's server-set updatedAt field.
+ * A full refresh replaces the store periodically so deletions made outside the
+ * app are eventually dropped. Quizzes sample from memory with no network round trip.
+ *
+ * Deleted questions are soft-deleted tombstones with a fresh updatedAt, so a
+ * delta sync sees them and drops them from the bank.
+ *
+ * Refresh policy:
+ * - A delta sync is skipped if the last sync was less than MIN_SYNC_INTERVAL_MS ago
+ * - A full refresh runs when the last one is older than FULL_REFRESH_INTERVAL_MS
+ * - Bumping CACHE_VERSION changes the cache key; files from older versions are deleted
+ */
+public class QuestionBankCache {
+    private static final String TAG = "QuestionBankCache";
+
+    // Bump when the on-disk format or Question fields change
+    private static final int CACHE_VERSION = 1;
+    private static final String CACHE_FILE_PREFIX = "question_bank_v";
+    private static final String CACHE_FILE = CACHE_FILE_PREFIX + CACHE_VERSION + ".json";
+
+    private static final long MIN_SYNC_INTERVAL_MS = 5 * 60 * 1000L;  // 5 minutes
+    private static final long FULL_REFRESH_INTERVAL_MS = 24 * 60 * 60 * 1000L;  // 1 day
+
+    private static QuestionBankCache instance;
+    private final File cacheFile;
+    private final FirebaseFirestore db;
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
+
+    // questionId -> question, in insertion order
+    private final Map<String, Question> questions = new LinkedHashMap<>();
+    private Timestamp lastUpdatedAt;  // Highest updatedAt seen, the delta cursor
+    private long lastSyncMillis;
+    private long lastFullRefreshMillis;
+    private boolean loaded = false;
+    private boolean syncing = false;
+
+    private QuestionBankCache(Context context) {
+        File filesDir = context.getApplicationContext().getFilesDir();
+        this.cacheFile = new File(filesDir, CACHE_FILE);
+        this.db = FirebaseFirestore.getInstance();
+        evictOldVersions(filesDir);
+    }
+
+    public static synchronized QuestionBankCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new QuestionBankCache(context);
+        }
+        return instance;
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * Load the persisted bank from disk (once) and report back on the main thread
+     */
+    public void load(Runnable onLoaded) {
+        synchronized (this) {
+            if (loaded) {
+                mainHandler.post(onLoaded);
+                return;
+            }
+        }
+        diskExecutor.execute(() -> {
+            readFromDisk();
+            mainHandler.post(onLoaded);
+        });
+    }
+
+    public synchronized int size() {
+        return questions.size();
+    }
+
+    /**
+     * Pick up to count distinct random questions from the local bank,
+     * optionally filtered by difficulty (null = any). No network access.
+     */
+    public synchronized List<Question> sample(int count, String difficulty) {
+        List<Question> candidates = new ArrayList<>();
+        for (Question question : questions.values()) {
+            if (difficulty == null || difficulty.equals(question.getDifficulty())) {
+                candidates.add(question);
+            }
+        }
+
+        // Partial Fisher-Yates: only the first count slots are shuffled
+        int n = Math.min(count, candidates.size());
+        for (int i = 0; i < n; i++) {
+            int j = i + random.nextInt(candidates.size() - i);
+            Question swap = candidates.get(i);
+            candidates.set(i, candidates.get(j));
+            candidates.set(j, swap);
+        }
+        return new ArrayList<>(candidates.subList(0, n));
+    }
+
+    /**
+     * A copy of the whole local bank, e.g. for adaptive selection
+     */
+    public synchronized List<Question> getAll() {
+        return new ArrayList<>(questions.values());
+    }
+
+    // ==================== SYNC ====================
+
+    /**
+     * Bring the bank up to date with Firestore if the refresh policy says so.
+     * Runs a delta query on updatedAt, or a full refresh when one is due.
+     */
+    public void sync(FirestoreHelper.OnCompleteListener listener) {
+        long now = System.currentTimeMillis();
+        boolean fullRefresh;
+        Query query;
+        synchronized (this) {
+            if (syncing || (now - lastSyncMillis < MIN_SYNC_INTERVAL_MS && !questions.isEmpty())) {
+                if (listener != null) listener.onComplete(true, null);
+                return;
+            }
+            syncing = true;
+            fullRefresh = lastUpdatedAt == null || now - lastFullRefreshMillis >= FULL_REFRESH_INTERVAL_MS;
+            query = db.collection(FirestoreHelper.COLLECTION_QUESTIONS);
+            if (!fullRefresh) {
+                query = query.whereGreaterThan("updatedAt", lastUpdatedAt);
+            }
+        }
+
+        query.get()
+                .addOnSuccessListener(querySnapshot -> {
+                    synchronized (this) {
+                        if (fullRefresh) {
+                            questions.clear();
+                            lastUpdatedAt = null;
+                            lastFullRefreshMillis = now;
+                        }
+                        for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                            if (DocumentMappers.isDeletedQuestion(doc)) {
+                                // Tombstone of a deleted question: stop serving it
+                                questions.remove(doc.getId());
+                                advanceCursorLocked(doc.getTimestamp("updatedAt"));
+                                continue;
+                            }
+                            Question question = DocumentMappers.toQuestion(doc);
+                            if (question == null) continue;
+                            if (question.getQuestionId() == null) question.setQuestionId(doc.getId());
+                            putLocked(question);
+                        }
+                        lastSyncMillis = now;
+                        syncing = false;
+                    }
+                    Log.d(TAG, (fullRefresh ? "Full refresh" : "Delta sync") + ": "
+                            + querySnapshot.size() + " question(s) fetched");
+                    persist();
+                    if (listener != null) listener.onComplete(true, null);
+                })
+                .addOnFailureListener(e -> {
+                    synchronized (this) {
+                        syncing = false;
+                    }
+                    Log.w(TAG, "Question bank sync failed, serving cached copy", e);
+                    if (listener != null) listener.onComplete(false, e);
+                });
+    }
+
+    private void putLocked(Question question) {
+        questions.put(question.getQuestionId(), question);
+        advanceCursorLocked(question.getUpdatedAt());
+    }
+
+    private void advanceCursorLocked(Timestamp updatedAt) {
+        if (updatedAt != null && (lastUpdatedAt == null || updatedAt.compareTo(lastUpdatedAt) > 0)) {
+            lastUpdatedAt = updatedAt;
+        }
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    private void persist() {
+        String json;
+        synchronized (this) {
+            try {
+                json = toJson().toString();
+            } catch (JSONException e) {
+                Log.e(TAG, "Error serializing question bank", e);
+                return;
+            }
+        }
+        diskExecutor.execute(() -> {
+            File tmp = new File(cacheFile.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing question bank", e);
+                return;
+            }
+            if (!tmp.renameTo(cacheFile)) {
+                Log.e(TAG, "Error replacing question bank file");
+            }
+        });
+    }
+
+    private void readFromDisk() {
+        String json = null;
+        if (cacheFile.exists()) {
+            byte[] bytes = new byte[(int) cacheFile.length()];
+            try (FileInputStream in = new FileInputStream(cacheFile)) {
+                int read = 0;
+                while (read < bytes.length) {
+                    int n = in.read(bytes, read, bytes.length - read);
+                    if (n < 0) break;
+                    read += n;
+                }
+                json = new String(bytes, 0, read, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                Log.w(TAG, "Error reading question bank", e);
+            }
+        }
+
+        synchronized (this) {
+            if (json != null) {
+                try {
+                    fromJson(new JSONObject(json));
+                } catch (JSONException e) {
+                    Log.w(TAG, "Corrupt question bank, discarding", e);
+                    questions.clear();
+                    lastUpdatedAt = null;
+                    lastFullRefreshMillis = 0;
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    private void evictOldVersions(File filesDir) {
+        File[] files = filesDir.listFiles((dir, name) ->
+                name.startsWith(CACHE_FILE_PREFIX) && !name.equals(CACHE_FILE));
+        if (files == null) return;
+        for (File file : files) {
+            if (file.delete()) {
+                Log.d(TAG, "Evicted old question bank: " + file.getName());
+            }
+        }
+    }
+
+    private JSONObject toJson() throws JSONException {
+        JSONObject root = new JSONObject();
+        root.put("version", CACHE_VERSION);
+        root.put("lastSyncMillis", lastSyncMillis);
+        root.put("lastFullRefreshMillis", lastFullRefreshMillis);
+        if (lastUpdatedAt != null) {
+            root.put("lastUpdatedAtSeconds", lastUpdatedAt.getSeconds());
+            root.put("lastUpdatedAtNanos", lastUpdatedAt.getNanoseconds());
+        }
+
+        JSONArray array = new JSONArray();
+        for (Question question : questions.values()) {
+            JSONObject obj = new JSONObject();
+            obj.put("questionId", question.getQuestionId());
+            obj.put("questionText", question.getQuestionText());
+            obj.put("options", new JSONArray(question.getOptions() != null
+                    ? question.getOptions() : new ArrayList<String>()));
+            obj.put("correctAnswerIndex", question.getCorrectAnswerIndex());
+            obj.put("explanation", question.getExplanation());
+            obj.put("pointValue", question.getPointValue());
+            obj.put("difficulty", question.getDifficulty());
+            obj.put("sortKey", question.getSortKey());
+            SimulationSpec spec = question.getSimulation();
+            if (spec != null) {
+                JSONObject simulation = new JSONObject();
+                simulation.put("mass", spec.getMass());
+                simulation.put("appliedForce", spec.getAppliedForce());
+                simulation.put("frictionCoefficient", spec.getFrictionCoefficient());
+                simulation.put("angle", spec.getAngle());
+                simulation.put("seconds", spec.getSeconds());
+                simulation.put("quantity", spec.getQuantity());
+                simulation.put("answer", spec.getAnswer());
+                obj.put("simulation", simulation);
+            }
+            array.put(obj);
+        }
+        root.put("questions", array);
+        return root;
+    }
+
+    private void fromJson(JSONObject root) throws JSONException {
+        questions.clear();
+        lastSyncMillis = root.optLong("lastSyncMillis", 0);
+        lastFullRefreshMillis = root.optLong("lastFullRefreshMillis", 0);
+        lastUpdatedAt = root.has("lastUpdatedAtSeconds")
+                ? new Timestamp(root.getLong("lastUpdatedAtSeconds"), root.getInt("lastUpdatedAtNanos"))
+                : null;
+
+        JSONArray array = root.getJSONArray("questions");
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject obj = array.getJSONObject(i);
+            Question question = new Question();
+            question.setQuestionId(obj.getString("questionId"));
+            question.setQuestionText(obj.optString("questionText", null));
+
+            JSONArray optionsArray = obj.getJSONArray("options");
+            List<String> options = new ArrayList<>();
+            for (int j = 0; j < optionsArray.length(); j++) {
+                options.add(optionsArray.getString(j));
+            }
+            question.setOptions(options);
+
+            question.setCorrectAnswerIndex(obj.getInt("correctAnswerIndex"));
+            question.setExplanation(obj.optString("explanation", ""));
+            question.setPointValue(obj.getInt("pointValue"));
+            question.setDifficulty(obj.optString("difficulty", null));
+            question.setSortKey(obj.optDouble("sortKey", 0));
+
+            JSONObject simulation = obj.optJSONObject("simulation");
+            if (simulation != null) {
+                SimulationSpec spec = new SimulationSpec(simulation.getDouble("mass"),
+                        simulation.getDouble("appliedForce"), simulation.getDouble("frictionCoefficient"),
+                        simulation.getDouble("angle"), simulation.getDouble("seconds"),
+                        simulation.getString("quantity"));
+                spec.setAnswer(simulation.optDouble("answer", 0));
+                question.setSimulation(spec);
+            }
+            questions.put(question.getQuestionId(), question);
+        }
+    }
+}
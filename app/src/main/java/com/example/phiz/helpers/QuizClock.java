@@ -0,0 +1,105 @@
+package com.example.phiz.helpers;
+
+/**
+ * One monotonic clock for a whole quiz.
+ *
+ * Times are passed in from SystemClock.elapsedRealtime(), so the clock keeps no
+ * Android state and never drifts: every deadline is an absolute time set when
+ * the question starts, and {@link #nextWakeup} says when the caller next needs
+ * to look (the next change of the displayed seconds, time-up, or auto-progress).
+ * Response times are only measured here; {@link QuizResponses} keeps them.
+ */
+public class QuizClock {
+    public static final int PHASE_IDLE = 0;
+    public static final int PHASE_QUESTION = 1;  // Question on screen, counting down
+    public static final int PHASE_ANSWERED = 2;  // Answered or timed out, waiting for the student
+    public static final int PHASE_ADVANCING = 3;  // Answered, moving on automatically after a delay
+
+    private static final long SECOND_MS = 1000;
+
+    private final long questionMillis;
+    private final long advanceMillis;
+
+    private int phase = PHASE_IDLE;
+    private long questionStart;
+    private long responseTime = -1;  // Of the current question, once it ended
+    private long deadline;  // Time-up in PHASE_QUESTION, auto-progress in PHASE_ADVANCING
+
+    /**
+     * @param questionMillis time allowed per question
+     * @param advanceMillis  delay before moving on after an answer
+     */
+    public QuizClock(long questionMillis, long advanceMillis) {
+        this.questionMillis = questionMillis;
+        this.advanceMillis = advanceMillis;
+    }
+
+    public void startQuestion(long now) {
+        phase = PHASE_QUESTION;
+        questionStart = now;
+        responseTime = -1;
+        deadline = now + questionMillis;
+    }
+
+    /**
+     * Stop the countdown for the current question
+     *
+     * @return its response time in ms, at most the time allowed; the same on later calls
+     */
+    public long endQuestion(long now) {
+        if (phase != PHASE_QUESTION) return responseTime;
+        responseTime = Math.min(now - questionStart, questionMillis);
+        phase = PHASE_ANSWERED;
+        return responseTime;
+    }
+
+    /**
+     * Move on automatically once the review delay has passed
+     */
+    public void scheduleAdvance(long now) {
+        phase = PHASE_ADVANCING;
+        deadline = now + advanceMillis;
+    }
+
+    public void stop() {
+        phase = PHASE_IDLE;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public boolean isTimeUp(long now) {
+        return phase == PHASE_QUESTION && now >= deadline;
+    }
+
+    public boolean isAdvanceDue(long now) {
+        return phase == PHASE_ADVANCING && now >= deadline;
+    }
+
+    /**
+     * Whole seconds left on the current question, rounded up so a fresh question shows its full time
+     */
+    public int getSecondsLeft(long now) {
+        if (phase != PHASE_QUESTION) return 0;
+        long remaining = Math.max(0, deadline - now);
+        return (int) ((remaining + SECOND_MS - 1) / SECOND_MS);
+    }
+
+    /**
+     * When the caller next has something to do, or -1 if nothing is pending
+     */
+    public long nextWakeup(long now) {
+        if (phase == PHASE_QUESTION) {
+            long remaining = deadline - now;
+            if (remaining <= 0) return now;
+            // The displayed seconds change when the remaining time crosses a whole second
+            long untilTick = remaining % SECOND_MS;
+            return now + (untilTick == 0 ? SECOND_MS : untilTick);
+        }
+        if (phase == PHASE_ADVANCING) {
+            return deadline;
+        }
+        return -1;
+    }
+}
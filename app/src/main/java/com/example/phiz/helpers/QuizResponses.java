@@ -0,0 +1,81 @@
+package com.example.phiz.helpers;
+
+import com.example.phiz.models.QuizResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What the student did on each question of a quiz, kept in parallel primitive
+ * arrays indexed by question position: the question id, the option picked (in
+ * the question's own order, not the shuffled one), whether it was right, and the
+ * response time. Sized once for the quiz, so recording allocates nothing.
+ */
+public class QuizResponses {
+    public static final int NO_ANSWER = -1;  // Selected option when the question timed out
+
+    private final String[] questionIds;
+    private final int[] selectedOptions;
+    private final boolean[] correct;
+    private final long[] responseTimesMs;
+    private int size;
+
+    public QuizResponses(int maxQuestions) {
+        questionIds = new String[maxQuestions];
+        selectedOptions = new int[maxQuestions];
+        correct = new boolean[maxQuestions];
+        responseTimesMs = new long[maxQuestions];
+        Arrays.fill(selectedOptions, NO_ANSWER);
+        Arrays.fill(responseTimesMs, -1);
+    }
+
+    public void record(int index, String questionId, int selectedOption, boolean isCorrect, long responseTimeMs) {
+        questionIds[index] = questionId;
+        selectedOptions[index] = selectedOption;
+        correct[index] = isCorrect;
+        responseTimesMs[index] = responseTimeMs;
+        size = Math.max(size, index + 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getQuestionId(int index) {
+        return questionIds[index];
+    }
+
+    public int getSelectedOption(int index) {
+        return selectedOptions[index];
+    }
+
+    public boolean isCorrect(int index) {
+        return correct[index];
+    }
+
+    public long getResponseTimeMs(int index) {
+        return responseTimesMs[index];
+    }
+
+    /**
+     * Copy the first count responses onto the result as parallel lists, which is
+     * how Firestore stores arrays
+     */
+    public void writeTo(QuizResult result, int count) {
+        List<String> ids = new ArrayList<>(count);
+        List<Integer> selected = new ArrayList<>(count);
+        List<Boolean> right = new ArrayList<>(count);
+        List<Long> times = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(questionIds[i]);
+            selected.add(selectedOptions[i]);
+            right.add(correct[i]);
+            times.add(responseTimesMs[i]);
+        }
+        result.setQuestionIds(ids);
+        result.setSelectedOptions(selected);
+        result.setCorrect(right);
+        result.setResponseTimesMs(times);
+    }
+}
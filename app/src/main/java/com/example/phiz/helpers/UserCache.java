@@ -0,0 +1,107 @@
+package com.example.phiz.helpers;
+
+import com.example.phiz.models.User;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Small in-memory LRU cache of user profiles.
+ *
+ * Each entry remembers when it was cached so readers can bound how stale a
+ * profile they accept. Pinned users are kept current by a snapshot listener,
+ * so their entries never count as stale and are never evicted.
+ */
+public class UserCache {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static class Entry {
+        final User user;
+        final long cachedAtMillis;
+
+        Entry(User user, long cachedAtMillis) {
+            this.user = user;
+            this.cachedAtMillis = cachedAtMillis;
+        }
+    }
+
+    private final int capacity;
+    private final LongSupplier clock;
+    private final Set<String> pinned = new HashSet<>();
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public UserCache(int capacity) {
+        this(capacity, () -> System.nanoTime() / 1_000_000L);
+    }
+
+    UserCache(int capacity, LongSupplier clock) {
+        this.capacity = capacity;
+        this.clock = clock;
+    }
+
+    /**
+     * Cached user, or null if there is none no older than maxStalenessMs
+     */
+    public synchronized User get(String userId, long maxStalenessMs) {
+        Entry entry = entries.get(userId);
+        if (entry == null) return null;
+        if (!pinned.contains(userId) && clock.getAsLong() - entry.cachedAtMillis > maxStalenessMs) {
+            return null;
+        }
+        return entry.user;
+    }
+
+    public synchronized void put(String userId, User user) {
+        if (user == null) {
+            entries.remove(userId);
+            return;
+        }
+        entries.put(userId, new Entry(user, clock.getAsLong()));
+        evict();
+    }
+
+    /**
+     * Drop a user's entry unless it is pinned (the listener keeps those current)
+     */
+    public synchronized void invalidate(String userId) {
+        if (!pinned.contains(userId)) {
+            entries.remove(userId);
+        }
+    }
+
+    /**
+     * Exempt a user from staleness and eviction while a listener keeps them fresh
+     */
+    public synchronized void pin(String userId) {
+        pinned.add(userId);
+    }
+
+    public synchronized void unpin(String userId) {
+        pinned.remove(userId);
+        evict();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        pinned.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            if (!pinned.contains(it.next().getKey())) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.phiz.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces single-field updates to the same documents into one WriteBatch.
+ *
+ * Updates queued within the coalescing window are merged per document: later
+ * values for a field replace earlier ones and increments to a field are summed.
+ * The window opens with the first queued update and is not extended by later
+ * ones, so nothing waits longer than windowMs however steady the updates are.
+ * A batch the server rejects is queued again under anything queued since and
+ * retried with backoff (sooner if new updates open a window first); listeners
+ * hear of a failure only once MAX_ATTEMPTS commits have failed.
+ *
+ * Queueing is thread-safe; listeners are called on the main thread.
+ */
+public class WriteCoalescer {
+    private static final String TAG = "WriteCoalescer";
+
+    public static final long DEFAULT_WINDOW_MS = 300;
+    public static final int MAX_ATTEMPTS = 4;
+
+    private static class PendingWrite {
+        final DocumentReference ref;
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        final Map<String, Long> increments = new LinkedHashMap<>();
+        final List<FirestoreHelper.OnCompleteListener> listeners = new ArrayList<>();
+        int failedAttempts = 0;
+
+        PendingWrite(DocumentReference ref) {
+            this.ref = ref;
+        }
+
+        Map<String, Object> toUpdate() {
+            Map<String, Object> update = new LinkedHashMap<>(fields);
+            for (Map.Entry<String, Long> increment : increments.entrySet()) {
+                update.put(increment.getKey(), FieldValue.increment(increment.getValue()));
+            }
+            return update;
+        }
+    }
+
+    private final FirebaseFirestore db;
+    private final long windowMs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = () -> flush(null);
+    private boolean flushScheduled = false;
+    private long flushDueAt;
+
+    // document path -> pending merged update, in first-queued order
+    private Map<String, PendingWrite> pending = new LinkedHashMap<>();
+
+    public WriteCoalescer(FirebaseFirestore db, long windowMs) {
+        this.db = db;
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * Queue field updates for a document
+     */
+    public synchronized void update(DocumentReference ref, Map<String, Object> fields, FirestoreHelper.OnCompleteListener listener) {
+        PendingWrite write = pendingFor(ref);
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            // A plain value replaces any increment queued earlier for the field
+            write.increments.remove(field.getKey());
+            write.fields.put(field.getKey(), field.getValue());
+        }
+        if (listener != null) write.listeners.add(listener);
+        scheduleFlush();
+    }
+
+    /**
+     * Queue an increment for a numeric field of a document
+     */
+    public synchronized void increment(DocumentReference ref, String field, long delta, FirestoreHelper.OnCompleteListener listener) {
+        PendingWrite write = pendingFor(ref);
+        Object queuedValue = write.fields.get(field);
+        if (queuedValue instanceof Number) {
+            // Fold into a plain value queued earlier in the window
+            write.fields.put(field, ((Number) queuedValue).longValue() + delta);
+        } else {
+            Long queuedDelta = write.increments.get(field);
+            write.increments.put(field, (queuedDelta != null ? queuedDelta : 0L) + delta);
+        }
+        if (listener != null) write.listeners.add(listener);
+        scheduleFlush();
+    }
+
+    /**
+     * Remove the update queued for a document so the caller can commit it in its
+     * own transaction. Plain field values are returned, summed increments go to
+     * incrementsOut and the update's listeners to listenersOut.
+     */
+    public synchronized Map<String, Object> take(DocumentReference ref, Map<String, Long> incrementsOut,
+                                                 List<FirestoreHelper.OnCompleteListener> listenersOut) {
+        PendingWrite write = pending.remove(ref.getPath());
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (write == null) return fields;
+
+        fields.putAll(write.fields);
+        incrementsOut.putAll(write.increments);
+        listenersOut.addAll(write.listeners);
+        return fields;
+    }
+
+    /**
+     * Put back an update removed with {@link #take} whose commit failed.
+     * Anything queued for the document since then is newer and wins.
+     */
+    public synchronized void restore(DocumentReference ref, Map<String, Object> fields, Map<String, Long> increments,
+                                     List<FirestoreHelper.OnCompleteListener> listeners) {
+        if (fields.isEmpty() && increments.isEmpty() && listeners.isEmpty()) return;
+        merge(pendingFor(ref), fields, increments, listeners);
+        scheduleFlush();
+    }
+
+    /**
+     * Merge an older update under the one queued now: queued values win
+     */
+    private void merge(PendingWrite write, Map<String, Object> fields, Map<String, Long> increments,
+                       List<FirestoreHelper.OnCompleteListener> listeners) {
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            if (!write.fields.containsKey(field.getKey()) && !write.increments.containsKey(field.getKey())) {
+                write.fields.put(field.getKey(), field.getValue());
+            }
+        }
+        for (Map.Entry<String, Long> increment : increments.entrySet()) {
+            // A plain value queued since replaces the older increment
+            if (write.fields.containsKey(increment.getKey())) continue;
+            Long queuedDelta = write.increments.get(increment.getKey());
+            write.increments.put(increment.getKey(), (queuedDelta != null ? queuedDelta : 0L) + increment.getValue());
+        }
+        write.listeners.addAll(0, listeners);
+    }
+
+    /**
+     * Commit everything queued now. The listener hears how this commit went,
+     * even if its writes are queued again for a retry.
+     */
+    public void flush(FirestoreHelper.OnCompleteListener listener) {
+        Map<String, PendingWrite> writes;
+        synchronized (this) {
+            handler.removeCallbacks(flushRunnable);
+            flushScheduled = false;
+            writes = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        WriteBatch batch = db.batch();
+        boolean hasOperations = false;
+        for (PendingWrite write : writes.values()) {
+            Map<String, Object> update = write.toUpdate();
+            if (!update.isEmpty()) {
+                batch.update(write.ref, update);
+                hasOperations = true;
+            }
+        }
+
+        if (!hasOperations) {
+            if (listener != null) listener.onComplete(true, null);
+            return;
+        }
+
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Committed coalesced writes for " + writes.size() + " document(s)");
+                    for (PendingWrite write : writes.values()) {
+                        for (FirestoreHelper.OnCompleteListener l : write.listeners) l.onComplete(true, null);
+                    }
+                    if (listener != null) listener.onComplete(true, null);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error committing coalesced writes", e);
+                    List<PendingWrite> givenUp = requeue(writes.values());
+                    for (PendingWrite write : givenUp) {
+                        for (FirestoreHelper.OnCompleteListener l : write.listeners) l.onComplete(false, e);
+                    }
+                    if (listener != null) listener.onComplete(false, e);
+                });
+    }
+
+    /**
+     * Queue the writes of a failed batch again, to be retried after a backoff that
+     * doubles with each failure. Returns the writes that have used up their attempts.
+     */
+    private synchronized List<PendingWrite> requeue(Iterable<PendingWrite> failed) {
+        List<PendingWrite> givenUp = new ArrayList<>();
+        int retryAttempts = 0;
+        for (PendingWrite write : failed) {
+            int attempts = write.failedAttempts + 1;
+            if (attempts >= MAX_ATTEMPTS) {
+                givenUp.add(write);
+                continue;
+            }
+            PendingWrite queued = pendingFor(write.ref);
+            merge(queued, write.fields, write.increments, write.listeners);
+            queued.failedAttempts = Math.max(queued.failedAttempts, attempts);
+            retryAttempts = Math.max(retryAttempts, attempts);
+        }
+        if (retryAttempts > 0) {
+            Log.w(TAG, "Retrying coalesced writes, attempt " + (retryAttempts + 1) + " of " + MAX_ATTEMPTS);
+            scheduleFlush(windowMs << retryAttempts);
+        }
+        return givenUp;
+    }
+
+    private PendingWrite pendingFor(DocumentReference ref) {
+        PendingWrite write = pending.get(ref.getPath());
+        if (write == null) {
+            write = new PendingWrite(ref);
+            pending.put(ref.getPath(), write);
+        }
+        return write;
+    }
+
+    /**
+     * Start the window if it isn't already running. Callers hold the lock.
+     */
+    private void scheduleFlush() {
+        scheduleFlush(windowMs);
+    }
+
+    /**
+     * Flush after delayMs, unless a flush is already due no later. Callers hold the lock.
+     */
+    private void scheduleFlush(long delayMs) {
+        long dueAt = SystemClock.uptimeMillis() + delayMs;
+        if (flushScheduled && flushDueAt <= dueAt) return;
+        handler.removeCallbacks(flushRunnable);
+        flushScheduled = true;
+        flushDueAt = dueAt;
+        handler.postAtTime(flushRunnable, dueAt);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.phiz.models;
+
+import com.google.firebase.firestore.Blob;
+
+/**
+ * A student's working for one quiz question: the doodle drawn over it, as
+ * {@link com.example.phiz.views.InkCodec} bytes. Stored under the grade in
+ * users/{userId}/grades/{gradeId}/doodles/{questionIndex}, so grade lists
+ * don't download the ink.
+ */
+public class Doodle {
+    private int questionIndex;
+    private String questionId;
+    private String questionText;  // Denormalized so the working can be shown without the question
+    private Blob ink;
+
+    public Doodle() {
+        // Default constructor required for Firestore
+    }
+
+    public Doodle(int questionIndex, String questionId, String questionText, byte[] ink) {
+        this.questionIndex = questionIndex;
+        this.questionId = questionId;
+        this.questionText = questionText;
+        this.ink = Blob.fromBytes(ink);
+    }
+
+    // Getters and setters
+    public int getQuestionIndex() {
+        return questionIndex;
+    }
+
+    public void setQuestionIndex(int questionIndex) {
+        this.questionIndex = questionIndex;
+    }
+
+    public String getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(String questionId) {
+        this.questionId = questionId;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    public void setQuestionText(String questionText) {
+        this.questionText = questionText;
+    }
+
+    public Blob getInk() {
+        return ink;
+    }
+
+    public void setInk(Blob ink) {
+        this.ink = ink;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.phiz.models;
+
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Student leaderboard, maintained by the onGradeCreated Cloud Function.
+ *
+ * Holds the top students by score plus a histogram of how many ranked students
+ * fall in each score bucket, so a rank can be shown from this one document.
+ * Students appear once they have a graded quiz.
+ */
+public class Leaderboard {
+    private List<LeaderboardEntry> top = new ArrayList<>();  // Highest score first
+    private Map<String, Long> buckets = new HashMap<>();  // floor(score / bucketSize) -> students
+    private int bucketSize = 100;
+    private int studentCount;
+    private Timestamp updatedAt;
+
+    public Leaderboard() {
+        // Default constructor required for Firestore
+    }
+
+    /**
+     * Rank (1 = best) of a student with the given score.
+     * Exact for students on the top list; otherwise the best rank consistent
+     * with the bucket counts, i.e. one below everyone in a higher bucket.
+     */
+    public int getRank(String uid, int totalScore) {
+        for (int i = 0; i < top.size(); i++) {
+            if (top.get(i).getUid().equals(uid)) {
+                return i + 1;
+            }
+        }
+
+        long bucket = Math.floorDiv(totalScore, bucketSize);
+        long ahead = 0;
+        for (Map.Entry<String, Long> entry : buckets.entrySet()) {
+            if (Long.parseLong(entry.getKey()) > bucket) {
+                ahead += entry.getValue();
+            }
+        }
+        // Everyone on the top list is ahead of a student who isn't on it
+        return (int) Math.max(ahead, top.size()) + 1;
+    }
+
+    // Getters and setters
+    public List<LeaderboardEntry> getTop() {
+        return top;
+    }
+
+    public void setTop(List<LeaderboardEntry> top) {
+        this.top = top;
+    }
+
+    public Map<String, Long> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(Map<String, Long> buckets) {
+        this.buckets = buckets;
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    public void setBucketSize(int bucketSize) {
+        this.bucketSize = bucketSize;
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    public void setStudentCount(int studentCount) {
+        this.studentCount = studentCount;
+    }
+
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
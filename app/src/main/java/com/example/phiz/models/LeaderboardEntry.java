@@ -0,0 +1,45 @@
+package com.example.phiz.models;
+
+/**
+ * One student on the leaderboard's top list.
+ */
+public class LeaderboardEntry {
+    private String uid;
+    private String name;
+    private int totalScore;
+
+    public LeaderboardEntry() {
+        // Default constructor required for Firestore
+    }
+
+    public LeaderboardEntry(String uid, String name, int totalScore) {
+        this.uid = uid;
+        this.name = name;
+        this.totalScore = totalScore;
+    }
+
+    // Getters and setters
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    public void setTotalScore(int totalScore) {
+        this.totalScore = totalScore;
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.phiz.models;
 
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.ServerTimestamp;
+
 import java.util.List;
 
 /**
@@ -14,6 +17,10 @@ public class Question {
     private String explanation;  // Optional explanation for the correct answer
     private int pointValue;  // Points awarded for correct answer
     private String difficulty;  // "easy", "medium", "hard"
+    private double sortKey;  // Uniform random in [0, 1), indexed for sampled quiz selection
+    private SimulationSpec simulation;  // Set when the answer was generated by the incline simulation
+    @ServerTimestamp
+    private Timestamp updatedAt;  // Set by the server on every write, used for delta sync
 
     /**
      * Default constructor required for Firestore deserialization
@@ -33,6 +40,7 @@ public class Question {
         this.explanation = explanation;
         this.pointValue = pointValue;
         this.difficulty = difficulty;
+        this.sortKey = newSortKey();
     }
 
     /**
@@ -46,6 +54,7 @@ public class Question {
         this.explanation = "";
         this.pointValue = 20;  // Default point value
         this.difficulty = "medium";
+        this.sortKey = newSortKey();
     }
 
     // Getters and setters
@@ -105,6 +114,37 @@ public class Question {
         this.difficulty = difficulty;
     }
 
+    public double getSortKey() {
+        return sortKey;
+    }
+
+    public void setSortKey(double sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public SimulationSpec getSimulation() {
+        return simulation;
+    }
+
+    public void setSimulation(SimulationSpec simulation) {
+        this.simulation = simulation;
+    }
+
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Generates a random sort key for a new question
+     */
+    public static double newSortKey() {
+        return Math.random();
+    }
+
     /**
      * Checks if a given answer index is correct
      */
@@ -2,13 +2,24 @@ package com.example.phiz.models;
 
 import com.google.firebase.Timestamp;
 
+import java.util.List;
+
 public class QuizResult {
+    private String gradeId;
     private String quizId;
     private String userId;
+    private String userName;  // Denormalized so the teacher grade feed needs no user lookups
     private String quizName;
     private int score;
     private int totalQuestions;
     private Timestamp timestamp;
+    private int doodleCount;  // Questions with saved working in the doodles subcollection
+
+    // Per-question responses as parallel lists in quiz order, read by the item analysis function
+    private List<String> questionIds;
+    private List<Integer> selectedOptions;  // Index in the question's own option order; -1 if timed out
+    private List<Boolean> correct;
+    private List<Long> responseTimesMs;  // -1 if never answered
 
     public QuizResult() {
         // Default constructor required for Firestore
@@ -24,6 +35,14 @@ public class QuizResult {
     }
 
     // Getters and setters
+    public String getGradeId() {
+        return gradeId;
+    }
+
+    public void setGradeId(String gradeId) {
+        this.gradeId = gradeId;
+    }
+
     public String getQuizId() {
         return quizId;
     }
@@ -40,6 +59,14 @@ public class QuizResult {
         this.userId = userId;
     }
 
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
     public String getQuizName() {
         return quizName;
     }
@@ -71,4 +98,44 @@ public class QuizResult {
     public void setTimestamp(Timestamp timestamp) {
         this.timestamp = timestamp;
     }
+
+    public int getDoodleCount() {
+        return doodleCount;
+    }
+
+    public void setDoodleCount(int doodleCount) {
+        this.doodleCount = doodleCount;
+    }
+
+    public List<String> getQuestionIds() {
+        return questionIds;
+    }
+
+    public void setQuestionIds(List<String> questionIds) {
+        this.questionIds = questionIds;
+    }
+
+    public List<Integer> getSelectedOptions() {
+        return selectedOptions;
+    }
+
+    public void setSelectedOptions(List<Integer> selectedOptions) {
+        this.selectedOptions = selectedOptions;
+    }
+
+    public List<Boolean> getCorrect() {
+        return correct;
+    }
+
+    public void setCorrect(List<Boolean> correct) {
+        this.correct = correct;
+    }
+
+    public List<Long> getResponseTimesMs() {
+        return responseTimesMs;
+    }
+
+    public void setResponseTimesMs(List<Long> responseTimesMs) {
+        this.responseTimesMs = responseTimesMs;
+    }
 }
@@ -0,0 +1,92 @@
+package com.example.phiz.models;
+
+/**
+ * The simulation behind an auto-generated question: an incline run with these
+ * parameters for a number of seconds, asking for one measured quantity.
+ * Stored on the question so the answer can be re-computed when grading.
+ */
+public class SimulationSpec {
+    public static final String QUANTITY_VELOCITY = "velocity";
+    public static final String QUANTITY_POSITION = "position";
+    public static final String QUANTITY_ACCELERATION = "acceleration";
+
+    private double mass;  // kg
+    private double appliedForce;  // N
+    private double frictionCoefficient;
+    private double angle;  // degrees
+    private double seconds;  // Simulated time when the quantity is read
+    private String quantity;  // "velocity", "position" or "acceleration"
+    private double answer;  // Simulated value of the quantity
+
+    /**
+     * Default constructor required for Firestore deserialization
+     */
+    public SimulationSpec() {
+    }
+
+    public SimulationSpec(double mass, double appliedForce, double frictionCoefficient, double angle,
+                          double seconds, String quantity) {
+        this.mass = mass;
+        this.appliedForce = appliedForce;
+        this.frictionCoefficient = frictionCoefficient;
+        this.angle = angle;
+        this.seconds = seconds;
+        this.quantity = quantity;
+    }
+
+    public double getMass() {
+        return mass;
+    }
+
+    public void setMass(double mass) {
+        this.mass = mass;
+    }
+
+    public double getAppliedForce() {
+        return appliedForce;
+    }
+
+    public void setAppliedForce(double appliedForce) {
+        this.appliedForce = appliedForce;
+    }
+
+    public double getFrictionCoefficient() {
+        return frictionCoefficient;
+    }
+
+    public void setFrictionCoefficient(double frictionCoefficient) {
+        this.frictionCoefficient = frictionCoefficient;
+    }
+
+    public double getAngle() {
+        return angle;
+    }
+
+    public void setAngle(double angle) {
+        this.angle = angle;
+    }
+
+    public double getSeconds() {
+        return seconds;
+    }
+
+    public void setSeconds(double seconds) {
+        this.seconds = seconds;
+    }
+
+    public String getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(String quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getAnswer() {
+        return answer;
+    }
+
+    public void setAnswer(double answer) {
+        this.answer = answer;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.phiz.physics;
+
+/**
+ * Fixed-timestep physics for a block on an incline: a constant applied force
+ * along the surface, against kinetic friction and the slope's gravity component.
+ *
+ * Pure Java, so it runs the same on a device, in unit tests and in benchmarks.
+ * Callers feed it real elapsed frame time through {@link #advance(double)}; the
+ * engine consumes it in FIXED_TIMESTEP steps (semi-implicit Euler) and keeps the
+ * remainder in an accumulator. Rendering uses {@link #getInterpolatedPosition()},
+ * which blends the last two steps so motion stays smooth at any refresh rate.
+ */
+public class InclineEngine {
+    public static final double GRAVITY = 9.8;  // m/s²
+    public static final double FIXED_TIMESTEP = 1.0 / 120.0;  // s
+
+    // Longest frame time consumed at once, so a stall can't trigger a burst of steps
+    private static final double MAX_FRAME_TIME = 0.25;  // s
+
+    private double mass = 5.0;  // kg
+    private double appliedForce = 30.0;  // N
+    private double frictionCoefficient = 0.2;
+    private double angleDegrees = 0.0;
+    private double acceleration;  // m/s², from the current parameters
+
+    private double position;  // m along the surface
+    private double velocity;  // m/s
+    private double previousPosition;
+    private double minPosition = 0.0;
+    private double maxPosition = Double.POSITIVE_INFINITY;
+
+    private double accumulator;
+    private double alpha;  // Fraction of a step left in the accumulator, for interpolation
+    private double time;  // Simulated seconds since reset
+    private long steps;
+
+    public InclineEngine() {
+        updateAcceleration();
+    }
+
+    // ==================== PARAMETERS ====================
+
+    public void setParameters(double mass, double appliedForce, double frictionCoefficient, double angleDegrees) {
+        this.mass = mass;
+        this.appliedForce = appliedForce;
+        this.frictionCoefficient = frictionCoefficient;
+        this.angleDegrees = angleDegrees;
+        updateAcceleration();
+    }
+
+    /**
+     * Limit the block to [min, max] along the surface; it stops when it hits either end
+     */
+    public void setBounds(double minPosition, double maxPosition) {
+        this.minPosition = minPosition;
+        this.maxPosition = Math.max(minPosition, maxPosition);
+    }
+
+    private void updateAcceleration() {
+        double angleRad = Math.toRadians(angleDegrees);
+        double gravityComponent = mass * GRAVITY * Math.sin(angleRad);
+        double normalForce = mass * GRAVITY * Math.cos(angleRad);
+        double frictionForce = frictionCoefficient * normalForce;
+
+        double netForce = appliedForce - frictionForce - gravityComponent;
+        acceleration = netForce / mass;
+    }
+
+    // ==================== STEPPING ====================
+
+    /**
+     * Put the block back at the start, at rest
+     */
+    public void reset() {
+        position = minPosition;
+        previousPosition = minPosition;
+        velocity = 0.0;
+        accumulator = 0.0;
+        alpha = 0.0;
+        time = 0.0;
+        steps = 0;
+    }
+
+    /**
+     * Consume elapsed real time in fixed steps.
+     *
+     * @param frameSeconds time since the previous call
+     * @return the number of steps taken
+     */
+    public int advance(double frameSeconds) {
+        if (frameSeconds > MAX_FRAME_TIME) frameSeconds = MAX_FRAME_TIME;
+        if (frameSeconds > 0) accumulator += frameSeconds;
+
+        int taken = 0;
+        while (accumulator >= FIXED_TIMESTEP) {
+            step();
+            accumulator -= FIXED_TIMESTEP;
+            taken++;
+        }
+        alpha = accumulator / FIXED_TIMESTEP;
+        return taken;
+    }
+
+    /**
+     * Advance exactly one fixed step (semi-implicit Euler: velocity first, then position)
+     */
+    public void step() {
+        previousPosition = position;
+        velocity += acceleration * FIXED_TIMESTEP;
+        position += velocity * FIXED_TIMESTEP;
+
+        if (position > maxPosition) {
+            position = maxPosition;
+            velocity = 0;
+        }
+        if (position < minPosition) {
+            position = minPosition;
+            velocity = 0;
+        }
+        time += FIXED_TIMESTEP;
+        steps++;
+    }
+
+    // ==================== STATE ====================
+
+    /**
+     * Position to draw: between the last two steps, by how far into the next step real time is
+     */
+    public double getInterpolatedPosition() {
+        return previousPosition + (position - previousPosition) * alpha;
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public double getMass() {
+        return mass;
+    }
+
+    public double getAppliedForce() {
+        return appliedForce;
+    }
+
+    public double getFrictionCoefficient() {
+        return frictionCoefficient;
+    }
+
+    public double getAngleDegrees() {
+        return angleDegrees;
+    }
+}
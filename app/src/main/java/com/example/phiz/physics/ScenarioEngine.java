@@ -0,0 +1,658 @@
+package com.example.phiz.physics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-timestep 2D engine for multi-body scenarios: projectiles, springs,
+ * pulleys and colliding balls.
+ *
+ * Bodies are circles stored as structure-of-arrays (one float[] per property),
+ * so a step walks flat primitive arrays and allocates nothing once the buffers
+ * are sized. Collisions use a uniform grid broad phase, rebuilt every step with
+ * a counting sort, so only bodies in neighbouring cells are tested against each
+ * other. Units are SI with y pointing up, and real time is consumed in fixed
+ * steps with interpolation, the same way as {@link InclineEngine}.
+ */
+public class ScenarioEngine {
+    public static final float GRAVITY = 9.8f;  // m/s²
+    public static final float FIXED_TIMESTEP = 1f / 120f;  // s
+
+    private static final double MAX_FRAME_TIME = 0.25;  // s
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int PULLEY_ITERATIONS = 4;
+    private static final float EPSILON = 1e-6f;
+
+    // ==================== STATE ====================
+
+    // Bodies
+    private int bodyCount;
+    private float[] x = new float[INITIAL_CAPACITY];
+    private float[] y = new float[INITIAL_CAPACITY];
+    private float[] previousX = new float[INITIAL_CAPACITY];
+    private float[] previousY = new float[INITIAL_CAPACITY];
+    private float[] vx = new float[INITIAL_CAPACITY];
+    private float[] vy = new float[INITIAL_CAPACITY];
+    private float[] ax = new float[INITIAL_CAPACITY];
+    private float[] ay = new float[INITIAL_CAPACITY];
+    private float[] radius = new float[INITIAL_CAPACITY];
+    private float[] inverseMass = new float[INITIAL_CAPACITY];  // 0 for fixed bodies
+
+    // Springs (damped, Hooke's law)
+    private int springCount;
+    private int[] springA = new int[INITIAL_CAPACITY];
+    private int[] springB = new int[INITIAL_CAPACITY];
+    private float[] springRestLength = new float[INITIAL_CAPACITY];
+    private float[] springStiffness = new float[INITIAL_CAPACITY];
+    private float[] springDamping = new float[INITIAL_CAPACITY];
+
+    // Pulleys: an ideal rope over a fixed wheel, leaving it at (x - r, y) towards a and
+    // (x + r, y) towards b; the two free lengths add up to at most the rope length
+    private int pulleyCount;
+    private int[] pulleyA = new int[INITIAL_CAPACITY];
+    private int[] pulleyB = new int[INITIAL_CAPACITY];
+    private float[] pulleyX = new float[INITIAL_CAPACITY];
+    private float[] pulleyY = new float[INITIAL_CAPACITY];
+    private float[] pulleyRadius = new float[INITIAL_CAPACITY];
+    private float[] pulleyLength = new float[INITIAL_CAPACITY];
+
+    // Broad phase grid, bodies sorted by cell
+    private int[] cellStart = new int[INITIAL_CAPACITY + 1];
+    private int[] cellCursor = new int[INITIAL_CAPACITY];
+    private int[] cellOfBody = new int[INITIAL_CAPACITY];
+    private int[] bodiesByCell = new int[INITIAL_CAPACITY];
+    private boolean broadPhaseEnabled = true;
+    private boolean resolveContacts = true;
+
+    // World
+    private float gravityX = 0f;
+    private float gravityY = -GRAVITY;
+    private float linearDrag = 0f;  // 1/s
+    private float restitution = 0.8f;
+    private float minX = Float.NEGATIVE_INFINITY;
+    private float minY = Float.NEGATIVE_INFINITY;
+    private float maxX = Float.POSITIVE_INFINITY;
+    private float maxY = Float.POSITIVE_INFINITY;
+
+    private double accumulator;
+    private float alpha;
+    private double time;
+    private long steps;
+    private int contactCount;  // Contacts resolved in the last step
+    private long pairTests;  // Narrow phase tests in the last step
+
+    // ==================== WORLD ====================
+
+    public void setGravity(float gravityX, float gravityY) {
+        this.gravityX = gravityX;
+        this.gravityY = gravityY;
+    }
+
+    /**
+     * Air resistance proportional to velocity; 0 gives ideal projectile motion
+     */
+    public void setLinearDrag(float linearDrag) {
+        this.linearDrag = Math.max(0f, linearDrag);
+    }
+
+    /**
+     * Fraction of normal speed kept after a bounce (0 = inelastic, 1 = elastic)
+     */
+    public void setRestitution(float restitution) {
+        this.restitution = Math.max(0f, Math.min(1f, restitution));
+    }
+
+    /**
+     * Walls and floor that bodies bounce off; unbounded by default
+     */
+    public void setBounds(float minX, float minY, float maxX, float maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = Math.max(minX, maxX);
+        this.maxY = Math.max(minY, maxY);
+    }
+
+    /**
+     * Remove all bodies, springs and pulleys; world settings are kept
+     */
+    public void clear() {
+        bodyCount = 0;
+        springCount = 0;
+        pulleyCount = 0;
+        accumulator = 0;
+        alpha = 0;
+        time = 0;
+        steps = 0;
+        contactCount = 0;
+        pairTests = 0;
+    }
+
+    // ==================== BUILDING ====================
+
+    /**
+     * Add a circular body at rest
+     *
+     * @param mass in kg; 0 or less makes the body fixed in place
+     * @return the body's index
+     */
+    public int addBody(float x, float y, float radius, float mass) {
+        ensureBodyCapacity(bodyCount + 1);
+        int i = bodyCount++;
+        this.x[i] = x;
+        this.y[i] = y;
+        previousX[i] = x;
+        previousY[i] = y;
+        vx[i] = 0f;
+        vy[i] = 0f;
+        this.radius[i] = radius;
+        inverseMass[i] = mass > 0 ? 1f / mass : 0f;
+        return i;
+    }
+
+    /**
+     * Add a body launched at the given speed and angle above the horizontal
+     */
+    public int addProjectile(float x, float y, float radius, float mass, float speed, float angleDegrees) {
+        int i = addBody(x, y, radius, mass);
+        double angleRad = Math.toRadians(angleDegrees);
+        vx[i] = (float) (speed * Math.cos(angleRad));
+        vy[i] = (float) (speed * Math.sin(angleRad));
+        return i;
+    }
+
+    /**
+     * Connect two bodies with a spring whose rest length is their current distance
+     */
+    public int addSpring(int a, int b, float stiffness, float damping) {
+        return addSpring(a, b, distance(a, b), stiffness, damping);
+    }
+
+    public int addSpring(int a, int b, float restLength, float stiffness, float damping) {
+        checkBody(a);
+        checkBody(b);
+        if (springCount == springA.length) {
+            int capacity = springCount * 2;
+            springA = Arrays.copyOf(springA, capacity);
+            springB = Arrays.copyOf(springB, capacity);
+            springRestLength = Arrays.copyOf(springRestLength, capacity);
+            springStiffness = Arrays.copyOf(springStiffness, capacity);
+            springDamping = Arrays.copyOf(springDamping, capacity);
+        }
+        int s = springCount++;
+        springA[s] = a;
+        springB[s] = b;
+        springRestLength[s] = restLength;
+        springStiffness[s] = stiffness;
+        springDamping[s] = damping;
+        return s;
+    }
+
+    /**
+     * Hang two bodies from a rope over a fixed point at (x, y)
+     */
+    public int addPulley(int a, int b, float x, float y) {
+        return addPulley(a, b, x, y, 0f);
+    }
+
+    /**
+     * Hang two bodies from a rope over a fixed wheel centred at (x, y). The rope
+     * length is taken from their current positions; it can go slack but never stretch.
+     */
+    public int addPulley(int a, int b, float x, float y, float wheelRadius) {
+        checkBody(a);
+        checkBody(b);
+        if (pulleyCount == pulleyA.length) {
+            int capacity = pulleyCount * 2;
+            pulleyA = Arrays.copyOf(pulleyA, capacity);
+            pulleyB = Arrays.copyOf(pulleyB, capacity);
+            pulleyX = Arrays.copyOf(pulleyX, capacity);
+            pulleyY = Arrays.copyOf(pulleyY, capacity);
+            pulleyRadius = Arrays.copyOf(pulleyRadius, capacity);
+            pulleyLength = Arrays.copyOf(pulleyLength, capacity);
+        }
+        int p = pulleyCount++;
+        pulleyA[p] = a;
+        pulleyB[p] = b;
+        pulleyX[p] = x;
+        pulleyY[p] = y;
+        pulleyRadius[p] = wheelRadius;
+        pulleyLength[p] = length(this.x[a] - (x - wheelRadius), this.y[a] - y)
+                + length(this.x[b] - (x + wheelRadius), this.y[b] - y);
+        return p;
+    }
+
+    private void checkBody(int body) {
+        if (body < 0 || body >= bodyCount) {
+            throw new IndexOutOfBoundsException("No body " + body + " (" + bodyCount + " bodies)");
+        }
+    }
+
+    private void ensureBodyCapacity(int needed) {
+        if (needed <= x.length) return;
+        int capacity = Math.max(needed, x.length * 2);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        ax = Arrays.copyOf(ax, capacity);
+        ay = Arrays.copyOf(ay, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        inverseMass = Arrays.copyOf(inverseMass, capacity);
+        cellOfBody = new int[capacity];
+        bodiesByCell = new int[capacity];
+    }
+
+    // ==================== STEPPING ====================
+
+    /**
+     * Consume elapsed real time in fixed steps.
+     *
+     * @param frameSeconds time since the previous call
+     * @return the number of steps taken
+     */
+    public int advance(double frameSeconds) {
+        if (frameSeconds > MAX_FRAME_TIME) frameSeconds = MAX_FRAME_TIME;
+        if (frameSeconds > 0) accumulator += frameSeconds;
+
+        int taken = 0;
+        while (accumulator >= FIXED_TIMESTEP) {
+            step();
+            accumulator -= FIXED_TIMESTEP;
+            taken++;
+        }
+        alpha = (float) (accumulator / FIXED_TIMESTEP);
+        return taken;
+    }
+
+    /**
+     * Advance exactly one fixed step: forces, semi-implicit Euler, then pulley
+     * ropes, collisions and bounds
+     */
+    public void step() {
+        applyForces();
+        integrate();
+        solvePulleys();
+        resolveCollisions();
+        enforceBounds();
+        time += FIXED_TIMESTEP;
+        steps++;
+    }
+
+    private void applyForces() {
+        for (int i = 0; i < bodyCount; i++) {
+            if (inverseMass[i] == 0f) {
+                ax[i] = 0f;
+                ay[i] = 0f;
+            } else {
+                ax[i] = gravityX - linearDrag * vx[i];
+                ay[i] = gravityY - linearDrag * vy[i];
+            }
+        }
+
+        for (int s = 0; s < springCount; s++) {
+            int a = springA[s];
+            int b = springB[s];
+            float dx = x[b] - x[a];
+            float dy = y[b] - y[a];
+            float length = length(dx, dy);
+            if (length < EPSILON) continue;
+            float nx = dx / length;
+            float ny = dy / length;
+
+            float stretchSpeed = (vx[b] - vx[a]) * nx + (vy[b] - vy[a]) * ny;
+            float force = springStiffness[s] * (length - springRestLength[s]) + springDamping[s] * stretchSpeed;
+            ax[a] += force * nx * inverseMass[a];
+            ay[a] += force * ny * inverseMass[a];
+            ax[b] -= force * nx * inverseMass[b];
+            ay[b] -= force * ny * inverseMass[b];
+        }
+    }
+
+    private void integrate() {
+        float dt = FIXED_TIMESTEP;
+        for (int i = 0; i < bodyCount; i++) {
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+            vx[i] += ax[i] * dt;
+            vy[i] += ay[i] * dt;
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+        }
+    }
+
+    private void solvePulleys() {
+        if (pulleyCount == 0) return;
+
+        // Pull stretched ropes back to length (a few passes for bodies sharing ropes)
+        for (int iteration = 0; iteration < PULLEY_ITERATIONS; iteration++) {
+            for (int p = 0; p < pulleyCount; p++) {
+                solvePulley(p, false);
+            }
+        }
+        // Then remove the velocity that would stretch them again next step
+        for (int p = 0; p < pulleyCount; p++) {
+            solvePulley(p, true);
+        }
+    }
+
+    private void solvePulley(int p, boolean velocity) {
+        int a = pulleyA[p];
+        int b = pulleyB[p];
+        float dax = x[a] - (pulleyX[p] - pulleyRadius[p]);
+        float day = y[a] - pulleyY[p];
+        float dbx = x[b] - (pulleyX[p] + pulleyRadius[p]);
+        float dby = y[b] - pulleyY[p];
+        float lengthA = length(dax, day);
+        float lengthB = length(dbx, dby);
+        float weight = inverseMass[a] + inverseMass[b];
+        if (lengthA < EPSILON || lengthB < EPSILON || weight == 0f) return;
+
+        float nax = dax / lengthA;
+        float nay = day / lengthA;
+        float nbx = dbx / lengthB;
+        float nby = dby / lengthB;
+
+        if (!velocity) {
+            float stretch = lengthA + lengthB - pulleyLength[p];
+            if (stretch <= 0f) return;  // Slack
+            float lambda = stretch / weight;
+            x[a] -= inverseMass[a] * lambda * nax;
+            y[a] -= inverseMass[a] * lambda * nay;
+            x[b] -= inverseMass[b] * lambda * nbx;
+            y[b] -= inverseMass[b] * lambda * nby;
+        } else {
+            float stretch = lengthA + lengthB - pulleyLength[p];
+            float stretchSpeed = vx[a] * nax + vy[a] * nay + vx[b] * nbx + vy[b] * nby;
+            if (stretch < -EPSILON || stretchSpeed <= 0f) return;  // Slack, or not pulling
+            float impulse = stretchSpeed / weight;
+            vx[a] -= inverseMass[a] * impulse * nax;
+            vy[a] -= inverseMass[a] * impulse * nay;
+            vx[b] -= inverseMass[b] * impulse * nbx;
+            vy[b] -= inverseMass[b] * impulse * nby;
+        }
+    }
+
+    // ==================== COLLISIONS ====================
+
+    private void resolveCollisions() {
+        contactCount = 0;
+        pairTests = 0;
+        if (bodyCount < 2) return;
+
+        if (!broadPhaseEnabled) {
+            for (int i = 0; i < bodyCount; i++) {
+                for (int j = i + 1; j < bodyCount; j++) {
+                    collide(i, j);
+                }
+            }
+            return;
+        }
+
+        // Grid over the bodies' extent, with cells at least one diameter wide
+        // so any two touching bodies are in the same or adjacent cells
+        float left = Float.POSITIVE_INFINITY;
+        float bottom = Float.POSITIVE_INFINITY;
+        float right = Float.NEGATIVE_INFINITY;
+        float top = Float.NEGATIVE_INFINITY;
+        float maxRadius = 0f;
+        for (int i = 0; i < bodyCount; i++) {
+            left = Math.min(left, x[i]);
+            bottom = Math.min(bottom, y[i]);
+            right = Math.max(right, x[i]);
+            top = Math.max(top, y[i]);
+            maxRadius = Math.max(maxRadius, radius[i]);
+        }
+        if (maxRadius <= 0f) return;
+
+        float cellSize = 2f * maxRadius;
+        long columns = (long) ((right - left) / cellSize) + 1;
+        long rows = (long) ((top - bottom) / cellSize) + 1;
+        // Keep the grid about as big as the body count; sparse scenes get bigger cells
+        long maxCells = 4L * bodyCount + 16;
+        while (columns * rows > maxCells) {
+            cellSize *= 2f;
+            columns = (long) ((right - left) / cellSize) + 1;
+            rows = (long) ((top - bottom) / cellSize) + 1;
+        }
+        int cols = (int) columns;
+        int cells = cols * (int) rows;
+
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+            cellCursor = new int[cells];
+        }
+
+        // Counting sort of bodies by cell
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+        for (int i = 0; i < bodyCount; i++) {
+            int cell = (int) ((y[i] - bottom) / cellSize) * cols + (int) ((x[i] - left) / cellSize);
+            cellOfBody[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+            cellCursor[c] = cellStart[c];
+        }
+        for (int i = 0; i < bodyCount; i++) {
+            bodiesByCell[cellCursor[cellOfBody[i]]++] = i;
+        }
+
+        // Each body against higher-numbered bodies in its own and the 8 surrounding cells
+        int rowCount = (int) rows;
+        for (int i = 0; i < bodyCount; i++) {
+            int cell = cellOfBody[i];
+            int column = cell % cols;
+            int row = cell / cols;
+            for (int r = Math.max(0, row - 1); r <= Math.min(rowCount - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(cols - 1, column + 1); c++) {
+                    int neighbour = r * cols + c;
+                    for (int k = cellStart[neighbour]; k < cellStart[neighbour + 1]; k++) {
+                        int j = bodiesByCell[k];
+                        if (j > i) collide(i, j);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Separate two overlapping bodies and exchange momentum along the contact normal
+     */
+    private void collide(int i, int j) {
+        pairTests++;
+        float dx = x[j] - x[i];
+        float dy = y[j] - y[i];
+        float touching = radius[i] + radius[j];
+        float distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared >= touching * touching) return;
+        float weight = inverseMass[i] + inverseMass[j];
+        if (weight == 0f) return;
+
+        contactCount++;
+        if (!resolveContacts) return;
+        float distance = (float) Math.sqrt(distanceSquared);
+        float nx = 1f;
+        float ny = 0f;
+        if (distance > EPSILON) {
+            nx = dx / distance;
+            ny = dy / distance;
+        }
+
+        float correction = (touching - distance) / weight;
+        x[i] -= nx * correction * inverseMass[i];
+        y[i] -= ny * correction * inverseMass[i];
+        x[j] += nx * correction * inverseMass[j];
+        y[j] += ny * correction * inverseMass[j];
+
+        float approachSpeed = (vx[j] - vx[i]) * nx + (vy[j] - vy[i]) * ny;
+        if (approachSpeed >= 0f) return;  // Already separating
+        float impulse = -(1f + restitution) * approachSpeed / weight;
+        vx[i] -= impulse * nx * inverseMass[i];
+        vy[i] -= impulse * ny * inverseMass[i];
+        vx[j] += impulse * nx * inverseMass[j];
+        vy[j] += impulse * ny * inverseMass[j];
+    }
+
+    private void enforceBounds() {
+        for (int i = 0; i < bodyCount; i++) {
+            if (inverseMass[i] == 0f) continue;
+            float r = radius[i];
+            if (x[i] - r < minX) {
+                x[i] = minX + r;
+                if (vx[i] < 0f) vx[i] = -vx[i] * restitution;
+            } else if (x[i] + r > maxX) {
+                x[i] = maxX - r;
+                if (vx[i] > 0f) vx[i] = -vx[i] * restitution;
+            }
+            if (y[i] - r < minY) {
+                y[i] = minY + r;
+                if (vy[i] < 0f) vy[i] = -vy[i] * restitution;
+            } else if (y[i] + r > maxY) {
+                y[i] = maxY - r;
+                if (vy[i] > 0f) vy[i] = -vy[i] * restitution;
+            }
+        }
+    }
+
+    /**
+     * Test every pair instead of using the grid; for checking the broad phase
+     */
+    void setBroadPhaseEnabled(boolean enabled) {
+        this.broadPhaseEnabled = enabled;
+    }
+
+    /**
+     * Count overlapping pairs without resolving them; resolution order changes
+     * later contacts, so this is what the two collision paths can be compared on
+     */
+    int countContacts() {
+        resolveContacts = false;
+        try {
+            resolveCollisions();
+        } finally {
+            resolveContacts = true;
+        }
+        return contactCount;
+    }
+
+    // ==================== QUERIES ====================
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    public int getSpringCount() {
+        return springCount;
+    }
+
+    public int getPulleyCount() {
+        return pulleyCount;
+    }
+
+    public float getX(int body) {
+        return x[body];
+    }
+
+    public float getY(int body) {
+        return y[body];
+    }
+
+    /**
+     * Position to draw: between the last two steps, by how far into the next step real time is
+     */
+    public float getInterpolatedX(int body) {
+        return previousX[body] + (x[body] - previousX[body]) * alpha;
+    }
+
+    public float getInterpolatedY(int body) {
+        return previousY[body] + (y[body] - previousY[body]) * alpha;
+    }
+
+    public float getVelocityX(int body) {
+        return vx[body];
+    }
+
+    public float getVelocityY(int body) {
+        return vy[body];
+    }
+
+    public float getRadius(int body) {
+        return radius[body];
+    }
+
+    public float getMass(int body) {
+        return inverseMass[body] > 0f ? 1f / inverseMass[body] : 0f;
+    }
+
+    public int getSpringA(int spring) {
+        return springA[spring];
+    }
+
+    public int getSpringB(int spring) {
+        return springB[spring];
+    }
+
+    public float getPulleyX(int pulley) {
+        return pulleyX[pulley];
+    }
+
+    public float getPulleyY(int pulley) {
+        return pulleyY[pulley];
+    }
+
+    public float getPulleyRadius(int pulley) {
+        return pulleyRadius[pulley];
+    }
+
+    public int getPulleyA(int pulley) {
+        return pulleyA[pulley];
+    }
+
+    public int getPulleyB(int pulley) {
+        return pulleyB[pulley];
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public int getContactCount() {
+        return contactCount;
+    }
+
+    public long getPairTests() {
+        return pairTests;
+    }
+
+    /**
+     * Total momentum of the moving bodies, x component (kg·m/s)
+     */
+    public float getMomentumX() {
+        float momentum = 0f;
+        for (int i = 0; i < bodyCount; i++) {
+            if (inverseMass[i] > 0f) momentum += vx[i] / inverseMass[i];
+        }
+        return momentum;
+    }
+
+    public float getMomentumY() {
+        float momentum = 0f;
+        for (int i = 0; i < bodyCount; i++) {
+            if (inverseMass[i] > 0f) momentum += vy[i] / inverseMass[i];
+        }
+        return momentum;
+    }
+
+    private float distance(int a, int b) {
+        return length(x[b] - x[a], y[b] - y[a]);
+    }
+
+    private static float length(float dx, float dy) {
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.phiz.physics;
+
+import java.util.Random;
+
+/**
+ * Ready-made {@link ScenarioEngine} setups for the simulation screen, tests and benchmarks.
+ */
+public final class Scenarios {
+
+    private Scenarios() {
+    }
+
+    /**
+     * One ball launched from the origin over flat, unbounded ground
+     */
+    public static ScenarioEngine projectile(float speed, float angleDegrees, float linearDrag) {
+        ScenarioEngine engine = new ScenarioEngine();
+        engine.setLinearDrag(linearDrag);
+        engine.addProjectile(0f, 0f, 0.1f, 1f, speed, angleDegrees);
+        return engine;
+    }
+
+    /**
+     * Atwood machine: two masses hanging straight down from a 1 m wheel 2 m up, released at rest
+     */
+    public static ScenarioEngine atwoodMachine(float massA, float massB) {
+        ScenarioEngine engine = new ScenarioEngine();
+        int a = engine.addBody(-0.5f, 0f, 0.1f, massA);
+        int b = engine.addBody(0.5f, 0f, 0.1f, massB);
+        engine.addPulley(a, b, 0f, 2f, 0.5f);
+        return engine;
+    }
+
+    /**
+     * A chain of masses hanging from a fixed anchor, each link a damped spring
+     */
+    public static ScenarioEngine springChain(int links, float mass, float stiffness, float damping) {
+        ScenarioEngine engine = new ScenarioEngine();
+        float spacing = 0.5f;
+        int previous = engine.addBody(0f, 0f, 0.05f, 0f);
+        for (int i = 1; i <= links; i++) {
+            int body = engine.addBody(0f, -i * spacing, 0.1f, mass);
+            engine.addSpring(previous, body, spacing, stiffness, damping);
+            previous = body;
+        }
+        return engine;
+    }
+
+    /**
+     * Balls dropped at random into a walled box; the collision stress case
+     */
+    public static ScenarioEngine ballPit(int count, float width, float height, long seed) {
+        ScenarioEngine engine = new ScenarioEngine();
+        engine.setBounds(0f, 0f, width, height);
+        engine.setRestitution(0.5f);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            float radius = 0.1f + random.nextFloat() * 0.1f;
+            float x = radius + random.nextFloat() * (width - 2 * radius);
+            float y = radius + random.nextFloat() * (height - 2 * radius);
+            engine.addBody(x, y, radius, radius * radius * 100f);
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.phiz.physics;
+
+import com.example.phiz.models.SimulationSpec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Multiple-choice questions whose answers come from running the incline simulation.
+ *
+ * The correct option is the simulated value; the distractors are what the same
+ * simulation gives under a common mistake (forgetting friction, forgetting the
+ * slope, mixing up average and final velocity...), so they are plausible rather
+ * than random. Answers can be checked numerically against a re-run with {@link #verify}.
+ *
+ * The spec is rounded to the precision the question text shows before it is run,
+ * so a student who solves the problem as written gets the keyed answer.
+ */
+public final class SimulationQuestions {
+    public static final int OPTION_COUNT = 4;
+
+    // An answer matches if it is within 1% or half the last displayed digit
+    private static final double RELATIVE_TOLERANCE = 0.01;
+    private static final double ABSOLUTE_TOLERANCE = 0.005;
+
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:\\.\\d+)?");
+
+    /**
+     * A generated question, ready to copy into a {@link com.example.phiz.models.Question}
+     */
+    public static class Generated {
+        public final String questionText;
+        public final List<String> options;
+        public final int correctAnswerIndex;
+        public final String explanation;
+        public final SimulationSpec spec;
+
+        Generated(String questionText, List<String> options, int correctAnswerIndex, String explanation,
+                  SimulationSpec spec) {
+            this.questionText = questionText;
+            this.options = options;
+            this.correctAnswerIndex = correctAnswerIndex;
+            this.explanation = explanation;
+            this.spec = spec;
+        }
+    }
+
+    private SimulationQuestions() {
+    }
+
+    /**
+     * Build a question from a simulation; the spec is rounded to the displayed
+     * precision and its answer is filled in.
+     *
+     * @param seed shuffles the options; the same seed gives the same order
+     * @throws IllegalArgumentException if the block would not move with these parameters
+     */
+    public static Generated generate(SimulationSpec spec, long seed) {
+        roundToDisplayed(spec);
+        if (spec.getMass() <= 0 || spec.getSeconds() <= 0) {
+            throw new IllegalArgumentException("Mass and time must be at least 0.1");
+        }
+        SimulationRunner runner = new SimulationRunner();
+        double answer = runner.measure(spec);
+        if (!runner.isMoving()) {
+            throw new IllegalArgumentException("The applied force doesn't overcome friction and the slope");
+        }
+        spec.setAnswer(answer);
+        double acceleration = runner.getAcceleration();
+        double velocity = runner.getVelocity();
+        double position = runner.getPosition();
+
+        String quantity = spec.getQuantity();
+        String correct = format(answer, quantity);
+        List<String> options = new ArrayList<>(OPTION_COUNT);
+        options.add(correct);
+        for (double distractor : distractors(runner, spec, velocity, position)) {
+            addDistractor(options, answer, distractor, quantity);
+        }
+        // Not enough distinct mistakes (e.g. no friction and no slope): fall back to scaled answers
+        double[] factors = {2.0, 0.5, 1.5, 3.0, 0.25};
+        for (int i = 0; i < factors.length && options.size() < OPTION_COUNT; i++) {
+            addDistractor(options, answer, answer * factors[i], quantity);
+        }
+
+        Collections.shuffle(options, new Random(seed));
+        int correctIndex = options.indexOf(correct);
+
+        return new Generated(questionText(spec), options, correctIndex,
+                explanation(spec, acceleration, velocity, position), spec);
+    }
+
+    /**
+     * Simulated values under common mistakes, most plausible first
+     */
+    private static double[] distractors(SimulationRunner runner, SimulationSpec spec, double velocity,
+                                        double position) {
+        double mass = spec.getMass();
+        double force = spec.getAppliedForce();
+        double seconds = spec.getSeconds();
+        String quantity = spec.getQuantity();
+
+        runner.run(mass, force, 0, spec.getAngle(), seconds);
+        double withoutFriction = runner.get(quantity);
+        runner.run(mass, force, spec.getFrictionCoefficient(), 0, seconds);
+        double withoutSlope = runner.get(quantity);
+
+        if (SimulationSpec.QUANTITY_POSITION.equals(quantity)) {
+            // x = v t (final instead of average velocity)
+            return new double[]{velocity * seconds, withoutFriction, withoutSlope};
+        } else if (SimulationSpec.QUANTITY_VELOCITY.equals(quantity)) {
+            // v = x / t (average instead of final velocity)
+            return new double[]{seconds > 0 ? position / seconds : 0, withoutFriction, withoutSlope};
+        } else {
+            // a = F / m (no opposing forces at all)
+            return new double[]{withoutFriction, withoutSlope, force / mass};
+        }
+    }
+
+    /**
+     * Add a distractor unless it repeats an option or would itself grade as correct
+     */
+    private static void addDistractor(List<String> options, double answer, double distractor, String quantity) {
+        String option = format(distractor, quantity);
+        if (options.size() < OPTION_COUNT && !options.contains(option) && !matches(answer, parseValue(option))) {
+            options.add(option);
+        }
+    }
+
+    /**
+     * Round the inputs to what {@link #questionText} prints
+     */
+    static void roundToDisplayed(SimulationSpec spec) {
+        spec.setMass(round(spec.getMass(), 1));
+        spec.setAppliedForce(round(spec.getAppliedForce(), 1));
+        spec.setFrictionCoefficient(round(spec.getFrictionCoefficient(), 2));
+        spec.setAngle(round(spec.getAngle(), 0));
+        spec.setSeconds(round(spec.getSeconds(), 1));
+    }
+
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    /**
+     * Whether an answer matches a fresh run of the spec's simulation
+     */
+    public static boolean verify(SimulationRunner runner, SimulationSpec spec, double answer) {
+        return matches(runner.measure(spec), answer);
+    }
+
+    private static boolean matches(double expected, double answer) {
+        double tolerance = Math.max(ABSOLUTE_TOLERANCE, RELATIVE_TOLERANCE * Math.abs(expected));
+        return Math.abs(answer - expected) <= tolerance;
+    }
+
+    /**
+     * Whether an option's text (e.g. "12.40 m/s") matches the simulation
+     */
+    public static boolean verifyOption(SimulationRunner runner, SimulationSpec spec, String option) {
+        double value = parseValue(option);
+        return !Double.isNaN(value) && verify(runner, spec, value);
+    }
+
+    /**
+     * First number in an option's text, or NaN if there is none
+     */
+    public static double parseValue(String option) {
+        if (option == null) return Double.NaN;
+        Matcher matcher = NUMBER.matcher(option);
+        return matcher.find() ? Double.parseDouble(matcher.group()) : Double.NaN;
+    }
+
+    public static String format(double value, String quantity) {
+        return String.format(Locale.US, "%.2f %s", value, unit(quantity));
+    }
+
+    public static String unit(String quantity) {
+        if (SimulationSpec.QUANTITY_VELOCITY.equals(quantity)) return "m/s";
+        if (SimulationSpec.QUANTITY_POSITION.equals(quantity)) return "m";
+        return "m/s²";
+    }
+
+    private static String questionText(SimulationSpec spec) {
+        String surface = spec.getAngle() > 0
+                ? String.format(Locale.US, "a %.0f° incline", spec.getAngle())
+                : "a level surface";
+        String direction = spec.getAngle() > 0 ? "up the slope" : "along the surface";
+        return String.format(Locale.US,
+                "A %.1f kg block starts at rest on %s. A %.1f N force pushes it %s, and the coefficient of "
+                        + "kinetic friction is %.2f. What is its %s after %.1f s? (g = 9.8 m/s²)",
+                spec.getMass(), surface, spec.getAppliedForce(), direction, spec.getFrictionCoefficient(),
+                spec.getQuantity(), spec.getSeconds());
+    }
+
+    private static String explanation(SimulationSpec spec, double acceleration, double velocity, double position) {
+        double netForce = acceleration * spec.getMass();
+        return String.format(Locale.US,
+                "Net force = F − μmg·cosθ − mg·sinθ = %.2f N, so a = F_net / m = %.2f m/s². "
+                        + "After %.1f s: v = a·t = %.2f m/s and x = ½·a·t² = %.2f m.",
+                netForce, acceleration, spec.getSeconds(), velocity, position);
+    }
+}
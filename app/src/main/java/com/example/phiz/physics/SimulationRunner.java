@@ -0,0 +1,81 @@
+package com.example.phiz.physics;
+
+import com.example.phiz.models.SimulationSpec;
+
+/**
+ * Headless, deterministic runs of the incline simulation.
+ *
+ * A run is a fixed number of {@link InclineEngine#FIXED_TIMESTEP} steps from
+ * rest with no wall clock involved, so the same parameters give the same result
+ * on every device and in unit tests. A runner reuses one engine and allocates
+ * nothing per run, so grading can re-run thousands of questions cheaply.
+ * Not thread-safe; use one runner per thread.
+ */
+public class SimulationRunner {
+    private final InclineEngine engine = new InclineEngine();
+
+    /**
+     * Number of fixed steps that make up the given simulated time
+     */
+    public static int stepsFor(double seconds) {
+        return (int) Math.round(seconds / InclineEngine.FIXED_TIMESTEP);
+    }
+
+    /**
+     * Run from rest for the given simulated time; read the outcome with the getters
+     */
+    public void run(double mass, double appliedForce, double frictionCoefficient, double angle, double seconds) {
+        engine.setParameters(mass, appliedForce, frictionCoefficient, angle);
+        engine.setBounds(0, Double.POSITIVE_INFINITY);
+        engine.reset();
+        int steps = stepsFor(seconds);
+        for (int i = 0; i < steps; i++) {
+            engine.step();
+        }
+    }
+
+    /**
+     * Run a question's simulation and return the quantity it asks for
+     */
+    public double measure(SimulationSpec spec) {
+        run(spec.getMass(), spec.getAppliedForce(), spec.getFrictionCoefficient(), spec.getAngle(), spec.getSeconds());
+        return get(spec.getQuantity());
+    }
+
+    /**
+     * Value of a {@link SimulationSpec} quantity after the last run
+     */
+    public double get(String quantity) {
+        if (SimulationSpec.QUANTITY_VELOCITY.equals(quantity)) return getVelocity();
+        if (SimulationSpec.QUANTITY_POSITION.equals(quantity)) return getPosition();
+        if (SimulationSpec.QUANTITY_ACCELERATION.equals(quantity)) return getAcceleration();
+        throw new IllegalArgumentException("Unknown quantity: " + quantity);
+    }
+
+    /**
+     * Whether the applied force overcomes friction and the slope, so the block moves at all
+     */
+    public boolean isMoving() {
+        return engine.getAcceleration() > 0;
+    }
+
+    public double getVelocity() {
+        return engine.getVelocity();
+    }
+
+    public double getPosition() {
+        return engine.getPosition();
+    }
+
+    public double getAcceleration() {
+        return engine.getAcceleration();
+    }
+
+    public double getTime() {
+        return engine.getTime();
+    }
+
+    public long getSteps() {
+        return engine.getSteps();
+    }
+}
@@ -1,28 +1,95 @@
 package com.example.phiz.views;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
 import android.util.AttributeSet;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Transparent drawing layer over the quiz.
+ *
+ * Touch handling on the UI thread only copies samples, including the batched
+ * historical ones, into a lock-free {@link StrokeQueue}. A render thread paced by
+ * its own Choreographer drains the queue once per vsync and draws everything that
+ * arrived since the last frame. Finished strokes are simplified into a compact
+ * {@link StrokeStore} and rasterized once, smoothed, into an offscreen bitmap, so
+ * a frame only copies that bitmap and draws the stroke in progress, and only
+ * within the rectangle around the new segments.
+ *
+ * {@link #getInk()} has the render thread encode the store with {@link InkCodec}
+ * ahead of any queued frame, and keeps the bytes until the next stroke or clear,
+ * so drawing never pays for encoding and a doodle is encoded once per save.
+ */
 public class DoodleView extends SurfaceView implements SurfaceHolder.Callback {
-    private Paint paint;
-    private List<Path> paths;
-    private List<Paint> paints;
-    private Path currentPath;
+    private static final String TAG = "DoodleView";
+
+    private static final long NO_SIZE = -1L;
+
+    // How long getInk() waits for the render thread before giving up on the ink
+    private static final long INK_TIMEOUT_MS = 250;
+
+    // Largest distance (px) a simplified stroke may stray from the touch samples
+    private static final float SIMPLIFY_TOLERANCE = 1.0f;
+
+    private Paint paint;  // Current color and width, applied to the next stroke
     private boolean isDrawingEnabled = false;
     private SurfaceHolder surfaceHolder;
 
+    // ==================== UI THREAD -> RENDER THREAD ====================
+
+    private final StrokeQueue queue = new StrokeQueue(StrokeQueue.DEFAULT_CAPACITY);
+    private final AtomicLong pendingSize = new AtomicLong(NO_SIZE);  // width << 32 | height
+    private final AtomicBoolean frameRequested = new AtomicBoolean(false);
+    private HandlerThread renderThread;
+    private Handler renderHandler;
+
+    private final AtomicInteger pendingClears = new AtomicInteger();
+
+    // ==================== RENDER THREAD ====================
+
+    private final StrokeStore strokes = new StrokeStore();
+    private byte[] encodedInk;  // The store as last encoded by getInk()
+    private boolean inkDirty;  // A stroke was committed since
+    private Paint strokePaint;  // Shared by all strokes; color and width are set per style
+    private final Path currentPath = new Path();  // Raw samples of the stroke in progress
+    private int currentStyle = -1;
+    private final Path replayPath = new Path();
+    private final float[] strokeBounds = new float[4];
+
+    // Committed strokes, rasterized; rebuilt from the store only when the size changes
+    private Bitmap inkBitmap;
+    private Canvas inkCanvas;
+    private int surfaceWidth, surfaceHeight;
+
+    private Choreographer choreographer;
+    private float lastX, lastY;
+    private final Rect dirtyRect = new Rect();
+    private final Rect segmentRect = new Rect();
+    private boolean hasDirtyRegion;
+    private boolean fullRedraw;
+
     public DoodleView(Context context) {
         super(context);
         init();
@@ -51,9 +118,7 @@ public class DoodleView extends SurfaceView implements SurfaceHolder.Callback {
         paint.setStrokeCap(Paint.Cap.ROUND);
         paint.setStrokeJoin(Paint.Join.ROUND);
         paint.setAntiAlias(true);
-
-        paths = new ArrayList<>();
-        paints = new ArrayList<>();
+        strokePaint = new Paint(paint);
     }
 
     public void setDrawingEnabled(boolean enabled) {
@@ -65,9 +130,10 @@ public class DoodleView extends SurfaceView implements SurfaceHolder.Callback {
     }
 
     public void clearDoodle() {
-        paths.clear();
-        paints.clear();
-        drawCanvas();
+        if (queue.offerClear()) {
+            pendingClears.incrementAndGet();
+        }
+        requestFrame();
     }
 
     public void setColor(int color) {
@@ -78,56 +144,324 @@ public class DoodleView extends SurfaceView implements SurfaceHolder.Callback {
         paint.setStrokeWidth(width);
     }
 
+    /**
+     * The committed strokes as {@link InkCodec} bytes, or null if nothing is drawn.
+     * A stroke still in progress, or finished within the last frame, isn't included.
+     * Waits up to INK_TIMEOUT_MS for the render thread, which owns the strokes.
+     */
+    public byte[] getInk() {
+        // Anything drawn after a queued clear is still queued behind it
+        if (pendingClears.get() > 0) return null;
+
+        Handler handler = renderHandler;
+        if (handler == null) {
+            // No render thread, so nothing else touches the strokes
+            return encodeInk();
+        }
+        FutureTask<byte[]> task = new FutureTask<>(this::encodeInk);
+        handler.postAtFrontOfQueue(task);
+        try {
+            return task.get(INK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Could not encode ink", e);
+            return null;
+        }
+    }
+
+    // ==================== INPUT (UI THREAD) ====================
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (!isDrawingEnabled) {
             return false;
         }
 
-        float x = event.getX();
-        float y = event.getY();
-
-        switch (event.getAction()) {
+        switch (event.getActionMasked()) {
             case MotionEvent.ACTION_DOWN:
-                currentPath = new Path();
-                currentPath.moveTo(x, y);
-
-                // Create a new paint with current settings
-                Paint pathPaint = new Paint(paint);
-                paths.add(currentPath);
-                paints.add(pathPaint);
+                queue.offerDown(event.getX(), event.getY(), paint.getColor(), paint.getStrokeWidth());
+                requestFrame();
                 return true;
 
             case MotionEvent.ACTION_MOVE:
-                if (currentPath != null) {
-                    currentPath.lineTo(x, y);
-                    drawCanvas();
+                // Samples the system batched since the last event, oldest first, then the latest
+                for (int h = 0; h < event.getHistorySize(); h++) {
+                    queue.offerMove(event.getHistoricalX(h), event.getHistoricalY(h));
                 }
+                queue.offerMove(event.getX(), event.getY());
+                requestFrame();
                 return true;
 
             case MotionEvent.ACTION_UP:
-                currentPath = null;
+            case MotionEvent.ACTION_CANCEL:
+                queue.offerUp();
+                requestFrame();
                 return true;
         }
 
         return false;
     }
 
-    private void drawCanvas() {
+    /**
+     * Schedule one frame on the render thread, unless one is already coming
+     */
+    private void requestFrame() {
+        if (renderHandler != null && frameRequested.compareAndSet(false, true)) {
+            renderHandler.post(scheduleFrame);
+        }
+    }
+
+    // ==================== SURFACE LIFECYCLE (UI THREAD) ====================
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        renderThread = new HandlerThread("DoodleRender", Process.THREAD_PRIORITY_DISPLAY);
+        renderThread.start();
+        renderHandler = new Handler(renderThread.getLooper());
+        renderHandler.post(() -> {
+            // Choreographer is per-looper: this one delivers vsync to the render thread
+            choreographer = Choreographer.getInstance();
+            fullRedraw = true;
+        });
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        pendingSize.set(((long) width << 32) | (height & 0xFFFFFFFFL));
+        requestFrame();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        // The surface must not be drawn into after this returns, so wait for the render thread to finish
+        Handler handler = renderHandler;
+        renderHandler = null;
+        if (handler == null) return;
+
+        handler.removeCallbacksAndMessages(null);
+        renderThread.quitSafely();
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Interrupted waiting for render thread", e);
+            Thread.currentThread().interrupt();
+        }
+        renderThread = null;
+        frameRequested.set(false);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // The render thread is gone by now (surfaceDestroyed comes first), so the bitmap is ours
+        if (renderThread == null && inkBitmap != null) {
+            inkBitmap.recycle();
+            inkBitmap = null;
+            inkCanvas = null;
+        }
+    }
+
+    // ==================== RENDER THREAD ====================
+
+    private final Runnable scheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            if (choreographer != null) {
+                choreographer.postFrameCallback(frameCallback);
+            }
+        }
+    };
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameRequested.set(false);
+
+            long size = pendingSize.getAndSet(NO_SIZE);
+            if (size != NO_SIZE) {
+                int width = (int) (size >>> 32);
+                int height = (int) size;
+                surfaceWidth = width;
+                surfaceHeight = height;
+                if (inkBitmap == null || inkBitmap.getWidth() != width || inkBitmap.getHeight() != height) {
+                    rebuildInkBitmap(width, height);
+                }
+                fullRedraw = true;
+            }
+
+            queue.drain(inputSink);
+
+            if (fullRedraw) {
+                drawRegion(null);
+            } else if (hasDirtyRegion && inkBitmap != null
+                    && dirtyRect.intersect(0, 0, inkBitmap.getWidth(), inkBitmap.getHeight())) {
+                drawRegion(dirtyRect);
+            }
+            fullRedraw = false;
+            hasDirtyRegion = false;
+        }
+    };
+
+    /**
+     * Applies drained input to the strokes and grows this frame's dirty region
+     */
+    private final StrokeQueue.Sink inputSink = new StrokeQueue.Sink() {
+        @Override
+        public void onDown(float x, float y, int color, float strokeWidth) {
+            commitCurrentStroke();
+            currentStyle = strokes.styleId(color, strokeWidth);
+            strokes.beginStroke(x, y, currentStyle);
+            currentPath.rewind();
+            currentPath.moveTo(x, y);
+            lastX = x;
+            lastY = y;
+        }
+
+        @Override
+        public void onMove(float x, float y) {
+            if (currentStyle < 0) return;
+            strokes.addPoint(x, y);
+            currentPath.lineTo(x, y);
+            addDirtySegment(lastX, lastY, x, y, strokes.getStyleWidth(currentStyle));
+            lastX = x;
+            lastY = y;
+        }
+
+        @Override
+        public void onUp() {
+            commitCurrentStroke();
+        }
+
+        @Override
+        public void onClear() {
+            strokes.clear();
+            encodedInk = null;
+            inkDirty = false;
+            pendingClears.decrementAndGet();
+            currentPath.rewind();
+            currentStyle = -1;
+            if (inkBitmap != null) {
+                inkBitmap.eraseColor(Color.TRANSPARENT);
+            }
+            fullRedraw = true;
+        }
+    };
+
+    /**
+     * Simplify the finished stroke into the store and rasterize its smoothed form.
+     * The screen shows the raw samples until now, so the stroke's area is redrawn.
+     */
+    private void commitCurrentStroke() {
+        if (currentStyle < 0) return;
+        int stroke = strokes.commitStroke(SIMPLIFY_TOLERANCE);
+        currentPath.rewind();
+        currentStyle = -1;
+        if (inkCanvas != null) {
+            drawStroke(inkCanvas, stroke);
+        }
+
+        strokes.getBounds(stroke, strokeBounds);
+        addDirtySegment(strokeBounds[0], strokeBounds[1], strokeBounds[2], strokeBounds[3],
+                strokes.getStyleWidth(strokes.getStrokeStyle(stroke)));
+        inkDirty = true;
+    }
+
+    /**
+     * The committed strokes as ink, encoded only if a stroke was committed since the last call
+     */
+    private byte[] encodeInk() {
+        if (inkDirty) {
+            encodedInk = InkCodec.encode(strokes, surfaceWidth, surfaceHeight, InkCodec.DEFAULT_MAX_BYTES);
+            inkDirty = false;
+        }
+        return encodedInk;
+    }
+
+    private void drawStroke(Canvas canvas, int stroke) {
+        int style = strokes.getStrokeStyle(stroke);
+        strokePaint.setColor(strokes.getStyleColor(style));
+        strokePaint.setStrokeWidth(strokes.getStyleWidth(style));
+        replayPath.rewind();
+        strokes.replay(stroke, pathBuilder);
+        canvas.drawPath(replayPath, strokePaint);
+    }
+
+    private final StrokeStore.PathSink pathBuilder = new StrokeStore.PathSink() {
+        @Override
+        public void moveTo(float x, float y) {
+            replayPath.moveTo(x, y);
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+            replayPath.lineTo(x, y);
+        }
+
+        @Override
+        public void quadTo(float controlX, float controlY, float x, float y) {
+            replayPath.quadTo(controlX, controlY, x, y);
+        }
+    };
+
+    /**
+     * Add a segment's bounds, padded by half the stroke width plus a pixel for anti-aliasing
+     */
+    private void addDirtySegment(float x1, float y1, float x2, float y2, float strokeWidth) {
+        int pad = (int) Math.ceil(strokeWidth / 2) + 1;
+        segmentRect.set((int) Math.floor(Math.min(x1, x2)) - pad, (int) Math.floor(Math.min(y1, y2)) - pad,
+                (int) Math.ceil(Math.max(x1, x2)) + pad, (int) Math.ceil(Math.max(y1, y2)) + pad);
+        if (hasDirtyRegion) {
+            dirtyRect.union(segmentRect);
+        } else {
+            dirtyRect.set(segmentRect);
+            hasDirtyRegion = true;
+        }
+    }
+
+    /**
+     * Rasterize all committed strokes into a bitmap of the given size
+     */
+    private void rebuildInkBitmap(int width, int height) {
+        if (inkBitmap != null) {
+            inkBitmap.recycle();
+        }
+        inkBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        inkCanvas = new Canvas(inkBitmap);
+        for (int i = 0; i < strokes.getStrokeCount(); i++) {
+            drawStroke(inkCanvas, i);
+        }
+    }
+
+    /**
+     * Redraw a region of the surface (all of it if dirty is null) from the ink
+     * bitmap plus the stroke in progress. The surface may grow the region, so
+     * everything inside the returned rect is repainted.
+     */
+    private void drawRegion(Rect dirty) {
         if (surfaceHolder == null || !surfaceHolder.getSurface().isValid()) {
             return;
         }
 
         Canvas canvas = null;
         try {
-            canvas = surfaceHolder.lockCanvas();
+            canvas = surfaceHolder.lockCanvas(dirty);
             if (canvas != null) {
                 // Clear the canvas with transparent
                 canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
 
-                // Draw all paths
-                for (int i = 0; i < paths.size(); i++) {
-                    canvas.drawPath(paths.get(i), paints.get(i));
+                if (inkBitmap != null) {
+                    if (dirty != null) {
+                        canvas.drawBitmap(inkBitmap, dirty, dirty, null);
+                    } else {
+                        canvas.drawBitmap(inkBitmap, 0, 0, null);
+                    }
+                }
+                if (currentStyle >= 0) {
+                    strokePaint.setColor(strokes.getStyleColor(currentStyle));
+                    strokePaint.setStrokeWidth(strokes.getStyleWidth(currentStyle));
+                    canvas.drawPath(currentPath, strokePaint);
                 }
             }
         } catch (Exception e) {
@@ -142,19 +476,4 @@ public class DoodleView extends SurfaceView implements SurfaceHolder.Callback {
             }
         }
     }
-
-    @Override
-    public void surfaceCreated(SurfaceHolder holder) {
-        drawCanvas();
-    }
-
-    @Override
-    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
-        drawCanvas();
-    }
-
-    @Override
-    public void surfaceDestroyed(SurfaceHolder holder) {
-        // Clean up if needed
-    }
 }
@@ -0,0 +1,118 @@
+package com.example.phiz.views;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Frame-time statistics over a rolling window of recent frames.
+ *
+ * The render thread reports each vsync timestamp; anyone can take a
+ * {@link Snapshot} of the interval distribution. A frame counts as janky when
+ * it took more than 1.5 refresh periods, i.e. at least one vsync was missed.
+ */
+public class FrameStats {
+    public static final int DEFAULT_WINDOW = 240;
+
+    private static final double JANK_THRESHOLD = 1.5;
+
+    /**
+     * Immutable view of the statistics at one point in time
+     */
+    public static class Snapshot {
+        public final int frames;
+        public final double meanMs;
+        public final double p50Ms;
+        public final double p95Ms;
+        public final double p99Ms;
+        public final double maxMs;
+        public final int jankFrames;
+        public final double refreshRateHz;
+
+        Snapshot(int frames, double meanMs, double p50Ms, double p95Ms, double p99Ms, double maxMs,
+                 int jankFrames, double refreshRateHz) {
+            this.frames = frames;
+            this.meanMs = meanMs;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+            this.jankFrames = jankFrames;
+            this.refreshRateHz = refreshRateHz;
+        }
+
+        public double getFps() {
+            return meanMs > 0 ? 1000.0 / meanMs : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d frames @ %.0f Hz: mean %.2f ms (%.1f fps), p50 %.2f, p95 %.2f, p99 %.2f, max %.2f ms, %d janky",
+                    frames, refreshRateHz, meanMs, getFps(), p50Ms, p95Ms, p99Ms, maxMs, jankFrames);
+        }
+    }
+
+    private final long[] intervals;  // Ring buffer of frame intervals in nanoseconds
+    private int count;
+    private int next;
+    private long lastFrameNanos;
+    private double refreshRateHz = 60.0;
+
+    public FrameStats(int window) {
+        this.intervals = new long[window];
+    }
+
+    public synchronized void setRefreshRate(double refreshRateHz) {
+        if (refreshRateHz > 0) this.refreshRateHz = refreshRateHz;
+    }
+
+    /**
+     * Record a frame by its vsync timestamp
+     */
+    public synchronized void onFrame(long frameTimeNanos) {
+        if (lastFrameNanos != 0 && frameTimeNanos > lastFrameNanos) {
+            intervals[next] = frameTimeNanos - lastFrameNanos;
+            next = (next + 1) % intervals.length;
+            if (count < intervals.length) count++;
+        }
+        lastFrameNanos = frameTimeNanos;
+    }
+
+    /**
+     * Forget the previous frame, e.g. when rendering pauses, so the gap isn't counted
+     */
+    public synchronized void pause() {
+        lastFrameNanos = 0;
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        next = 0;
+        lastFrameNanos = 0;
+    }
+
+    public synchronized Snapshot snapshot() {
+        if (count == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0, 0, refreshRateHz);
+        }
+
+        long[] sorted = Arrays.copyOf(intervals, count);
+        Arrays.sort(sorted);
+
+        long jankNanos = (long) (JANK_THRESHOLD * 1e9 / refreshRateHz);
+        long total = 0;
+        int jank = 0;
+        for (long interval : sorted) {
+            total += interval;
+            if (interval > jankNanos) jank++;
+        }
+
+        return new Snapshot(count, total / 1e6 / count, percentile(sorted, 0.50), percentile(sorted, 0.95),
+                percentile(sorted, 0.99), sorted[count - 1] / 1e6, jank, refreshRateHz);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
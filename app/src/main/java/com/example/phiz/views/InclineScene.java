@@ -0,0 +1,173 @@
+package com.example.phiz.views;
+
+/**
+ * Drawing geometry for the incline simulation, kept free of Android classes.
+ *
+ * Everything that only depends on the parameters (trig, force magnitudes,
+ * arrowhead offsets) is computed in {@link #setParameters}. {@link #update}
+ * then places the block and its force vectors for a frame by filling
+ * preallocated fields, so drawing a frame allocates nothing.
+ */
+public class InclineScene {
+    public static final int VECTOR_GRAVITY = 0;
+    public static final int VECTOR_NORMAL = 1;
+    public static final int VECTOR_APPLIED = 2;
+    public static final int VECTOR_FRICTION = 3;
+    public static final int VECTOR_COUNT = 4;
+
+    private static final float GRAVITY = 9.8f;
+    private static final float SURFACE_HEIGHT_RATIO = 0.7f;
+    private static final float ARROW_SIZE = 20f;
+
+    // Pixels per newton when drawing force vectors
+    private static final float VERTICAL_FORCE_SCALE = 2f;
+    private static final float HORIZONTAL_FORCE_SCALE = 3f;
+
+    private final float objectSize;
+
+    // Per-parameter cache
+    private float tanAngle;
+    private float frictionCoefficient;
+    private final float[] vectorDx = new float[VECTOR_COUNT];
+    private final float[] vectorDy = new float[VECTOR_COUNT];
+    private final float[] arrowOffsets = new float[VECTOR_COUNT * 4];  // x1, y1, x2, y2 per vector
+    private final boolean[] vectorEnabled = new boolean[VECTOR_COUNT];
+
+    // Per-size cache
+    private int width;
+    private float surfaceY;
+    private float surfaceEndY;
+
+    // Per-frame output
+    private float objectX;
+    private float objectY;
+    private final float[] vectorEnds = new float[VECTOR_COUNT * 2];  // x, y per vector
+    private final float[] arrowPoints = new float[VECTOR_COUNT * 4];  // x1, y1, x2, y2 per vector
+    private final boolean[] vectorVisible = new boolean[VECTOR_COUNT];
+
+    public InclineScene(float objectSize) {
+        this.objectSize = objectSize;
+    }
+
+    public void setParameters(float mass, float appliedForce, float frictionCoefficient, float angle) {
+        double angleRad = Math.toRadians(angle);
+        float cosAngle = (float) Math.cos(angleRad);
+        this.tanAngle = (float) Math.tan(angleRad);
+        this.frictionCoefficient = frictionCoefficient;
+
+        float gravityForce = mass * GRAVITY;
+        float normalForce = mass * GRAVITY * cosAngle;
+
+        setVector(VECTOR_GRAVITY, 0, gravityForce * VERTICAL_FORCE_SCALE, true);
+        setVector(VECTOR_NORMAL, 0, -normalForce * VERTICAL_FORCE_SCALE, true);
+        setVector(VECTOR_APPLIED, appliedForce * cosAngle * HORIZONTAL_FORCE_SCALE, 0, appliedForce > 0);
+        setVector(VECTOR_FRICTION, -(frictionCoefficient * normalForce * HORIZONTAL_FORCE_SCALE), 0,
+                frictionCoefficient > 0);
+
+        updateSurface();
+    }
+
+    private void setVector(int index, float dx, float dy, boolean enabled) {
+        vectorDx[index] = dx;
+        vectorDy[index] = dy;
+        vectorEnabled[index] = enabled;
+
+        // The arrowhead only depends on the vector's direction
+        double direction = Math.atan2(dy, dx);
+        arrowOffsets[index * 4] = (float) (-ARROW_SIZE * Math.cos(direction - Math.PI / 6));
+        arrowOffsets[index * 4 + 1] = (float) (-ARROW_SIZE * Math.sin(direction - Math.PI / 6));
+        arrowOffsets[index * 4 + 2] = (float) (-ARROW_SIZE * Math.cos(direction + Math.PI / 6));
+        arrowOffsets[index * 4 + 3] = (float) (-ARROW_SIZE * Math.sin(direction + Math.PI / 6));
+    }
+
+    public void setSize(int width, int height) {
+        this.width = width;
+        this.surfaceY = height * SURFACE_HEIGHT_RATIO;
+        updateSurface();
+    }
+
+    private void updateSurface() {
+        surfaceEndY = surfaceY - width * tanAngle;
+    }
+
+    /**
+     * Place the block (left edge at objectX) and its force vectors for this frame.
+     * Friction is only drawn while the block is moving.
+     */
+    public void update(float objectX, boolean moving) {
+        this.objectX = objectX;
+        this.objectY = surfaceY - objectSize - objectX * tanAngle;
+
+        float centerX = getCenterX();
+        float centerY = getCenterY();
+        for (int i = 0; i < VECTOR_COUNT; i++) {
+            float endX = centerX + vectorDx[i];
+            float endY = centerY + vectorDy[i];
+            vectorEnds[i * 2] = endX;
+            vectorEnds[i * 2 + 1] = endY;
+            arrowPoints[i * 4] = endX + arrowOffsets[i * 4];
+            arrowPoints[i * 4 + 1] = endY + arrowOffsets[i * 4 + 1];
+            arrowPoints[i * 4 + 2] = endX + arrowOffsets[i * 4 + 2];
+            arrowPoints[i * 4 + 3] = endY + arrowOffsets[i * 4 + 3];
+            vectorVisible[i] = vectorEnabled[i];
+        }
+        vectorVisible[VECTOR_FRICTION] = vectorEnabled[VECTOR_FRICTION] && moving && frictionCoefficient > 0;
+    }
+
+    // ==================== FRAME GEOMETRY ====================
+
+    public float getSurfaceStartY() {
+        return surfaceY;
+    }
+
+    public float getSurfaceEndY() {
+        return surfaceEndY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public float getObjectX() {
+        return objectX;
+    }
+
+    public float getObjectY() {
+        return objectY;
+    }
+
+    public float getObjectSize() {
+        return objectSize;
+    }
+
+    public float getCenterX() {
+        return objectX + objectSize / 2;
+    }
+
+    public float getCenterY() {
+        return objectY + objectSize / 2;
+    }
+
+    public boolean isVectorVisible(int vector) {
+        return vectorVisible[vector];
+    }
+
+    public float getVectorEndX(int vector) {
+        return vectorEnds[vector * 2];
+    }
+
+    public float getVectorEndY(int vector) {
+        return vectorEnds[vector * 2 + 1];
+    }
+
+    /**
+     * Arrowhead corner (0 or 1) of a vector, x coordinate
+     */
+    public float getArrowX(int vector, int corner) {
+        return arrowPoints[vector * 4 + corner * 2];
+    }
+
+    public float getArrowY(int vector, int corner) {
+        return arrowPoints[vector * 4 + corner * 2 + 1];
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.phiz.views;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary format for saved doodles.
+ *
+ * Coordinates are quantized to a grid and each point is stored as the zigzag
+ * varint delta from the previous one, so most points of a simplified stroke
+ * take two bytes. Layout:
+ *
+ *   version, width, height, grid step (px), style count,
+ *   per style: color (4 bytes, big-endian), width (quarter px),
+ *   per stroke until the end: style, point count, point deltas (x, y).
+ *
+ * All numbers except colors are unsigned varints. If the ink doesn't fit the
+ * byte budget the grid is coarsened, then every stroke keeps only every n-th
+ * point (and its ends), and as a last resort the oldest strokes are dropped,
+ * so a saved doodle never exceeds the budget.
+ */
+public final class InkCodec {
+    public static final int VERSION = 1;
+
+    // A few KB per question keeps a quiz's ink well under Firestore's 1 MB document limit
+    public static final int DEFAULT_MAX_BYTES = 8 * 1024;
+
+    // Grid steps (px) tried in order until the ink fits
+    private static final int[] GRID_STEPS = {1, 2, 4, 8};
+
+    /**
+     * Size of the canvas the ink was drawn on, and the grid it was stored with
+     */
+    public static final class Header {
+        public final int width;
+        public final int height;
+        public final int gridStep;
+
+        Header(int width, int height, int gridStep) {
+            this.width = width;
+            this.height = height;
+            this.gridStep = gridStep;
+        }
+    }
+
+    private InkCodec() {
+    }
+
+    // ==================== ENCODING ====================
+
+    /**
+     * Encode every committed stroke in the store
+     *
+     * @return the ink, or null if the store has no strokes or even the newest
+     *         one, reduced to its ends, doesn't fit into maxBytes
+     */
+    public static byte[] encode(StrokeStore strokes, int width, int height, int maxBytes) {
+        if (strokes.getStrokeCount() == 0) return null;
+
+        Writer writer = new Writer(Math.min(maxBytes, 1024));
+        for (int step : GRID_STEPS) {
+            writer.reset();
+            write(writer, strokes, width, height, step, 1, 0);
+            if (writer.size <= maxBytes) return writer.toByteArray();
+        }
+
+        // Still too big at the coarsest grid: downsample every stroke alike
+        int longest = 0;
+        for (int stroke = 0; stroke < strokes.getStrokeCount(); stroke++) {
+            longest = Math.max(longest, strokes.getStrokePointCount(stroke));
+        }
+        int step = GRID_STEPS[GRID_STEPS.length - 1];
+        int stride = 2;
+        for (; stride < longest * 2; stride *= 2) {
+            writer.reset();
+            write(writer, strokes, width, height, step, stride, 0);
+            if (writer.size <= maxBytes) return writer.toByteArray();
+        }
+
+        // Every stroke is down to its ends: keep as many of the newest strokes as fit
+        int low = 1, high = strokes.getStrokeCount();  // First stroke kept; high keeps none
+        while (low < high) {
+            int first = (low + high) >>> 1;
+            writer.reset();
+            write(writer, strokes, width, height, step, stride, first);
+            if (writer.size <= maxBytes) {
+                high = first;
+            } else {
+                low = first + 1;
+            }
+        }
+        if (low == strokes.getStrokeCount()) return null;
+        writer.reset();
+        write(writer, strokes, width, height, step, stride, low);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Write the header and every stroke from the first one on, keeping each
+     * stroke's first and last point and every stride-th point between
+     */
+    private static void write(Writer writer, StrokeStore strokes, int width, int height, int step,
+                              int stride, int first) {
+        writer.writeVarint(VERSION);
+        writer.writeVarint(Math.max(0, width));
+        writer.writeVarint(Math.max(0, height));
+        writer.writeVarint(step);
+        writer.writeVarint(strokes.getStyleCount());
+        for (int i = 0; i < strokes.getStyleCount(); i++) {
+            writer.writeInt(strokes.getStyleColor(i));
+            writer.writeVarint(Math.round(strokes.getStyleWidth(i) * 4));
+        }
+
+        int previousX = 0, previousY = 0;
+        for (int stroke = first; stroke < strokes.getStrokeCount(); stroke++) {
+            int count = strokes.getStrokePointCount(stroke);
+            int last = count - 1;
+            int kept = count <= 1 ? count : last / stride + (last % stride != 0 ? 2 : 1);
+            writer.writeVarint(strokes.getStrokeStyle(stroke));
+            writer.writeVarint(kept);
+            for (int k = 0; k < kept; k++) {
+                int i = Math.min(k * stride, last);
+                int x = Math.round(strokes.getX(stroke, i) / step);
+                int y = Math.round(strokes.getY(stroke, i) / step);
+                writer.writeVarint(zigzag(x - previousX));
+                writer.writeVarint(zigzag(y - previousY));
+                previousX = x;
+                previousY = y;
+            }
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // ==================== DECODING ====================
+
+    /**
+     * Read the header only, without decoding the strokes
+     *
+     * @throws IllegalArgumentException if the data isn't ink this codec can read
+     */
+    public static Header readHeader(byte[] data) {
+        return readHeader(new Reader(data));
+    }
+
+    /**
+     * Add the strokes in data to the store, in canvas pixels
+     *
+     * @throws IllegalArgumentException if the data isn't ink this codec can read
+     */
+    public static Header decode(byte[] data, StrokeStore into) {
+        Reader reader = new Reader(data);
+        Header header = readHeader(reader);
+
+        // Each style takes at least 5 bytes, so a count beyond that is corrupt, not a size to allocate
+        int styleCount = reader.readVarint();
+        if (styleCount < 0 || styleCount > reader.remaining() / 5) {
+            throw new IllegalArgumentException("Corrupt ink styles");
+        }
+        int[] styles = new int[styleCount];
+        for (int i = 0; i < styleCount; i++) {
+            int color = reader.readInt();
+            float width = reader.readVarint() / 4f;
+            styles[i] = into.styleId(color, width);
+        }
+
+        float step = header.gridStep;
+        float[] xy = new float[64];
+        int previousX = 0, previousY = 0;
+        while (reader.hasMore()) {
+            int style = reader.readVarint();
+            int count = reader.readVarint();
+            // Each point takes at least 2 bytes
+            if (style < 0 || style >= styleCount || count < 0 || count > reader.remaining() / 2) {
+                throw new IllegalArgumentException("Corrupt ink stroke");
+            }
+            if (xy.length < count * 2) {
+                xy = new float[Math.max(count * 2, xy.length * 2)];
+            }
+            for (int i = 0; i < count; i++) {
+                previousX += unzigzag(reader.readVarint());
+                previousY += unzigzag(reader.readVarint());
+                xy[i * 2] = previousX * step;
+                xy[i * 2 + 1] = previousY * step;
+            }
+            into.addStroke(styles[style], xy, 0, count);
+        }
+        return header;
+    }
+
+    private static Header readHeader(Reader reader) {
+        int version = reader.readVarint();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported ink version: " + version);
+        }
+        int width = reader.readVarint();
+        int height = reader.readVarint();
+        int step = reader.readVarint();
+        if (step <= 0 || width < 0 || height < 0) {
+            throw new IllegalArgumentException("Corrupt ink header");
+        }
+        return new Header(width, height, step);
+    }
+
+    // ==================== BYTES ====================
+
+    private static final class Writer {
+        byte[] buffer;
+        int size;
+
+        Writer(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[size++] = (byte) (value >>> 24);
+            buffer[size++] = (byte) (value >>> 16);
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(size + extra, buffer.length * 2));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        final byte[] data;
+        int position;
+
+        Reader(byte[] data) {
+            if (data == null) throw new IllegalArgumentException("No ink");
+            this.data = data;
+        }
+
+        boolean hasMore() {
+            return position < data.length;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= data.length) {
+                    throw new IllegalArgumentException("Truncated ink");
+                }
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Corrupt ink varint");
+        }
+
+        int readInt() {
+            if (remaining() < 4) {
+                throw new IllegalArgumentException("Truncated ink");
+            }
+            int value = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+                    | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.phiz.views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * Read-only view of a saved doodle, scaled to fit its width.
+ *
+ * The ink is decoded and turned into paths on the first draw rather than in
+ * {@link #setInk}, so views that never scroll into sight cost nothing but their bytes.
+ */
+public class InkView extends View {
+    private static final String TAG = "InkView";
+
+    private byte[] ink;
+    private InkCodec.Header header;
+
+    // Built on first draw
+    private Path[] paths;
+    private int[] pathStyles;
+    private StrokeStore strokes;
+
+    private final Paint paint = new Paint();
+
+    public InkView(Context context) {
+        super(context);
+        init();
+    }
+
+    public InkView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setStrokeJoin(Paint.Join.ROUND);
+        paint.setAntiAlias(true);
+    }
+
+    public void setInk(byte[] ink) {
+        this.ink = ink;
+        this.paths = null;
+        this.strokes = null;
+        try {
+            header = ink != null ? InkCodec.readHeader(ink) : null;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Unreadable ink", e);
+            header = null;
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = 0;
+        if (header != null && header.width > 0) {
+            // Keep the aspect of the screen it was drawn on
+            height = (int) ((long) width * header.height / header.width);
+        }
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (header == null || header.width <= 0) return;
+        if (paths == null && !buildPaths()) return;
+
+        float scale = Math.min((float) getWidth() / header.width, (float) getHeight() / header.height);
+        canvas.save();
+        canvas.scale(scale, scale);
+        for (int i = 0; i < paths.length; i++) {
+            paint.setColor(strokes.getStyleColor(pathStyles[i]));
+            paint.setStrokeWidth(strokes.getStyleWidth(pathStyles[i]));
+            canvas.drawPath(paths[i], paint);
+        }
+        canvas.restore();
+    }
+
+    private boolean buildPaths() {
+        StrokeStore decoded = new StrokeStore();
+        try {
+            InkCodec.decode(ink, decoded);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Unreadable ink", e);
+            header = null;
+            return false;
+        }
+
+        strokes = decoded;
+        paths = new Path[decoded.getStrokeCount()];
+        pathStyles = new int[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            Path path = new Path();
+            decoded.replay(i, new StrokeStore.PathSink() {
+                @Override
+                public void moveTo(float x, float y) {
+                    path.moveTo(x, y);
+                }
+
+                @Override
+                public void lineTo(float x, float y) {
+                    path.lineTo(x, y);
+                }
+
+                @Override
+                public void quadTo(float controlX, float controlY, float x, float y) {
+                    path.quadTo(controlX, controlY, x, y);
+                }
+            });
+            paths[i] = path;
+            pathStyles[i] = decoded.getStrokeStyle(i);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.phiz.views;
+
+/**
+ * Controls shared by the incline simulation renderers, so the activity can use
+ * either the View-based {@link PhysicsSimulationView} or the render-thread
+ * {@link PhysicsSimulationSurfaceView}.
+ */
+public interface PhysicsSimulation {
+
+    void setParameters(float mass, float force, float friction, float angle);
+
+    void startAnimation();
+
+    void stopAnimation();
+
+    void reset();
+
+    void setOnPhysicsUpdateListener(PhysicsSimulationView.OnPhysicsUpdateListener listener);
+}
@@ -0,0 +1,575 @@
+package com.example.phiz.views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.phiz.R;
+import com.example.phiz.physics.InclineEngine;
+import com.example.phiz.physics.ScenarioEngine;
+import com.example.phiz.physics.Scenarios;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Incline simulation, or one of the {@link Scenarios} multi-body setups, drawn on
+ * its own render thread into a hardware-accelerated surface.
+ *
+ * The render thread owns the engine and scene and is paced by its own Choreographer,
+ * so it follows the display's refresh rate (60/90/120 Hz) and main-thread work
+ * (slider layout, text updates) can't delay a frame. The UI thread never blocks on
+ * it: parameters, commands and size changes are handed over through atomics and
+ * picked up at the start of the next frame, and readouts come back through a
+ * single coalesced post to the main thread.
+ */
+public class PhysicsSimulationSurfaceView extends SurfaceView implements SurfaceHolder.Callback, PhysicsSimulation {
+    private static final String TAG = "PhysicsSurfaceView";
+
+    private static final float ORIGIN_X = 100f;
+    private static final float PIXELS_PER_METER = 20f;
+    private static final float OBJECT_SIZE = 80f;
+
+    private static final int[] VECTOR_COLORS = {Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW};
+    private static final String[] VECTOR_LABELS = {"Fg", "Fn", "Fa", "Ff"};
+
+    // Commands from the UI thread; only the latest one matters, as each fully defines the state
+    private static final int COMMAND_NONE = 0;
+    private static final int COMMAND_START = 1;
+    private static final int COMMAND_STOP = 2;
+    private static final int COMMAND_RESET = 3;
+
+    private static final long NO_SIZE = -1L;
+
+    // What is simulated; everything but the incline runs on a ScenarioEngine
+    public static final int SCENARIO_INCLINE = 0;
+    public static final int SCENARIO_PROJECTILE = 1;
+    public static final int SCENARIO_ATWOOD = 2;
+    public static final int SCENARIO_SPRING_CHAIN = 3;
+    public static final int SCENARIO_BALL_PIT = 4;
+
+    // World area shown for each scenario: minX, minY, maxX, maxY in metres
+    private static final float[][] SCENARIO_VIEWPORTS = {
+            null,
+            {-1f, -0.5f, 17f, 6f},
+            {-1.5f, -2.2f, 1.5f, 2.7f},
+            {-2.5f, -5f, 2.5f, 0.5f},
+            {0f, 0f, 4f, 3f},
+    };
+    private static final float MIN_BODY_PIXELS = 3f;
+
+    // ==================== UI THREAD -> RENDER THREAD ====================
+
+    private final AtomicReference<float[]> pendingParameters = new AtomicReference<>();
+    private final AtomicInteger pendingCommand = new AtomicInteger(COMMAND_NONE);
+    private final AtomicLong pendingSize = new AtomicLong(NO_SIZE);  // width << 32 | height
+    private final AtomicInteger pendingScenario = new AtomicInteger(-1);
+    private final AtomicBoolean frameRequested = new AtomicBoolean(false);
+
+    private HandlerThread renderThread;
+    private Handler renderHandler;
+
+    // ==================== RENDER THREAD ====================
+
+    private final InclineEngine engine = new InclineEngine();
+    private final InclineScene scene = new InclineScene(OBJECT_SIZE);
+    private final FrameStats frameStats = new FrameStats(FrameStats.DEFAULT_WINDOW);
+    private final Path arrowPath = new Path();
+    private final RectF objectRect = new RectF();
+    private Paint objectPaint, surfacePaint, vectorPaint, textPaint, linkPaint;
+
+    private int scenario = SCENARIO_INCLINE;
+    private ScenarioEngine scenarioEngine;  // null while showing the incline
+    private int surfaceWidth, surfaceHeight;
+    private float worldScale, worldOffsetX, worldOffsetY;  // Metres to pixels, y flipped
+    private double lastReadoutTime;
+    private float lastReadoutVx, lastReadoutVy, scenarioAcceleration;
+
+    private Choreographer choreographer;
+    private boolean animating;
+    private long lastFrameTimeNanos;
+
+    // ==================== RENDER THREAD -> UI THREAD ====================
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean updatePosted = new AtomicBoolean(false);
+    private volatile float reportedAcceleration;
+    private volatile float reportedVelocity;
+    private volatile float reportedPosition;
+    private PhysicsSimulationView.OnPhysicsUpdateListener listener;
+
+    public PhysicsSimulationSurfaceView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        objectPaint = new Paint();
+        objectPaint.setColor(ContextCompat.getColor(getContext(), R.color.blue_primary));
+        objectPaint.setStyle(Paint.Style.FILL);
+
+        surfacePaint = new Paint();
+        surfacePaint.setColor(ContextCompat.getColor(getContext(), R.color.brown_surface));
+        surfacePaint.setStrokeWidth(5f);
+
+        vectorPaint = new Paint();
+        vectorPaint.setStrokeWidth(4f);
+        vectorPaint.setStyle(Paint.Style.STROKE);
+
+        textPaint = new Paint();
+        textPaint.setTextSize(30f);
+        textPaint.setAntiAlias(true);
+
+        linkPaint = new Paint();
+        linkPaint.setColor(Color.DKGRAY);
+        linkPaint.setStrokeWidth(3f);
+        linkPaint.setStyle(Paint.Style.STROKE);
+        linkPaint.setAntiAlias(true);
+
+        scene.setParameters((float) engine.getMass(), (float) engine.getAppliedForce(),
+                (float) engine.getFrictionCoefficient(), (float) engine.getAngleDegrees());
+
+        getHolder().addCallback(this);
+    }
+
+    // ==================== CONTROLS (UI THREAD) ====================
+
+    @Override
+    public void setParameters(float mass, float force, float friction, float angle) {
+        pendingParameters.set(new float[]{mass, force, friction, angle});
+        requestFrame();
+    }
+
+    @Override
+    public void startAnimation() {
+        sendCommand(COMMAND_START);
+    }
+
+    @Override
+    public void stopAnimation() {
+        sendCommand(COMMAND_STOP);
+    }
+
+    @Override
+    public void reset() {
+        sendCommand(COMMAND_RESET);
+    }
+
+    /**
+     * Switch to one of the SCENARIO_ constants; the new scenario starts paused.
+     * Incline parameters only apply to {@link #SCENARIO_INCLINE}.
+     */
+    public void setScenario(int scenario) {
+        if (scenario < SCENARIO_INCLINE || scenario > SCENARIO_BALL_PIT) {
+            throw new IllegalArgumentException("Unknown scenario " + scenario);
+        }
+        pendingScenario.set(scenario);
+        requestFrame();
+    }
+
+    @Override
+    public void setOnPhysicsUpdateListener(PhysicsSimulationView.OnPhysicsUpdateListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Frame-time statistics of the current (or last) animation run
+     */
+    public FrameStats.Snapshot getFrameStats() {
+        return frameStats.snapshot();
+    }
+
+    private void sendCommand(int command) {
+        pendingCommand.set(command);
+        requestFrame();
+    }
+
+    /**
+     * Schedule one frame on the render thread, unless one is already coming
+     */
+    private void requestFrame() {
+        if (renderHandler != null && frameRequested.compareAndSet(false, true)) {
+            renderHandler.post(scheduleFrame);
+        }
+    }
+
+    // ==================== SURFACE LIFECYCLE (UI THREAD) ====================
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        Display display = getDisplay();
+        if (display != null) {
+            frameStats.setRefreshRate(display.getRefreshRate());
+        }
+
+        renderThread = new HandlerThread("PhysicsRender", Process.THREAD_PRIORITY_DISPLAY);
+        renderThread.start();
+        renderHandler = new Handler(renderThread.getLooper());
+        renderHandler.post(() -> {
+            // Choreographer is per-looper: this one delivers vsync to the render thread
+            choreographer = Choreographer.getInstance();
+            lastFrameTimeNanos = 0;
+        });
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        pendingSize.set(((long) width << 32) | (height & 0xFFFFFFFFL));
+        requestFrame();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        // The surface must not be drawn into after this returns, so wait for the render thread to finish
+        Handler handler = renderHandler;
+        renderHandler = null;
+        if (handler == null) return;
+
+        handler.removeCallbacksAndMessages(null);
+        handler.post(() -> {
+            if (choreographer != null) choreographer.removeFrameCallback(frameCallback);
+        });
+        renderThread.quitSafely();
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Interrupted waiting for render thread", e);
+            Thread.currentThread().interrupt();
+        }
+        renderThread = null;
+        frameRequested.set(false);
+        frameStats.pause();
+    }
+
+    // ==================== RENDER THREAD ====================
+
+    private final Runnable scheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            choreographer.postFrameCallback(frameCallback);
+        }
+    };
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameRequested.set(false);
+            boolean changed = applyPendingChanges();
+
+            if (animating) {
+                frameStats.onFrame(frameTimeNanos);
+                if (lastFrameTimeNanos != 0) {
+                    double frameSeconds = (frameTimeNanos - lastFrameTimeNanos) / 1e9;
+                    if (scenarioEngine != null) {
+                        scenarioEngine.advance(frameSeconds);
+                    } else {
+                        engine.advance(frameSeconds);
+                    }
+                }
+                lastFrameTimeNanos = frameTimeNanos;
+            }
+
+            if (scenarioEngine != null) {
+                drawScenario();
+            } else {
+                drawFrame();
+            }
+
+            if (animating || changed) {
+                publishUpdate();
+            }
+
+            // Keep going while animating; otherwise the next frame comes from requestFrame
+            if (animating && frameRequested.compareAndSet(false, true)) {
+                choreographer.postFrameCallback(this);
+            }
+        }
+    };
+
+    /**
+     * Take whatever the UI thread handed over since the last frame
+     *
+     * @return true if the readouts need refreshing
+     */
+    private boolean applyPendingChanges() {
+        boolean changed = false;
+
+        long size = pendingSize.getAndSet(NO_SIZE);
+        if (size != NO_SIZE) {
+            int width = (int) (size >>> 32);
+            int height = (int) size;
+            scene.setSize(width, height);
+            engine.setBounds(0, (width - OBJECT_SIZE - ORIGIN_X) / PIXELS_PER_METER);
+            surfaceWidth = width;
+            surfaceHeight = height;
+            fitViewport();
+        }
+
+        int newScenario = pendingScenario.getAndSet(-1);
+        if (newScenario != -1 && newScenario != scenario) {
+            stopRendering();
+            scenario = newScenario;
+            engine.reset();
+            resetScenario();
+            fitViewport();
+            changed = true;
+        }
+
+        float[] parameters = pendingParameters.getAndSet(null);
+        if (parameters != null) {
+            engine.setParameters(parameters[0], parameters[1], parameters[2], parameters[3]);
+            scene.setParameters(parameters[0], parameters[1], parameters[2], parameters[3]);
+            changed = true;
+        }
+
+        int command = pendingCommand.getAndSet(COMMAND_NONE);
+        switch (command) {
+            case COMMAND_START:
+                engine.reset();
+                resetScenario();
+                animating = true;
+                lastFrameTimeNanos = 0;
+                frameStats.clear();
+                changed = true;
+                break;
+            case COMMAND_STOP:
+                stopRendering();
+                break;
+            case COMMAND_RESET:
+                stopRendering();
+                engine.reset();
+                resetScenario();
+                changed = true;
+                break;
+            default:
+                break;
+        }
+        return changed;
+    }
+
+    private void stopRendering() {
+        if (!animating) return;
+        animating = false;
+        frameStats.pause();
+        Log.d(TAG, "Frame stats: " + frameStats.snapshot());
+    }
+
+    private void drawFrame() {
+        SurfaceHolder holder = getHolder();
+        Canvas canvas = holder.lockHardwareCanvas();
+        if (canvas == null) return;
+        try {
+            float objectX = ORIGIN_X + (float) engine.getInterpolatedPosition() * PIXELS_PER_METER;
+            scene.update(objectX, engine.getVelocity() != 0);
+
+            canvas.drawColor(Color.WHITE);
+            canvas.drawLine(0, scene.getSurfaceStartY(), scene.getWidth(), scene.getSurfaceEndY(), surfacePaint);
+
+            objectRect.set(scene.getObjectX(), scene.getObjectY(),
+                    scene.getObjectX() + OBJECT_SIZE, scene.getObjectY() + OBJECT_SIZE);
+            canvas.drawRect(objectRect, objectPaint);
+
+            for (int i = 0; i < InclineScene.VECTOR_COUNT; i++) {
+                if (scene.isVectorVisible(i)) {
+                    drawVector(canvas, i);
+                }
+            }
+        } finally {
+            holder.unlockCanvasAndPost(canvas);
+        }
+    }
+
+    // ==================== SCENARIOS (RENDER THREAD) ====================
+
+    /**
+     * Rebuild the current scenario in its starting state
+     */
+    private void resetScenario() {
+        switch (scenario) {
+            case SCENARIO_PROJECTILE:
+                scenarioEngine = Scenarios.projectile(12f, 50f, 0f);
+                scenarioEngine.setBounds(-1f, 0f, 17f, 100f);  // Bounce along the ground
+                break;
+            case SCENARIO_ATWOOD:
+                scenarioEngine = Scenarios.atwoodMachine(2f, 3f);
+                scenarioEngine.setBounds(-10f, -2f, 10f, 10f);
+                break;
+            case SCENARIO_SPRING_CHAIN:
+                scenarioEngine = Scenarios.springChain(4, 0.5f, 40f, 0.5f);
+                break;
+            case SCENARIO_BALL_PIT:
+                scenarioEngine = Scenarios.ballPit(60, 4f, 3f, 42L);
+                break;
+            default:
+                scenarioEngine = null;
+                break;
+        }
+        lastReadoutTime = 0;
+        lastReadoutVx = 0f;
+        lastReadoutVy = 0f;
+        scenarioAcceleration = 0f;
+    }
+
+    /**
+     * Fit the scenario's viewport into the surface, centred, keeping aspect ratio
+     */
+    private void fitViewport() {
+        float[] view = SCENARIO_VIEWPORTS[scenario];
+        if (view == null || surfaceWidth == 0 || surfaceHeight == 0) return;
+        float worldWidth = view[2] - view[0];
+        float worldHeight = view[3] - view[1];
+        worldScale = Math.min(surfaceWidth / worldWidth, surfaceHeight / worldHeight);
+        worldOffsetX = (surfaceWidth - worldWidth * worldScale) / 2 - view[0] * worldScale;
+        worldOffsetY = surfaceHeight - (surfaceHeight - worldHeight * worldScale) / 2 + view[1] * worldScale;
+    }
+
+    private float toScreenX(float x) {
+        return worldOffsetX + x * worldScale;
+    }
+
+    private float toScreenY(float y) {
+        return worldOffsetY - y * worldScale;
+    }
+
+    private void drawScenario() {
+        SurfaceHolder holder = getHolder();
+        Canvas canvas = holder.lockHardwareCanvas();
+        if (canvas == null) return;
+        try {
+            ScenarioEngine world = scenarioEngine;
+            canvas.drawColor(Color.WHITE);
+
+            float[] view = SCENARIO_VIEWPORTS[scenario];
+            if (view[1] <= 0f) {
+                float groundY = toScreenY(Math.max(view[1], 0f));
+                canvas.drawLine(0, groundY, surfaceWidth, groundY, surfacePaint);
+            }
+
+            for (int s = 0; s < world.getSpringCount(); s++) {
+                int a = world.getSpringA(s);
+                int b = world.getSpringB(s);
+                canvas.drawLine(toScreenX(world.getInterpolatedX(a)), toScreenY(world.getInterpolatedY(a)),
+                        toScreenX(world.getInterpolatedX(b)), toScreenY(world.getInterpolatedY(b)), linkPaint);
+            }
+
+            for (int p = 0; p < world.getPulleyCount(); p++) {
+                float wheelX = world.getPulleyX(p);
+                float wheelY = world.getPulleyY(p);
+                float wheelRadius = world.getPulleyRadius(p);
+                canvas.drawCircle(toScreenX(wheelX), toScreenY(wheelY),
+                        Math.max(wheelRadius * worldScale, MIN_BODY_PIXELS), linkPaint);
+                int a = world.getPulleyA(p);
+                int b = world.getPulleyB(p);
+                canvas.drawLine(toScreenX(wheelX - wheelRadius), toScreenY(wheelY),
+                        toScreenX(world.getInterpolatedX(a)), toScreenY(world.getInterpolatedY(a)), linkPaint);
+                canvas.drawLine(toScreenX(wheelX + wheelRadius), toScreenY(wheelY),
+                        toScreenX(world.getInterpolatedX(b)), toScreenY(world.getInterpolatedY(b)), linkPaint);
+            }
+
+            for (int i = 0; i < world.getBodyCount(); i++) {
+                canvas.drawCircle(toScreenX(world.getInterpolatedX(i)), toScreenY(world.getInterpolatedY(i)),
+                        Math.max(world.getRadius(i) * worldScale, MIN_BODY_PIXELS),
+                        world.getMass(i) > 0f ? objectPaint : surfacePaint);
+            }
+        } finally {
+            holder.unlockCanvasAndPost(canvas);
+        }
+    }
+
+    private void drawVector(Canvas canvas, int vector) {
+        int color = VECTOR_COLORS[vector];
+        vectorPaint.setColor(color);
+        textPaint.setColor(color);
+
+        float endX = scene.getVectorEndX(vector);
+        float endY = scene.getVectorEndY(vector);
+
+        canvas.drawLine(scene.getCenterX(), scene.getCenterY(), endX, endY, vectorPaint);
+
+        arrowPath.rewind();
+        arrowPath.moveTo(endX, endY);
+        arrowPath.lineTo(scene.getArrowX(vector, 0), scene.getArrowY(vector, 0));
+        arrowPath.moveTo(endX, endY);
+        arrowPath.lineTo(scene.getArrowX(vector, 1), scene.getArrowY(vector, 1));
+        canvas.drawPath(arrowPath, vectorPaint);
+
+        canvas.drawText(VECTOR_LABELS[vector], endX + 10, endY - 10, textPaint);
+    }
+
+    /**
+     * Hand the readouts to the main thread; at most one post is in flight, so a
+     * busy main thread sees the latest values instead of a backlog
+     */
+    private void publishUpdate() {
+        if (scenarioEngine != null) {
+            publishScenarioReadouts();
+        } else {
+            reportedAcceleration = (float) engine.getAcceleration();
+            reportedVelocity = (float) engine.getVelocity();
+            reportedPosition = (float) engine.getPosition();
+        }
+        if (updatePosted.compareAndSet(false, true)) {
+            mainHandler.post(deliverUpdate);
+        }
+    }
+
+    /**
+     * Readouts for the last body (the projectile, the heavier Atwood mass, the
+     * bottom of the chain): acceleration from the velocity change since the
+     * last readout, speed, and height
+     */
+    private void publishScenarioReadouts() {
+        ScenarioEngine world = scenarioEngine;
+        int body = world.getBodyCount() - 1;
+        float vx = world.getVelocityX(body);
+        float vy = world.getVelocityY(body);
+        double elapsed = world.getTime() - lastReadoutTime;
+        if (elapsed > 0) {
+            float dvx = vx - lastReadoutVx;
+            float dvy = vy - lastReadoutVy;
+            scenarioAcceleration = (float) (Math.sqrt(dvx * dvx + dvy * dvy) / elapsed);
+            lastReadoutTime = world.getTime();
+            lastReadoutVx = vx;
+            lastReadoutVy = vy;
+        }
+        reportedAcceleration = scenarioAcceleration;
+        reportedVelocity = (float) Math.sqrt(vx * vx + vy * vy);
+        reportedPosition = world.getY(body);
+    }
+
+    // ==================== UI THREAD ====================
+
+    private final Runnable deliverUpdate = new Runnable() {
+        @Override
+        public void run() {
+            updatePosted.set(false);
+            if (listener != null) {
+                listener.onUpdate(reportedAcceleration, reportedVelocity, reportedPosition);
+            }
+        }
+    };
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mainHandler.removeCallbacks(deliverUpdate);
+        updatePosted.set(false);
+        super.onDetachedFromWindow();
+    }
+}
@@ -5,16 +5,19 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.RectF;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.View;
 
 import androidx.core.content.ContextCompat;
 
 import com.example.phiz.R;
+import com.example.phiz.physics.InclineEngine;
 
-public class PhysicsSimulationView extends View {
+public class PhysicsSimulationView extends View implements PhysicsSimulation {
     private Paint objectPaint, surfacePaint, vectorPaint, textPaint;
-    private float objectX, objectY;
+    private float objectX;
     private float objectSize = 80f;
     private float mass = 5.0f;
     private float appliedForce = 30.0f;
@@ -25,7 +28,21 @@ public class PhysicsSimulationView extends View {
     private float velocity = 0.0f;
     private float acceleration = 0.0f;
     private float position = 0.0f;
-    private static final float GRAVITY = 9.8f;
+
+    // Block's left edge at position 0, and the drawing scale
+    private static final float ORIGIN_X = 100f;
+    private static final float PIXELS_PER_METER = 20f;
+
+    // Physics runs in fixed steps on real frame time; we only draw its state
+    private final InclineEngine engine = new InclineEngine();
+    private long lastFrameTimeNanos;
+
+    // Drawing state is computed into preallocated objects so onDraw allocates nothing
+    private final InclineScene scene = new InclineScene(objectSize);
+    private final Path arrowPath = new Path();
+    private final RectF objectRect = new RectF();
+    private static final int[] VECTOR_COLORS = {Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW};
+    private static final String[] VECTOR_LABELS = {"Fg", "Fn", "Fa", "Ff"};
 
     private OnPhysicsUpdateListener listener;
 
@@ -54,87 +71,102 @@ public class PhysicsSimulationView extends View {
         textPaint = new Paint();
         textPaint.setTextSize(30f);
         textPaint.setAntiAlias(true);
+
+        scene.setParameters(mass, appliedForce, frictionCoefficient, angle);
     }
 
+    @Override
     public void setParameters(float mass, float force, float friction, float angle) {
         this.mass = mass;
         this.appliedForce = force;
         this.frictionCoefficient = friction;
         this.angle = angle;
+        engine.setParameters(mass, force, friction, angle);
+        scene.setParameters(mass, force, friction, angle);
         calculatePhysics();
         invalidate();
     }
 
+    @Override
     public void startAnimation() {
+        stopAnimation();
         isAnimating = true;
+        engine.reset();
         velocity = 0.0f;
         position = 0.0f;
         calculatePhysics();
-        post(animationRunnable);
+        lastFrameTimeNanos = 0;
+        Choreographer.getInstance().postFrameCallback(frameCallback);
     }
 
+    @Override
     public void stopAnimation() {
         isAnimating = false;
-        removeCallbacks(animationRunnable);
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
     }
 
+    @Override
     public void reset() {
         stopAnimation();
+        engine.reset();
         velocity = 0.0f;
         position = 0.0f;
         acceleration = 0.0f;
-        objectX = 100f;
+        objectX = ORIGIN_X;
         if (listener != null) {
             listener.onUpdate(acceleration, velocity, position);
         }
         invalidate();
     }
 
+    @Override
     public void setOnPhysicsUpdateListener(OnPhysicsUpdateListener listener) {
         this.listener = listener;
     }
 
     private void calculatePhysics() {
-        double angleRad = Math.toRadians(angle);
-        float gravityComponent = (float) (mass * GRAVITY * Math.sin(angleRad));
-        float normalForce = (float) (mass * GRAVITY * Math.cos(angleRad));
-        float frictionForce = frictionCoefficient * normalForce;
-
-        float netForce = appliedForce - frictionForce - gravityComponent;
-        acceleration = netForce / mass;
+        acceleration = (float) engine.getAcceleration();
 
         if (listener != null) {
             listener.onUpdate(acceleration, velocity, position);
         }
     }
 
-    private Runnable animationRunnable = new Runnable() {
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        scene.setSize(w, h);
+        // The block stops at the right edge of the view
+        engine.setBounds(0, (w - objectSize - ORIGIN_X) / PIXELS_PER_METER);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        stopAnimation();
+        super.onDetachedFromWindow();
+    }
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
         @Override
-        public void run() {
-            if (isAnimating) {
-                float deltaTime = 0.016f; // ~60 FPS
-                velocity += acceleration * deltaTime;
-                position += velocity * deltaTime;
-
-                objectX = 100f + position * 20f; // Scale for visualization
-
-                if (objectX > getWidth() - objectSize) {
-                    objectX = getWidth() - objectSize;
-                    velocity = 0;
-                }
-
-                if (objectX < 100f) {
-                    objectX = 100f;
-                    velocity = 0;
-                }
-
-                if (listener != null) {
-                    listener.onUpdate(acceleration, velocity, position);
-                }
-
-                invalidate();
-                postDelayed(this, 16);
+        public void doFrame(long frameTimeNanos) {
+            if (!isAnimating) return;
+
+            // Advance by the real time since the last vsync, so dropped frames don't slow the simulation
+            if (lastFrameTimeNanos != 0) {
+                engine.advance((frameTimeNanos - lastFrameTimeNanos) / 1e9);
+            }
+            lastFrameTimeNanos = frameTimeNanos;
+
+            velocity = (float) engine.getVelocity();
+            position = (float) engine.getPosition();
+            objectX = ORIGIN_X + (float) engine.getInterpolatedPosition() * PIXELS_PER_METER;
+
+            if (listener != null) {
+                listener.onUpdate(acceleration, velocity, position);
             }
+
+            invalidate();
+            Choreographer.getInstance().postFrameCallback(this);
         }
     };
 
@@ -142,67 +174,41 @@ public class PhysicsSimulationView extends View {
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        int width = getWidth();
-        int height = getHeight();
-
-        float surfaceY = height * 0.7f;
-        double angleRad = Math.toRadians(angle);
-
-        canvas.drawLine(0, surfaceY, width, (float) (surfaceY - width * Math.tan(angleRad)),
-                surfacePaint);
-
         if (objectX == 0) {
-            objectX = 100f;
+            objectX = ORIGIN_X;
         }
-        objectY = (float) (surfaceY - objectSize - (objectX * Math.tan(angleRad)));
-
-        canvas.drawRect(objectX, objectY, objectX + objectSize, objectY + objectSize, objectPaint);
-
-        float centerX = objectX + objectSize / 2;
-        float centerY = objectY + objectSize / 2;
+        scene.update(objectX, velocity != 0);
 
-        float gravityForce = mass * GRAVITY;
-        drawVector(canvas, centerX, centerY, 0, gravityForce * 2, Color.RED, "Fg");
+        canvas.drawLine(0, scene.getSurfaceStartY(), scene.getWidth(), scene.getSurfaceEndY(), surfacePaint);
 
-        float normalForce = (float) (mass * GRAVITY * Math.cos(angleRad));
-        drawVector(canvas, centerX, centerY, 0, -normalForce * 2, Color.BLUE, "Fn");
+        objectRect.set(scene.getObjectX(), scene.getObjectY(),
+                scene.getObjectX() + objectSize, scene.getObjectY() + objectSize);
+        canvas.drawRect(objectRect, objectPaint);
 
-        if (appliedForce > 0) {
-            float forceX = (float) (appliedForce * Math.cos(angleRad)) * 3;
-            drawVector(canvas, centerX, centerY, forceX, 0, Color.GREEN, "Fa");
-        }
-
-        if (frictionCoefficient > 0 && velocity != 0) {
-            float frictionForce = frictionCoefficient * normalForce;
-            float frictionX = -(frictionForce * 3);
-            drawVector(canvas, centerX, centerY, frictionX, 0, Color.YELLOW, "Ff");
+        for (int i = 0; i < InclineScene.VECTOR_COUNT; i++) {
+            if (scene.isVectorVisible(i)) {
+                drawVector(canvas, i);
+            }
         }
     }
 
-    private void drawVector(Canvas canvas, float startX, float startY, float dx, float dy,
-                            int color, String label) {
+    private void drawVector(Canvas canvas, int vector) {
+        int color = VECTOR_COLORS[vector];
         vectorPaint.setColor(color);
         textPaint.setColor(color);
 
-        float endX = startX + dx;
-        float endY = startY + dy;
-
-        canvas.drawLine(startX, startY, endX, endY, vectorPaint);
+        float endX = scene.getVectorEndX(vector);
+        float endY = scene.getVectorEndY(vector);
 
-        double angle = Math.atan2(dy, dx);
-        float arrowSize = 20f;
-        float arrowX1 = (float) (endX - arrowSize * Math.cos(angle - Math.PI / 6));
-        float arrowY1 = (float) (endY - arrowSize * Math.sin(angle - Math.PI / 6));
-        float arrowX2 = (float) (endX - arrowSize * Math.cos(angle + Math.PI / 6));
-        float arrowY2 = (float) (endY - arrowSize * Math.sin(angle + Math.PI / 6));
+        canvas.drawLine(scene.getCenterX(), scene.getCenterY(), endX, endY, vectorPaint);
 
-        Path arrowPath = new Path();
+        arrowPath.rewind();
         arrowPath.moveTo(endX, endY);
-        arrowPath.lineTo(arrowX1, arrowY1);
+        arrowPath.lineTo(scene.getArrowX(vector, 0), scene.getArrowY(vector, 0));
         arrowPath.moveTo(endX, endY);
-        arrowPath.lineTo(arrowX2, arrowY2);
+        arrowPath.lineTo(scene.getArrowX(vector, 1), scene.getArrowY(vector, 1));
         canvas.drawPath(arrowPath, vectorPaint);
 
-        canvas.drawText(label, endX + 10, endY - 10, textPaint);
+        canvas.drawText(VECTOR_LABELS[vector], endX + 10, endY - 10, textPaint);
     }
 }
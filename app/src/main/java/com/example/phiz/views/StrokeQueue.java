@@ -0,0 +1,145 @@
+package com.example.phiz.views;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer, single-consumer queue of drawing input.
+ *
+ * The UI thread offers touch samples and the render thread drains them once per
+ * frame. Entries live in parallel primitive arrays, so neither side allocates
+ * or blocks. When the queue is nearly full, move samples are dropped (and
+ * counted); a few slots are kept back so stroke starts, ends and clears always fit.
+ */
+public class StrokeQueue {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int TYPE_MOVE = 0;
+    private static final int TYPE_DOWN = 1;
+    private static final int TYPE_UP = 2;
+    private static final int TYPE_CLEAR = 3;
+
+    // Slots only control entries may use
+    private static final int RESERVED = 8;
+
+    /**
+     * Receives drained entries in order, on the consumer thread
+     */
+    public interface Sink {
+        void onDown(float x, float y, int color, float strokeWidth);
+
+        void onMove(float x, float y);
+
+        void onUp();
+
+        void onClear();
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int[] types;
+    private final float[] xs;
+    private final float[] ys;
+    private final int[] colors;
+    private final float[] widths;
+
+    // head is only advanced by the consumer, tail only by the producer
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedPoints = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public StrokeQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(RESERVED * 2, capacity) - 1) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.types = new int[size];
+        this.xs = new float[size];
+        this.ys = new float[size];
+        this.colors = new int[size];
+        this.widths = new float[size];
+    }
+
+    // ==================== PRODUCER ====================
+
+    public boolean offerDown(float x, float y, int color, float strokeWidth) {
+        return offer(TYPE_DOWN, x, y, color, strokeWidth, 0);
+    }
+
+    /**
+     * @return false if the sample was dropped because the queue is full
+     */
+    public boolean offerMove(float x, float y) {
+        if (offer(TYPE_MOVE, x, y, 0, 0f, RESERVED)) return true;
+        droppedPoints.incrementAndGet();
+        return false;
+    }
+
+    public boolean offerUp() {
+        return offer(TYPE_UP, 0f, 0f, 0, 0f, 0);
+    }
+
+    public boolean offerClear() {
+        return offer(TYPE_CLEAR, 0f, 0f, 0, 0f, 0);
+    }
+
+    private boolean offer(int type, float x, float y, int color, float strokeWidth, int keepFree) {
+        long t = tail.get();
+        if (t - head.get() > capacity - 1 - keepFree) return false;
+
+        int slot = (int) (t & mask);
+        types[slot] = type;
+        xs[slot] = x;
+        ys[slot] = y;
+        colors[slot] = color;
+        widths[slot] = strokeWidth;
+        // Publish the slot: the consumer reads tail before the arrays
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // ==================== CONSUMER ====================
+
+    /**
+     * Hand everything queued so far to the sink
+     *
+     * @return the number of entries drained
+     */
+    public int drain(Sink sink) {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            int slot = (int) (i & mask);
+            switch (types[slot]) {
+                case TYPE_DOWN:
+                    sink.onDown(xs[slot], ys[slot], colors[slot], widths[slot]);
+                    break;
+                case TYPE_MOVE:
+                    sink.onMove(xs[slot], ys[slot]);
+                    break;
+                case TYPE_UP:
+                    sink.onUp();
+                    break;
+                default:
+                    sink.onClear();
+                    break;
+            }
+        }
+        // Free the slots only after reading them
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getDroppedPoints() {
+        return droppedPoints.get();
+    }
+}
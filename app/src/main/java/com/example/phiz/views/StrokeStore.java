@@ -0,0 +1,302 @@
+package com.example.phiz.views;
+
+import java.util.Arrays;
+
+/**
+ * Compact storage for doodle strokes, free of Android classes.
+ *
+ * All committed points live in one packed float[] (x, y, x, y...), with an
+ * int[] of stroke offsets and a style id per stroke; styles (color and width)
+ * are stored once and shared. When a stroke is committed its raw touch samples
+ * are simplified with Ramer–Douglas–Peucker, and {@link #replay} draws the kept
+ * points as quadratic curves through their midpoints, so the ink stays smooth
+ * with a fraction of the points.
+ */
+public class StrokeStore {
+    private static final int INITIAL_POINTS = 256;
+    private static final int INITIAL_STROKES = 16;
+
+    /**
+     * Receives a stroke as path commands, e.g. to build an android.graphics.Path
+     */
+    public interface PathSink {
+        void moveTo(float x, float y);
+
+        void lineTo(float x, float y);
+
+        void quadTo(float controlX, float controlY, float x, float y);
+    }
+
+    // Committed strokes: points of stroke i are [strokeStart[i], strokeStart[i + 1])
+    private float[] points = new float[INITIAL_POINTS * 2];
+    private int pointCount;
+    private int[] strokeStart = new int[INITIAL_STROKES + 1];
+    private int[] strokeStyle = new int[INITIAL_STROKES];
+    private int strokeCount;
+
+    // Shared styles
+    private int[] styleColors = new int[4];
+    private float[] styleWidths = new float[4];
+    private int styleCount;
+
+    // Stroke in progress, raw samples
+    private float[] active = new float[INITIAL_POINTS * 2];
+    private int activeCount;
+    private int activeStyle = -1;
+
+    // Simplification scratch, reused across commits
+    private boolean[] keep = new boolean[INITIAL_POINTS];
+    private int[] stack = new int[INITIAL_POINTS * 2];
+
+    // ==================== STYLES ====================
+
+    /**
+     * Id of the style with this color and width, adding it if new
+     */
+    public int styleId(int color, float width) {
+        for (int i = 0; i < styleCount; i++) {
+            if (styleColors[i] == color && styleWidths[i] == width) return i;
+        }
+        if (styleCount == styleColors.length) {
+            styleColors = Arrays.copyOf(styleColors, styleCount * 2);
+            styleWidths = Arrays.copyOf(styleWidths, styleCount * 2);
+        }
+        styleColors[styleCount] = color;
+        styleWidths[styleCount] = width;
+        return styleCount++;
+    }
+
+    public int getStyleCount() {
+        return styleCount;
+    }
+
+    public int getStyleColor(int style) {
+        return styleColors[style];
+    }
+
+    public float getStyleWidth(int style) {
+        return styleWidths[style];
+    }
+
+    // ==================== BUILDING ====================
+
+    public void beginStroke(float x, float y, int style) {
+        activeCount = 0;
+        activeStyle = style;
+        addPoint(x, y);
+    }
+
+    public void addPoint(float x, float y) {
+        if (activeStyle < 0) return;
+        if (activeCount * 2 == active.length) {
+            active = Arrays.copyOf(active, active.length * 2);
+        }
+        active[activeCount * 2] = x;
+        active[activeCount * 2 + 1] = y;
+        activeCount++;
+    }
+
+    public boolean isStrokeActive() {
+        return activeStyle >= 0;
+    }
+
+    /**
+     * Simplify the stroke in progress and add it to the store.
+     *
+     * @param tolerance how far (in pixels) a dropped point may be from the simplified line
+     * @return the new stroke's index, or -1 if no stroke was in progress
+     */
+    public int commitStroke(float tolerance) {
+        if (activeStyle < 0) return -1;
+
+        int kept = simplify(tolerance);
+        ensurePointCapacity(pointCount + kept);
+        for (int i = 0; i < activeCount; i++) {
+            if (keep[i]) {
+                points[pointCount * 2] = active[i * 2];
+                points[pointCount * 2 + 1] = active[i * 2 + 1];
+                pointCount++;
+            }
+        }
+        return addStroke(activeStyle);
+    }
+
+    /**
+     * Add an already simplified stroke, e.g. when loading saved ink
+     */
+    public int addStroke(int style, float[] xy, int offset, int count) {
+        ensurePointCapacity(pointCount + count);
+        System.arraycopy(xy, offset * 2, points, pointCount * 2, count * 2);
+        pointCount += count;
+        return addStroke(style);
+    }
+
+    private int addStroke(int style) {
+        if (strokeCount == strokeStyle.length) {
+            strokeStyle = Arrays.copyOf(strokeStyle, strokeCount * 2);
+            strokeStart = Arrays.copyOf(strokeStart, strokeCount * 2 + 1);
+        }
+        strokeStyle[strokeCount] = style;
+        strokeCount++;
+        strokeStart[strokeCount] = pointCount;
+        activeStyle = -1;
+        activeCount = 0;
+        return strokeCount - 1;
+    }
+
+    public void clear() {
+        pointCount = 0;
+        strokeCount = 0;
+        activeCount = 0;
+        activeStyle = -1;
+    }
+
+    private void ensurePointCapacity(int needed) {
+        if (needed * 2 > points.length) {
+            points = Arrays.copyOf(points, Math.max(needed * 2, points.length * 2));
+        }
+    }
+
+    /**
+     * Ramer–Douglas–Peucker over the active stroke, marking kept points in keep[].
+     * Uses an explicit stack, so long strokes can't overflow the call stack.
+     *
+     * @return the number of points kept
+     */
+    private int simplify(float tolerance) {
+        int n = activeCount;
+        if (keep.length < n) {
+            keep = new boolean[Math.max(n, keep.length * 2)];
+        }
+        Arrays.fill(keep, 0, n, false);
+        if (n <= 2) {
+            Arrays.fill(keep, 0, n, true);
+            return n;
+        }
+
+        keep[0] = true;
+        keep[n - 1] = true;
+        int kept = 2;
+        float toleranceSquared = tolerance * tolerance;
+
+        int top = 0;
+        stack = ensureStack(2);
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            int farthest = -1;
+            float farthestDistance = toleranceSquared;
+            for (int i = first + 1; i < last; i++) {
+                float distance = segmentDistanceSquared(i, first, last);
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                kept++;
+                stack = ensureStack(top + 4);
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        return kept;
+    }
+
+    private int[] ensureStack(int needed) {
+        return needed <= stack.length ? stack : Arrays.copyOf(stack, Math.max(needed, stack.length * 2));
+    }
+
+    /**
+     * Squared distance from active point i to the segment between points a and b
+     */
+    private float segmentDistanceSquared(int i, int a, int b) {
+        float px = active[i * 2], py = active[i * 2 + 1];
+        float ax = active[a * 2], ay = active[a * 2 + 1];
+        float dx = active[b * 2] - ax;
+        float dy = active[b * 2 + 1] - ay;
+        float lengthSquared = dx * dx + dy * dy;
+
+        float t = lengthSquared > 0 ? ((px - ax) * dx + (py - ay) * dy) / lengthSquared : 0;
+        t = Math.max(0, Math.min(1, t));
+        float cx = ax + t * dx - px;
+        float cy = ay + t * dy - py;
+        return cx * cx + cy * cy;
+    }
+
+    // ==================== READING ====================
+
+    public int getStrokeCount() {
+        return strokeCount;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public int getStrokePointCount(int stroke) {
+        return strokeStart[stroke + 1] - strokeStart[stroke];
+    }
+
+    public int getStrokeStyle(int stroke) {
+        return strokeStyle[stroke];
+    }
+
+    public float getX(int stroke, int point) {
+        return points[(strokeStart[stroke] + point) * 2];
+    }
+
+    public float getY(int stroke, int point) {
+        return points[(strokeStart[stroke] + point) * 2 + 1];
+    }
+
+    /**
+     * Bounding box of a stroke's points into out as left, top, right, bottom
+     */
+    public void getBounds(int stroke, float[] out) {
+        float left = Float.POSITIVE_INFINITY, top = Float.POSITIVE_INFINITY;
+        float right = Float.NEGATIVE_INFINITY, bottom = Float.NEGATIVE_INFINITY;
+        for (int i = strokeStart[stroke]; i < strokeStart[stroke + 1]; i++) {
+            left = Math.min(left, points[i * 2]);
+            right = Math.max(right, points[i * 2]);
+            top = Math.min(top, points[i * 2 + 1]);
+            bottom = Math.max(bottom, points[i * 2 + 1]);
+        }
+        out[0] = left;
+        out[1] = top;
+        out[2] = right;
+        out[3] = bottom;
+    }
+
+    /**
+     * Emit a stroke as a smooth path: quadratic curves with the stored points as
+     * control points, joined at the midpoints between them
+     */
+    public void replay(int stroke, PathSink sink) {
+        int start = strokeStart[stroke];
+        int n = strokeStart[stroke + 1] - start;
+        if (n == 0) return;
+
+        sink.moveTo(points[start * 2], points[start * 2 + 1]);
+        if (n <= 2) {
+            // A tap draws a dot with the round cap
+            int last = start + n - 1;
+            sink.lineTo(points[last * 2], points[last * 2 + 1]);
+            return;
+        }
+        for (int i = start + 1; i < start + n - 1; i++) {
+            float x = points[i * 2];
+            float y = points[i * 2 + 1];
+            sink.quadTo(x, y, (x + points[i * 2 + 2]) / 2, (y + points[i * 2 + 3]) / 2);
+        }
+        int last = start + n - 1;
+        sink.lineTo(points[last * 2], points[last * 2 + 1]);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.phiz.helpers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Simulated students against adaptive and uniformly random question choice.
+ *
+ * Each simulated student has a true ability and answers by the Rasch model.
+ * Both strategies ask questions from the same calibrated bank until the ability
+ * estimate's standard error reaches TARGET_SE; adaptive choice should get there
+ * in clearly fewer questions, with actual errors about as small. A second
+ * part times {@link AdaptiveSelector#next} on the full bank; being wall-clock
+ * timing, it only runs with {@code ./gradlew test -Pbenchmarks}.
+ */
+public class AdaptiveSelectorBenchmarkTest {
+    private static final int BANK_SIZE = 300;
+    private static final int STUDENTS = 400;
+    private static final double TARGET_SE = 0.45;
+    private static final int MAX_ASKED = 120;
+
+    private static final int WARMUP_PICKS = 50_000;
+    private static final int BATCHES = 15;
+    private static final int PICKS_PER_BATCH = 2_000;
+
+    @Test
+    public void adaptive_reachesTargetConfidenceInFewerQuestions() {
+        Random bankRandom = new Random(11);
+        double[] bank = new double[BANK_SIZE];
+        for (int i = 0; i < BANK_SIZE; i++) bank[i] = bankRandom.nextGaussian() * 1.5;
+
+        Result random = simulate(bank, false);
+        Result adaptive = simulate(bank, true);
+
+
+        assertTrue("random " + random.meanAsked + ", adaptive " + adaptive.meanAsked,
+                adaptive.meanAsked < 0.8 * random.meanAsked);
+        // The standard error is honest: actual errors are about that size for both
+        assertEquals(TARGET_SE, random.rmse, 0.1);
+        assertEquals(TARGET_SE, adaptive.rmse, 0.1);
+    }
+
+    private static Result simulate(double[] bank, boolean adaptive) {
+        Random random = new Random(5);
+        int asked = 0;
+        double squaredError = 0;
+        int[] order = new int[bank.length];
+
+        for (int s = 0; s < STUDENTS; s++) {
+            double trueAbility = random.nextGaussian();
+            AdaptiveSelector selector = new AdaptiveSelector(bank.length, random);
+            for (int i = 0; i < bank.length; i++) {
+                // A calibrated bank: difficulties are known and barely move
+                selector.add("q" + i, bank[i], 1000);
+                order[i] = i;
+            }
+            selector.startQuiz();
+
+            int n = 0;
+            while (selector.getStandardError() > TARGET_SE && n < MAX_ASKED) {
+                int slot;
+                if (adaptive) {
+                    slot = selector.next();
+                } else {
+                    int j = n + random.nextInt(bank.length - n);
+                    slot = order[j];
+                    order[j] = order[n];
+                    order[n] = slot;
+                }
+                double p = 1.0 / (1.0 + Math.exp(bank[slot] - trueAbility));
+                selector.recordAnswer(slot, random.nextDouble() < p);
+                n++;
+            }
+            asked += n;
+            double error = selector.getAbility() - trueAbility;
+            squaredError += error * error;
+        }
+        return new Result((double) asked / STUDENTS, Math.sqrt(squaredError / STUDENTS));
+    }
+
+    private static final class Result {
+        final double meanAsked;
+        final double rmse;
+
+        Result(double meanAsked, double rmse) {
+            this.meanAsked = meanAsked;
+            this.rmse = rmse;
+        }
+    }
+
+    @Test
+    public void next_takesMicroseconds() {
+        assumeTrue("benchmarks disabled", Boolean.getBoolean("phiz.benchmarks"));
+
+        Random random = new Random(7);
+        AdaptiveSelector selector = new AdaptiveSelector(BANK_SIZE, random);
+        for (int i = 0; i < BANK_SIZE; i++) selector.add("q" + i, random.nextGaussian() * 1.5, 0);
+
+        int sink = 0;
+        for (int i = 0; i < WARMUP_PICKS; i++) {
+            if (i % 5 == 0) selector.startQuiz();
+            sink += selector.next();
+        }
+
+        double[] batchMicros = new double[BATCHES];
+        for (int b = 0; b < BATCHES; b++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < PICKS_PER_BATCH; i++) {
+                if (i % 5 == 0) selector.startQuiz();
+                sink += selector.next();
+            }
+            batchMicros[b] = (System.nanoTime() - start) / 1e3 / PICKS_PER_BATCH;
+        }
+        Arrays.sort(batchMicros);
+        double median = batchMicros[BATCHES / 2];
+
+
+        assertTrue("median pick " + median + " us (" + sink % 2 + ")", median < 50);
+    }
+}
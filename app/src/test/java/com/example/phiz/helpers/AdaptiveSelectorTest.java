@@ -0,0 +1,95 @@
+package com.example.phiz.helpers;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ability and difficulty updates and question choice of the adaptive selector.
+ */
+public class AdaptiveSelectorTest {
+
+    @Test
+    public void answers_moveAbilityAndDifficultyAndShrinkUncertainty() {
+        AdaptiveSelector selector = new AdaptiveSelector(2, new Random(1));
+        int medium = selector.add("q1", AdaptiveSelector.priorDifficulty("medium"), 0);
+        int hard = selector.add("q2", AdaptiveSelector.priorDifficulty("hard"), 0);
+        assertEquals(medium, selector.add("q1", 5.0, 0));
+        assertEquals(0.5, selector.probabilityCorrect(medium), 1e-9);
+
+        selector.recordAnswer(medium, true);
+        assertTrue(selector.getAbility() > 0);
+        assertTrue(selector.getDifficulty(medium) < 0);
+        assertTrue(selector.getStandardError() < 1);
+        assertEquals(1, selector.getAttempts(medium));
+
+        double before = selector.getAbility();
+        double seBefore = selector.getStandardError();
+        selector.recordAnswer(hard, false);
+        assertTrue(selector.getAbility() < before);
+        assertTrue(selector.getDifficulty(hard) > 1);
+        assertTrue(selector.getStandardError() < seBefore);
+    }
+
+    @Test
+    public void next_picksClosestDifficultiesOncePerQuiz() {
+        AdaptiveSelector selector = new AdaptiveSelector(1, new Random(3));
+        double[] difficulties = {-3, -2, -0.2, 0.1, 0.3, 2, 3};
+        for (int i = 0; i < difficulties.length; i++) {
+            selector.add("q" + i, difficulties[i], 0);
+        }
+        selector.setAbility(0, 0.5);
+
+        // The first pick is one of the three nearest the ability, each of them sometimes
+        boolean[] first = new boolean[difficulties.length];
+        for (int quiz = 0; quiz < 50; quiz++) {
+            selector.startQuiz();
+            int slot = selector.next();
+            assertTrue("slot " + slot, slot >= 2 && slot <= 4);
+            first[slot] = true;
+        }
+        assertTrue(first[2] && first[3] && first[4]);
+
+        // Every question comes up once per quiz, then there are none left
+        selector.startQuiz();
+        boolean[] seen = new boolean[difficulties.length];
+        for (int i = 0; i < difficulties.length; i++) {
+            int slot = selector.next();
+            assertFalse(seen[slot]);
+            seen[slot] = true;
+        }
+        assertEquals(-1, selector.next());
+
+        // A new quiz can ask them again
+        selector.startQuiz();
+        assertNotEquals(-1, selector.next());
+    }
+
+    @Test
+    public void peekNext_followsEitherOutcomeWithoutChangingState() {
+        AdaptiveSelector selector = new AdaptiveSelector(1, new Random(5));
+        int asked = selector.add("asked", 0, 0);
+        double[] difficulties = {-3, -2.9, -2.8, 2.8, 2.9, 3};
+        for (int i = 0; i < difficulties.length; i++) {
+            selector.add("q" + i, difficulties[i], 0);
+        }
+        selector.startQuiz();
+        selector.setAbility(0, 1);
+        selector.markAsked(asked);
+
+        int ifCorrect = selector.peekNext(asked, true);
+        int ifWrong = selector.peekNext(asked, false);
+        assertTrue(selector.getDifficulty(ifCorrect) > 0);
+        assertTrue(selector.getDifficulty(ifWrong) < 0);
+        assertEquals(0, selector.getAbility(), 0);
+        assertEquals(1, selector.getVariance(), 0);
+
+        // Nothing was marked asked by peeking
+        selector.markAsked(ifCorrect);
+        int remaining = 0;
+        while (selector.next() >= 0) remaining++;
+        assertEquals(difficulties.length - 1, remaining);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.phiz.helpers;
+
+import com.example.phiz.models.Doodle;
+import com.example.phiz.models.Leaderboard;
+import com.example.phiz.models.NotificationPreferences;
+import com.example.phiz.models.Question;
+import com.example.phiz.models.QuizResult;
+import com.example.phiz.models.Test;
+import com.example.phiz.models.User;
+import com.google.firebase.firestore.Blob;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the hand-written mappers read Firestore's value types the way toObject() does.
+ */
+public class DocumentMappersTest {
+
+    @org.junit.Test
+    public void userFromMap_readsLongsAndNestedPreferences() {
+        Map<String, Object> prefs = new HashMap<>();
+        prefs.put("studyReminders", false);
+        prefs.put("reminderTime", "07:30");
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("uid", "u1");
+        data.put("name", "Dana");
+        data.put("role", "student");
+        data.put("totalScore", 120L);
+        data.put("testsCompleted", 3L);
+        data.put("notificationPreferences", prefs);
+
+        User user = DocumentMappers.userFromMap(data);
+        assertEquals("u1", user.getUid());
+        assertEquals("Dana", user.getName());
+        assertEquals(120, user.getTotalScore());
+        assertEquals(3, user.getTestsCompleted());
+        assertNull(user.getEmail());
+
+        NotificationPreferences mapped = user.getNotificationPreferences();
+        assertFalse(mapped.isStudyReminders());
+        assertEquals("07:30", mapped.getReminderTime());
+        // Missing fields keep the model defaults
+        assertTrue(mapped.isQuizNotifications());
+        assertEquals(5, mapped.getReminderDays().size());
+    }
+
+    @org.junit.Test
+    public void questionFromMap_acceptsLongOrDoubleNumbers() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("questionId", "q1");
+        data.put("questionText", "F = ?");
+        data.put("options", Arrays.asList("ma", "mv", "mg", "m/a"));
+        data.put("correctAnswerIndex", 0L);
+        data.put("pointValue", 20.0);
+        data.put("sortKey", 0.25);
+
+        Question question = DocumentMappers.questionFromMap(data);
+        assertEquals("q1", question.getQuestionId());
+        assertEquals(4, question.getOptions().size());
+        assertEquals(0, question.getCorrectAnswerIndex());
+        assertEquals(20, question.getPointValue());
+        assertEquals(0.25, question.getSortKey(), 0.0);
+        assertNull(question.getDifficulty());
+    }
+
+    @org.junit.Test
+    public void questionFromMap_readsSimulationSpec() {
+        Map<String, Object> simulation = new HashMap<>();
+        simulation.put("mass", 5L);
+        simulation.put("appliedForce", 30.0);
+        simulation.put("frictionCoefficient", 0.2);
+        simulation.put("seconds", 3L);
+        simulation.put("quantity", "velocity");
+        simulation.put("answer", 12.12);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("questionId", "q2");
+        data.put("simulation", simulation);
+
+        Question question = DocumentMappers.questionFromMap(data);
+        assertNotNull(question.getSimulation());
+        assertEquals(5.0, question.getSimulation().getMass(), 0.0);
+        assertEquals(0.0, question.getSimulation().getAngle(), 0.0);
+        assertEquals("velocity", question.getSimulation().getQuantity());
+        assertNull(DocumentMappers.questionFromMap(new HashMap<>()).getSimulation());
+    }
+
+    @org.junit.Test
+    public void quizResultFromMap_readsDenormalizedName() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", "u1");
+        data.put("userName", "Dana");
+        data.put("score", 90L);
+        data.put("totalQuestions", 5L);
+        data.put("questionIds", Arrays.asList("q1", "q2", "q3"));
+        data.put("selectedOptions", Arrays.asList(2L, -1L, 0L));
+        data.put("correct", Arrays.asList(true, false, true));
+        data.put("responseTimesMs", Arrays.asList(4200L, 30000L, 1500.0));
+
+        QuizResult result = DocumentMappers.quizResultFromMap(data);
+        assertEquals("Dana", result.getUserName());
+        assertEquals(90, result.getScore());
+        assertEquals(5, result.getTotalQuestions());
+        assertNull(result.getTimestamp());
+        assertEquals(0, result.getDoodleCount());
+        assertEquals(Arrays.asList("q1", "q2", "q3"), result.getQuestionIds());
+        assertEquals(Arrays.asList(2, -1, 0), result.getSelectedOptions());
+        assertEquals(Arrays.asList(true, false, true), result.getCorrect());
+        assertEquals(Arrays.asList(4200L, 30000L, 1500L), result.getResponseTimesMs());
+    }
+
+    @org.junit.Test
+    public void doodleFromMap_readsInkBlob() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("questionIndex", 2L);
+        data.put("questionText", "v = ?");
+        data.put("ink", Blob.fromBytes(new byte[]{1, 2, 3}));
+
+        Doodle doodle = DocumentMappers.doodleFromMap(data);
+        assertEquals(2, doodle.getQuestionIndex());
+        assertEquals("v = ?", doodle.getQuestionText());
+        assertArrayEquals(new byte[]{1, 2, 3}, doodle.getInk().toBytes());
+        assertNull(DocumentMappers.doodleFromMap(new HashMap<>()).getInk());
+    }
+
+    @org.junit.Test
+    public void testFromMap_mapsEmbeddedQuestions() {
+        Map<String, Object> question = new HashMap<>();
+        question.put("questionText", "a = ?");
+        question.put("pointValue", 10L);
+
+        List<Object> questions = new ArrayList<>();
+        questions.add(question);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("testId", "t1");
+        data.put("active", true);
+        data.put("questions", questions);
+
+        Test test = DocumentMappers.testFromMap(data);
+        assertEquals("t1", test.getTestId());
+        assertTrue(test.isActive());
+        assertEquals(1, test.getQuestionCount());
+        assertEquals(10, test.calculateTotalPoints());
+    }
+
+    @org.junit.Test
+    public void leaderboardFromMap_ranksFromTopListAndBuckets() {
+        List<Object> top = new ArrayList<>();
+        top.add(entry("u1", "Dana", 450L));
+        top.add(entry("u2", "Eli", 380L));
+
+        Map<String, Object> buckets = new HashMap<>();
+        buckets.put("4", 1L);
+        buckets.put("3", 2L);
+        buckets.put("1", 5L);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("top", top);
+        data.put("buckets", buckets);
+        data.put("bucketSize", 100L);
+        data.put("studentCount", 8L);
+
+        Leaderboard leaderboard = DocumentMappers.leaderboardFromMap(data);
+        assertEquals(2, leaderboard.getTop().size());
+        assertEquals(8, leaderboard.getStudentCount());
+        assertEquals(2, leaderboard.getRank("u2", 380));
+        // Not on the top list: behind everyone in buckets 3 and 4
+        assertEquals(4, leaderboard.getRank("u9", 150));
+        assertEquals(3, leaderboard.getRank("u8", 310));
+    }
+
+    private static Map<String, Object> entry(String uid, String name, long totalScore) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("uid", uid);
+        entry.put("name", name);
+        entry.put("totalScore", totalScore);
+        return entry;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.phiz.helpers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Countdown, wakeups and response times of the quiz clock.
+ */
+public class QuizClockTest {
+
+    @Test
+    public void countdown_wakesOnEachSecondAndAtTimeUp() {
+        QuizClock clock = new QuizClock(30000, 2000);
+        long start = 10000;
+        clock.startQuestion(start);
+
+        assertEquals(30, clock.getSecondsLeft(start));
+        assertEquals(start + 1000, clock.nextWakeup(start));
+        // A late wakeup doesn't shift later ticks
+        assertEquals(29, clock.getSecondsLeft(start + 1250));
+        assertEquals(start + 2000, clock.nextWakeup(start + 1250));
+
+        assertEquals(1, clock.getSecondsLeft(start + 29999));
+        assertFalse(clock.isTimeUp(start + 29999));
+        assertTrue(clock.isTimeUp(start + 30000));
+        assertEquals(0, clock.getSecondsLeft(start + 30500));
+    }
+
+    @Test
+    public void answer_recordsResponseTimeAndSchedulesAdvance() {
+        QuizClock clock = new QuizClock(30000, 2000);
+        clock.startQuestion(0);
+        assertEquals(4200, clock.endQuestion(4200));
+        // Answering twice keeps the first time
+        assertEquals(4200, clock.endQuestion(9000));
+        assertEquals(-1, clock.nextWakeup(5000));
+
+        clock.scheduleAdvance(5000);
+        assertEquals(7000, clock.nextWakeup(5000));
+        assertFalse(clock.isAdvanceDue(6999));
+        assertTrue(clock.isAdvanceDue(7000));
+
+        // Timing out records the full time allowed
+        clock.startQuestion(8000);
+        assertEquals(30000, clock.endQuestion(38500));
+        assertEquals(30000, clock.endQuestion(40000));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.phiz.helpers;
+
+import com.example.phiz.models.QuizResult;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Recording responses and writing them onto the result as parallel lists.
+ */
+public class QuizResponsesTest {
+
+    @Test
+    public void writeTo_copiesParallelListsInQuizOrder() {
+        QuizResponses responses = new QuizResponses(5);
+        responses.record(0, "q1", 2, true, 4200);
+        responses.record(1, "q2", QuizResponses.NO_ANSWER, false, 30000);
+        responses.record(2, "q3", 0, false, 1500);
+        assertEquals(3, responses.size());
+
+        QuizResult result = new QuizResult();
+        responses.writeTo(result, 3);
+        assertEquals(Arrays.asList("q1", "q2", "q3"), result.getQuestionIds());
+        assertEquals(Arrays.asList(2, -1, 0), result.getSelectedOptions());
+        assertEquals(Arrays.asList(true, false, false), result.getCorrect());
+        assertEquals(Arrays.asList(4200L, 30000L, 1500L), result.getResponseTimesMs());
+    }
+
+    @Test
+    public void unrecordedQuestions_areWrittenAsUnanswered() {
+        QuizResponses responses = new QuizResponses(5);
+        responses.record(0, "q1", 1, true, 900);
+
+        QuizResult result = new QuizResult();
+        responses.writeTo(result, 2);
+        assertNull(result.getQuestionIds().get(1));
+        assertEquals(Integer.valueOf(QuizResponses.NO_ANSWER), result.getSelectedOptions().get(1));
+        assertEquals(Long.valueOf(-1), result.getResponseTimesMs().get(1));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.phiz.helpers;
+
+import com.example.phiz.models.User;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Staleness, pinning and LRU eviction of the in-memory user cache.
+ */
+public class UserCacheTest {
+
+    private long now = 1000;
+
+    private UserCache newCache(int capacity) {
+        return new UserCache(capacity, () -> now);
+    }
+
+    private static User user(String uid) {
+        return new User(uid, uid + "@example.com", uid, "student");
+    }
+
+    @Test
+    public void get_respectsMaxStaleness() {
+        UserCache cache = newCache(4);
+        cache.put("a", user("a"));
+
+        now += 5000;
+        assertNotNull(cache.get("a", 5000));
+        assertNull(cache.get("a", 4999));
+    }
+
+    @Test
+    public void pinnedUser_neverStaleAndNotEvicted() {
+        UserCache cache = newCache(2);
+        cache.put("me", user("me"));
+        cache.pin("me");
+        cache.put("b", user("b"));
+        cache.put("c", user("c"));
+
+        now += 60 * 60 * 1000;
+        assertNotNull(cache.get("me", 0));
+        assertNull(cache.get("b", Long.MAX_VALUE));
+        assertEquals(2, cache.size());
+
+        cache.invalidate("me");
+        assertNotNull(cache.get("me", 0));
+        cache.unpin("me");
+        assertNull(cache.get("me", 0));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        UserCache cache = newCache(2);
+        cache.put("a", user("a"));
+        cache.put("b", user("b"));
+        cache.get("a", Long.MAX_VALUE);
+        cache.put("c", user("c"));
+
+        assertNotNull(cache.get("a", Long.MAX_VALUE));
+        assertNull(cache.get("b", Long.MAX_VALUE));
+        assertNotNull(cache.get("c", Long.MAX_VALUE));
+    }
+}
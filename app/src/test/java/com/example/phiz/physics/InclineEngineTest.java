@@ -0,0 +1,74 @@
+package com.example.phiz.physics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fixed-timestep behaviour of the incline engine: results don't depend on the
+ * display's frame rate, and interpolation stays between steps.
+ */
+public class InclineEngineTest {
+
+    private static InclineEngine runAtFrameRate(double hz, double seconds) {
+        InclineEngine engine = new InclineEngine();
+        engine.setParameters(5.0, 30.0, 0.2, 0.0);
+        engine.reset();
+        int frames = (int) Math.round(seconds * hz);
+        for (int i = 0; i < frames; i++) {
+            engine.advance(1.0 / hz);
+        }
+        return engine;
+    }
+
+    @Test
+    public void acceleration_matchesNewtonsSecondLaw() {
+        InclineEngine engine = new InclineEngine();
+        engine.setParameters(5.0, 30.0, 0.2, 0.0);
+        // (30 - 0.2 * 5 * 9.8) / 5
+        assertEquals(4.04, engine.getAcceleration(), 1e-9);
+    }
+
+    @Test
+    public void simulatedTime_isIndependentOfFrameRate() {
+        InclineEngine at60 = runAtFrameRate(60, 2.0);
+        InclineEngine at144 = runAtFrameRate(144, 2.0);
+
+        // Equal up to the one step that accumulator rounding may leave for the next frame
+        double oneStep = InclineEngine.FIXED_TIMESTEP;
+        assertEquals(2.0, at60.getTime(), oneStep + 1e-9);
+        assertEquals(at60.getVelocity(), at144.getVelocity(), 4.04 * oneStep + 1e-9);
+        assertEquals(at60.getPosition(), at144.getPosition(), 8.1 * oneStep);
+
+        // Semi-implicit Euler stays close to x = a t² / 2
+        assertEquals(0.5 * 4.04 * 4.0, at60.getPosition(), 0.1);
+    }
+
+    @Test
+    public void longFrame_isClampedAndRemainderInterpolated() {
+        InclineEngine engine = new InclineEngine();
+        engine.reset();
+        int steps = engine.advance(5.0);
+        assertEquals((int) (0.25 / InclineEngine.FIXED_TIMESTEP), steps);
+
+        engine.advance(InclineEngine.FIXED_TIMESTEP / 2);
+        double drawn = engine.getInterpolatedPosition();
+        assertTrue(drawn <= engine.getPosition());
+        assertTrue(drawn > engine.getPosition() - engine.getVelocity() * InclineEngine.FIXED_TIMESTEP);
+    }
+
+    @Test
+    public void block_stopsAtBounds() {
+        InclineEngine engine = new InclineEngine();
+        engine.setBounds(0, 1.0);
+        engine.reset();
+        for (int i = 0; i < 240; i++) engine.step();
+        assertEquals(1.0, engine.getPosition(), 0.0);
+        assertEquals(0.0, engine.getVelocity(), 0.0);
+
+        // Friction larger than the applied force pushes back to the start and stops there
+        engine.setParameters(5.0, 0.0, 0.5, 0.0);
+        for (int i = 0; i < 480; i++) engine.step();
+        assertEquals(0.0, engine.getPosition(), 0.0);
+    }
+}
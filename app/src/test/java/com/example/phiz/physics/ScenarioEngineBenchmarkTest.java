@@ -0,0 +1,46 @@
+package com.example.phiz.physics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Step-time benchmark for the collision-heavy scenario.
+ *
+ * Wall-clock timing, so it only runs when asked for with
+ * {@code ./gradlew test -Pbenchmarks}. Warm up until the JIT has compiled the
+ * step, then time batches of steps and check the median batch. A 60 fps frame
+ * needs two 120 Hz steps, so the assertion keeps the median well inside that budget.
+ */
+public class ScenarioEngineBenchmarkTest {
+    private static final int BODIES = 500;
+    private static final int WARMUP_STEPS = 2_000;
+    private static final int BATCHES = 15;
+    private static final int STEPS_PER_BATCH = 120;
+
+    private static final double FRAME_BUDGET_MS = 1000.0 / 60;
+
+    @Test
+    public void ballPit_stepsWithinFrameBudget() {
+        assumeTrue("benchmarks disabled", Boolean.getBoolean("phiz.benchmarks"));
+
+        ScenarioEngine engine = Scenarios.ballPit(BODIES, 12f, 12f, 7L);
+        for (int i = 0; i < WARMUP_STEPS; i++) engine.step();
+
+        double[] batchMs = new double[BATCHES];
+        for (int b = 0; b < BATCHES; b++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < STEPS_PER_BATCH; i++) engine.step();
+            batchMs[b] = (System.nanoTime() - start) / 1e6 / STEPS_PER_BATCH;
+        }
+        Arrays.sort(batchMs);
+        double median = batchMs[BATCHES / 2];
+
+        double stepsPerFrame = FRAME_BUDGET_MS / (1000.0 * ScenarioEngine.FIXED_TIMESTEP);
+        assertTrue("median step " + median + " ms, " + engine.getPairTests() + " pair tests",
+                median * Math.ceil(stepsPerFrame) < FRAME_BUDGET_MS / 4);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.phiz.physics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Each scenario type against its textbook result, and the broad phase against brute force.
+ */
+public class ScenarioEngineTest {
+
+    @Test
+    public void projectile_landsAtTheoreticalRange() {
+        ScenarioEngine engine = Scenarios.projectile(10f, 45f, 0f);
+        engine.step();
+        while (engine.getY(0) > 0f) engine.step();
+
+        // R = v² sin(2θ) / g, to within a step's travel
+        float range = 10f * 10f / ScenarioEngine.GRAVITY;
+        float stepTravel = 10f * ScenarioEngine.FIXED_TIMESTEP;
+        assertEquals(range, engine.getX(0), stepTravel);
+        assertEquals(2 * 10f * Math.sin(Math.PI / 4) / ScenarioEngine.GRAVITY, engine.getTime(),
+                ScenarioEngine.FIXED_TIMESTEP);
+    }
+
+    @Test
+    public void atwoodMachine_acceleratesAtMassRatioOfGravity() {
+        ScenarioEngine engine = Scenarios.atwoodMachine(3f, 1f);
+        // Half a second, before the light side reaches the wheel
+        for (int i = 0; i < 60; i++) engine.step();
+
+        // a = (m1 - m2) / (m1 + m2) g; the heavy side falls, the light side rises as fast
+        float acceleration = (3f - 1f) / (3f + 1f) * ScenarioEngine.GRAVITY;
+        assertEquals(-acceleration * 0.5f, engine.getVelocityY(0), 0.01f);
+        assertEquals(acceleration * 0.5f, engine.getVelocityY(1), 0.01f);
+        assertEquals(-0.5f * acceleration * 0.25f, engine.getY(0), 0.02f);
+        assertEquals(-0.5f, engine.getX(0), 1e-6f);
+    }
+
+    @Test
+    public void spring_oscillatesWithNaturalPeriod() {
+        ScenarioEngine engine = new ScenarioEngine();
+        engine.setGravity(0f, 0f);
+        int anchor = engine.addBody(0f, 0f, 0.05f, 0f);
+        int mass = engine.addBody(1.5f, 0f, 0.1f, 2f);
+        engine.addSpring(anchor, mass, 1f, 50f, 0f);
+
+        // Released 0.5 m stretched: count time until it is back at full stretch
+        double halfPeriodAt = -1;
+        float previousVelocity = 0f;
+        while (engine.getTime() < 5) {
+            engine.step();
+            float velocity = engine.getVelocityX(mass);
+            if (previousVelocity < 0f && velocity >= 0f && halfPeriodAt < 0) {
+                halfPeriodAt = engine.getTime();
+            }
+            previousVelocity = velocity;
+        }
+
+        // T = 2π √(m / k)
+        double period = 2 * Math.PI * Math.sqrt(2.0 / 50.0);
+        assertEquals(period / 2, halfPeriodAt, 2 * ScenarioEngine.FIXED_TIMESTEP);
+    }
+
+    @Test
+    public void broadPhase_findsSameContactsAsBruteForceAndConservesMomentum() {
+        ScenarioEngine grid = Scenarios.ballPit(400, 10f, 10f, 42L);
+        ScenarioEngine bruteForce = Scenarios.ballPit(400, 10f, 10f, 42L);
+        grid.setGravity(0f, 0f);
+        bruteForce.setGravity(0f, 0f);
+        bruteForce.setBroadPhaseEnabled(false);
+
+        int contacts = grid.countContacts();
+        assertTrue(contacts > 0);
+        assertEquals(bruteForce.countContacts(), contacts);
+        assertTrue(grid.getPairTests() < bruteForce.getPairTests() / 10);
+
+        grid.step();
+        // No gravity and bodies at rest: collisions alone can't create momentum
+        assertEquals(0f, grid.getMomentumX(), 1e-3f);
+        assertEquals(0f, grid.getMomentumY(), 1e-3f);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.phiz.physics;
+
+import com.example.phiz.models.SimulationSpec;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Grading cost of simulation answers, each of which is a full headless re-run.
+ *
+ * Wall-clock timing, so it only runs when asked for with
+ * {@code ./gradlew test -Pbenchmarks}.
+ */
+public class SimulationQuestionsBenchmarkTest {
+    private static final int ANSWERS = 10_000;
+
+    @Test
+    public void verify_gradesThousandsOfAnswersQuickly() {
+        assumeTrue("benchmarks disabled", Boolean.getBoolean("phiz.benchmarks"));
+
+        SimulationRunner runner = new SimulationRunner();
+        SimulationSpec spec = new SimulationSpec(5, 30, 0.2, 10, 3, SimulationSpec.QUANTITY_POSITION);
+        double answer = runner.measure(spec);
+
+        long start = System.nanoTime();
+        int correct = 0;
+        for (int i = 0; i < ANSWERS; i++) {
+            spec.setSeconds(1 + (i % 5));
+            if (SimulationQuestions.verify(runner, spec, answer)) correct++;
+        }
+        double microsPerAnswer = (System.nanoTime() - start) / 1e3 / ANSWERS;
+
+        assertEquals(ANSWERS / 5, correct);
+        assertTrue("verify took " + microsPerAnswer + " us per answer", microsPerAnswer < 100);
+    }
+}
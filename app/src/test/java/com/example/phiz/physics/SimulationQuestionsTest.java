@@ -0,0 +1,92 @@
+package com.example.phiz.physics;
+
+import com.example.phiz.models.SimulationSpec;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Headless runs are repeatable, and generated questions grade consistently.
+ */
+public class SimulationQuestionsTest {
+
+    @Test
+    public void run_isDeterministicAndMatchesKinematics() {
+        SimulationRunner first = new SimulationRunner();
+        SimulationRunner second = new SimulationRunner();
+        first.run(5, 30, 0.2, 10, 3);
+        second.run(1, 1, 0, 0, 1);
+        second.run(5, 30, 0.2, 10, 3);
+
+        assertEquals(360, first.getSteps());
+        assertEquals(first.getVelocity(), second.getVelocity(), 0.0);
+        assertEquals(first.getPosition(), second.getPosition(), 0.0);
+
+        // v = a t exactly; x = ½ a t² to within the integrator's one-step lead
+        double a = first.getAcceleration();
+        assertEquals(a * 3, first.getVelocity(), 1e-9);
+        assertEquals(0.5 * a * 9, first.getPosition(), a * 3 * InclineEngine.FIXED_TIMESTEP);
+    }
+
+    @Test
+    public void generate_hasOneVerifiableCorrectOption() {
+        SimulationRunner runner = new SimulationRunner();
+        for (String quantity : new String[]{SimulationSpec.QUANTITY_VELOCITY, SimulationSpec.QUANTITY_POSITION,
+                SimulationSpec.QUANTITY_ACCELERATION}) {
+            SimulationSpec spec = new SimulationSpec(5, 30, 0.2, 10, 3, quantity);
+            SimulationQuestions.Generated generated = SimulationQuestions.generate(spec, 1L);
+
+            assertEquals(SimulationQuestions.OPTION_COUNT, generated.options.size());
+            for (int i = 0; i < generated.options.size(); i++) {
+                boolean matches = SimulationQuestions.verifyOption(runner, spec, generated.options.get(i));
+                assertEquals(quantity + " option " + i, i == generated.correctAnswerIndex, matches);
+            }
+            assertEquals(generated.options, SimulationQuestions.generate(spec, 1L).options);
+        }
+
+        // Nothing to get wrong about friction or the slope: scaled answers fill the gaps
+        SimulationSpec frictionless = new SimulationSpec(2, 10, 0, 0, 2, SimulationSpec.QUANTITY_ACCELERATION);
+        assertEquals(4, SimulationQuestions.generate(frictionless, 7L).options.size());
+    }
+
+    @Test
+    public void generate_keysTheAnswerToTheDisplayedInputs() {
+        SimulationSpec spec = new SimulationSpec(0.25, 3.04, 0.123, 30.4, 2.25, SimulationSpec.QUANTITY_POSITION);
+        SimulationQuestions.Generated generated = SimulationQuestions.generate(spec, 1L);
+
+        assertTrue(generated.questionText, generated.questionText.contains("0.3 kg"));
+        assertTrue(generated.questionText, generated.questionText.contains("30° incline"));
+        assertTrue(generated.questionText, generated.questionText.contains("2.3 s"));
+
+        // The keyed option is what the numbers in the text give
+        SimulationRunner runner = new SimulationRunner();
+        runner.run(0.3, 3.0, 0.12, 30, 2.3);
+        double keyed = SimulationQuestions.parseValue(generated.options.get(generated.correctAnswerIndex));
+        assertEquals(runner.getPosition(), keyed, 0.005);
+    }
+
+    @Test
+    public void generate_rejectsBlockThatDoesNotMove() {
+        try {
+            SimulationQuestions.generate(new SimulationSpec(5, 5, 0.5, 0, 3, SimulationSpec.QUANTITY_VELOCITY), 1L);
+            fail("Friction exceeds the applied force, so there is nothing to ask about");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void verify_acceptsOnlyTheAnswerForTheShownInputs() {
+        SimulationRunner runner = new SimulationRunner();
+        SimulationSpec spec = new SimulationSpec(5, 30, 0.2, 10, 3, SimulationSpec.QUANTITY_POSITION);
+        double answer = runner.measure(spec);
+
+        int correct = 0;
+        for (int i = 0; i < 50; i++) {
+            spec.setSeconds(1 + (i % 5));
+            if (SimulationQuestions.verify(runner, spec, answer)) correct++;
+        }
+        assertEquals(10, correct);
+    }
+}
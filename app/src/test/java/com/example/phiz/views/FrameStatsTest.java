@@ -0,0 +1,59 @@
+package com.example.phiz.views;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Frame interval distribution and jank counting.
+ */
+public class FrameStatsTest {
+    private static final long VSYNC_120HZ = 8_333_333L;
+
+    @Test
+    public void steadyFrames_reportRefreshRate() {
+        FrameStats stats = new FrameStats(FrameStats.DEFAULT_WINDOW);
+        stats.setRefreshRate(120);
+        for (int i = 1; i <= 121; i++) stats.onFrame(i * VSYNC_120HZ);
+
+        FrameStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(120, snapshot.frames);
+        assertEquals(8.333, snapshot.p99Ms, 0.001);
+        assertEquals(120.0, snapshot.getFps(), 0.01);
+        assertEquals(0, snapshot.jankFrames);
+    }
+
+    @Test
+    public void missedVsyncs_countAsJankAndShowInTail() {
+        FrameStats stats = new FrameStats(100);
+        stats.setRefreshRate(120);
+        long time = VSYNC_120HZ;
+        stats.onFrame(time);
+        for (int i = 0; i < 100; i++) {
+            // Every 20th frame misses two vsyncs
+            time += (i % 20 == 19) ? 3 * VSYNC_120HZ : VSYNC_120HZ;
+            stats.onFrame(time);
+        }
+
+        FrameStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(5, snapshot.jankFrames);
+        assertEquals(8.333, snapshot.p50Ms, 0.001);
+        assertEquals(25.0, snapshot.p99Ms, 0.001);
+        assertEquals(25.0, snapshot.maxMs, 0.001);
+    }
+
+    @Test
+    public void pause_dropsTheGapAndWindowKeepsRecentFrames() {
+        FrameStats stats = new FrameStats(10);
+        stats.onFrame(1_000_000L);
+        stats.onFrame(2_000_000L);
+        stats.pause();
+        stats.onFrame(5_000_000_000L);
+        assertEquals(1, stats.snapshot().frames);
+        assertEquals(1.0, stats.snapshot().maxMs, 1e-9);
+
+        for (int i = 1; i <= 20; i++) stats.onFrame(5_000_000_000L + i * 2_000_000L);
+        assertEquals(10, stats.snapshot().frames);
+        assertEquals(2.0, stats.snapshot().maxMs, 1e-9);
+    }
+}
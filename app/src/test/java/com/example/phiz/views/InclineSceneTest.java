@@ -0,0 +1,62 @@
+package com.example.phiz.views;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Frame geometry of the incline scene, and that computing a frame allocates nothing.
+ */
+public class InclineSceneTest {
+
+    @Test
+    public void update_placesBlockOnSlopeAndVectorsFromCenter() {
+        InclineScene scene = new InclineScene(80f);
+        scene.setSize(1000, 1000);
+        scene.setParameters(5f, 30f, 0.2f, 45f);
+        scene.update(100f, false);
+
+        // surfaceY - size - x * tan(45°)
+        assertEquals(700f - 80f - 100f, scene.getObjectY(), 1e-3f);
+        assertEquals(700f - 1000f, scene.getSurfaceEndY(), 1e-2f);
+
+        // Gravity points straight down by 2 px per newton
+        assertEquals(scene.getCenterX(), scene.getVectorEndX(InclineScene.VECTOR_GRAVITY), 1e-3f);
+        assertEquals(scene.getCenterY() + 5f * 9.8f * 2f, scene.getVectorEndY(InclineScene.VECTOR_GRAVITY), 1e-3f);
+
+        // Friction only shows while moving
+        assertFalse(scene.isVectorVisible(InclineScene.VECTOR_FRICTION));
+        scene.update(100f, true);
+        assertTrue(scene.isVectorVisible(InclineScene.VECTOR_FRICTION));
+    }
+
+    @Test
+    public void update_allocatesNothingPerFrame() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return;  // Not measurable on this JVM
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        long threadId = Thread.currentThread().getId();
+
+        InclineScene scene = new InclineScene(80f);
+        scene.setSize(1080, 720);
+        scene.setParameters(5f, 30f, 0.2f, 15f);
+
+        // Warm up so JIT compilation doesn't count
+        float x = 100f;
+        for (int i = 0; i < 20_000; i++) {
+            scene.update(x + (i % 500), (i & 1) == 0);
+        }
+
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            scene.update(x + (i % 500), (i & 1) == 0);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        // A single allocation per frame would be at least 1.6 MB here
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.phiz.views;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips, size budget and malformed input for the saved ink format.
+ */
+public class InkCodecTest {
+
+    @Test
+    public void roundTrip_keepsStylesAndPointsWithinGrid() {
+        StrokeStore store = new StrokeStore();
+        int red = store.styleId(0xFFFF0000, 8f);
+        int blue = store.styleId(0xFF0000FF, 4.5f);
+        store.addStroke(red, new float[]{10.2f, 20.7f, 300f, 40f, 305.4f, 900.6f}, 0, 3);
+        store.addStroke(blue, new float[]{5f, 5f}, 0, 1);
+
+        byte[] ink = InkCodec.encode(store, 1080, 1920, InkCodec.DEFAULT_MAX_BYTES);
+        StrokeStore decoded = new StrokeStore();
+        InkCodec.Header header = InkCodec.decode(ink, decoded);
+
+        assertEquals(1080, header.width);
+        assertEquals(1920, header.height);
+        assertEquals(1, header.gridStep);
+        assertEquals(2, decoded.getStrokeCount());
+        assertEquals(3, decoded.getStrokePointCount(0));
+        assertEquals(0xFF0000FF, decoded.getStyleColor(decoded.getStrokeStyle(1)));
+        assertEquals(4.5f, decoded.getStyleWidth(decoded.getStrokeStyle(1)), 0f);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(store.getX(0, i), decoded.getX(0, i), 0.5f);
+            assertEquals(store.getY(0, i), decoded.getY(0, i), 0.5f);
+        }
+
+        assertNull(InkCodec.encode(new StrokeStore(), 100, 100, InkCodec.DEFAULT_MAX_BYTES));
+    }
+
+    @Test
+    public void encode_staysWithinBudget() {
+        // A page of handwriting: 150 strokes of 40 simplified points each
+        StrokeStore store = new StrokeStore();
+        int style = store.styleId(0xFFFF0000, 8f);
+        Random random = new Random(7);
+        for (int s = 0; s < 150; s++) {
+            float x = random.nextFloat() * 1000, y = random.nextFloat() * 1800;
+            store.beginStroke(x, y, style);
+            for (int i = 0; i < 40; i++) {
+                x += random.nextFloat() * 30 - 15;
+                y += random.nextFloat() * 30 - 15;
+                store.addPoint(x, y);
+            }
+            store.commitStroke(0f);
+        }
+
+        byte[] full = InkCodec.encode(store, 1080, 1920, Integer.MAX_VALUE);
+        // About two bytes a point against eight as raw floats
+        assertTrue(full.length < store.getPointCount() * 3);
+
+        byte[] small = InkCodec.encode(store, 1080, 1920, 4 * 1024);
+        assertTrue(small.length <= 4 * 1024);
+        StrokeStore decoded = new StrokeStore();
+        InkCodec.Header header = InkCodec.decode(small, decoded);
+        assertTrue(header.gridStep > 1);
+        assertTrue(decoded.getStrokeCount() > 0);
+    }
+
+    @Test
+    public void encode_downsamplesInsteadOfDroppingStrokes() {
+        // One long stroke that doesn't fit even at the coarsest grid
+        StrokeStore store = new StrokeStore();
+        int style = store.styleId(0xFF0000FF, 4f);
+        store.beginStroke(0f, 0f, style);
+        Random random = new Random(3);
+        for (int i = 0; i < 3000; i++) {
+            store.addPoint(random.nextFloat() * 1000, random.nextFloat() * 1000);
+        }
+        store.commitStroke(0f);
+        store.addStroke(style, new float[]{10f, 10f, 500f, 500f}, 0, 2);
+
+        byte[] ink = InkCodec.encode(store, 1000, 1000, 1024);
+        assertTrue(ink.length <= 1024);
+        StrokeStore decoded = new StrokeStore();
+        InkCodec.decode(ink, decoded);
+        assertEquals(2, decoded.getStrokeCount());
+        assertTrue(decoded.getStrokePointCount(0) < store.getStrokePointCount(0));
+        // Both ends of the long stroke survive, to within the grid
+        int last = store.getStrokePointCount(0) - 1;
+        int decodedLast = decoded.getStrokePointCount(0) - 1;
+        assertEquals(store.getX(0, last), decoded.getX(0, decodedLast), 4f);
+        assertEquals(store.getY(0, last), decoded.getY(0, decodedLast), 4f);
+        assertEquals(2, decoded.getStrokePointCount(1));
+
+        // Never a header-only payload: ink that can't fit at all isn't saved
+        assertNull(InkCodec.encode(store, 1000, 1000, 12));
+    }
+
+    @Test
+    public void encode_dropsOldestStrokesOnlyWhenEndsDontFit() {
+        // Far more strokes than fit even as their ends alone
+        StrokeStore store = new StrokeStore();
+        int style = store.styleId(0xFF00FF00, 4f);
+        Random random = new Random(11);
+        for (int s = 0; s < 500; s++) {
+            store.addStroke(style, new float[]{random.nextFloat() * 1000, random.nextFloat() * 1000,
+                    random.nextFloat() * 1000, random.nextFloat() * 1000}, 0, 2);
+        }
+
+        byte[] ink = InkCodec.encode(store, 1000, 1000, 512);
+        assertTrue(ink.length <= 512);
+        StrokeStore decoded = new StrokeStore();
+        InkCodec.decode(ink, decoded);
+        int kept = decoded.getStrokeCount();
+        assertTrue(kept > 0 && kept < store.getStrokeCount());
+        // The newest strokes are the ones kept
+        int last = store.getStrokeCount() - 1;
+        assertEquals(store.getX(last, 1), decoded.getX(kept - 1, 1), 8f);
+        assertEquals(store.getY(last, 1), decoded.getY(kept - 1, 1), 8f);
+    }
+
+    @Test
+    public void decode_rejectsMalformedInk() {
+        StrokeStore store = new StrokeStore();
+        store.addStroke(store.styleId(0xFF000000, 2f), new float[]{1f, 2f, 3f, 4f}, 0, 2);
+        byte[] ink = InkCodec.encode(store, 100, 100, InkCodec.DEFAULT_MAX_BYTES);
+
+        byte[][] bad = {
+                new byte[0],
+                new byte[]{9, 1, 1, 1, 0},
+                // Style count far beyond what the data could hold
+                new byte[]{1, 1, 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F},
+                // Negative style count
+                new byte[]{1, 1, 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F},
+                Arrays.copyOf(ink, ink.length - 1)
+        };
+        for (byte[] data : bad) {
+            try {
+                InkCodec.decode(data, new StrokeStore());
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+}
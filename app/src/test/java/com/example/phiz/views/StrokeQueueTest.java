@@ -0,0 +1,103 @@
+package com.example.phiz.views;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ordering, overflow and cross-thread handoff of the doodle input queue.
+ */
+public class StrokeQueueTest {
+
+    /**
+     * Records what a drain delivered
+     */
+    private static class CountingSink implements StrokeQueue.Sink {
+        int downs, moves, ups, clears;
+        float lastX = -1;
+        boolean inOrder = true;
+
+        @Override
+        public void onDown(float x, float y, int color, float strokeWidth) {
+            downs++;
+            lastX = x;
+        }
+
+        @Override
+        public void onMove(float x, float y) {
+            moves++;
+            if (x <= lastX) inOrder = false;
+            lastX = x;
+        }
+
+        @Override
+        public void onUp() {
+            ups++;
+        }
+
+        @Override
+        public void onClear() {
+            clears++;
+        }
+    }
+
+    @Test
+    public void drain_deliversEntriesInOrder() {
+        StrokeQueue queue = new StrokeQueue(64);
+        queue.offerDown(0f, 0f, 0xFFFF0000, 8f);
+        for (int i = 1; i <= 10; i++) queue.offerMove(i, i);
+        queue.offerUp();
+        queue.offerClear();
+
+        CountingSink sink = new CountingSink();
+        assertEquals(13, queue.drain(sink));
+        assertEquals(1, sink.downs);
+        assertEquals(10, sink.moves);
+        assertEquals(1, sink.ups);
+        assertEquals(1, sink.clears);
+        assertTrue(sink.inOrder);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void full_dropsMovesButKeepsRoomForStrokeEnd() {
+        StrokeQueue queue = new StrokeQueue(32);
+        assertEquals(32, queue.getCapacity());
+        queue.offerDown(0f, 0f, 0, 8f);
+        int accepted = 0;
+        for (int i = 1; i <= 100; i++) {
+            if (queue.offerMove(i, i)) accepted++;
+        }
+        assertTrue(accepted < 31);
+        assertEquals(100 - accepted, queue.getDroppedPoints());
+        assertTrue(queue.offerUp());
+
+        CountingSink sink = new CountingSink();
+        queue.drain(sink);
+        assertEquals(1, sink.ups);
+        assertTrue(queue.offerMove(200, 200));
+    }
+
+    @Test
+    public void concurrentProducer_deliversEveryPointOnce() throws InterruptedException {
+        StrokeQueue queue = new StrokeQueue(256);
+        int points = 200_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= points; i++) {
+                while (!queue.offerMove(i, 0f)) {
+                    Thread.yield();
+                }
+            }
+        });
+
+        CountingSink sink = new CountingSink();
+        producer.start();
+        while (producer.isAlive() || !queue.isEmpty()) {
+            queue.drain(sink);
+        }
+        producer.join();
+
+        assertEquals(points, sink.moves);
+        assertTrue(sink.inOrder);
+    }
+}
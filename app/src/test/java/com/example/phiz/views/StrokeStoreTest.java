@@ -0,0 +1,91 @@
+package com.example.phiz.views;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simplification, style sharing and smoothed replay of stored strokes.
+ */
+public class StrokeStoreTest {
+
+    @Test
+    public void commit_dropsPointsWithinTolerance() {
+        StrokeStore store = new StrokeStore();
+        int style = store.styleId(0xFFFF0000, 8f);
+
+        // An L shape sampled every pixel, with sub-pixel jitter
+        store.beginStroke(0, 0, style);
+        for (int i = 1; i <= 100; i++) store.addPoint(i, (i % 2) * 0.3f);
+        for (int i = 1; i <= 100; i++) store.addPoint(100 + (i % 2) * 0.3f, i);
+        int stroke = store.commitStroke(1f);
+
+        assertEquals(3, store.getStrokePointCount(stroke));
+        assertEquals(100f, store.getX(stroke, 1), 0.5f);
+        assertEquals(0f, store.getY(stroke, 1), 0.5f);
+        assertEquals(100f, store.getY(stroke, 2), 0f);
+        assertFalse(store.isStrokeActive());
+
+        // A curve keeps enough points to stay within tolerance of every sample
+        store.beginStroke(0, 0, style);
+        for (int i = 1; i <= 200; i++) {
+            double angle = Math.PI * i / 200;
+            store.addPoint((float) (100 * Math.cos(angle)), (float) (100 * Math.sin(angle)));
+        }
+        int arc = store.commitStroke(1f);
+        int kept = store.getStrokePointCount(arc);
+        assertTrue(kept > 5 && kept < 40);
+    }
+
+    @Test
+    public void styles_areSharedBetweenStrokes() {
+        StrokeStore store = new StrokeStore();
+        int red = store.styleId(0xFFFF0000, 8f);
+        int blue = store.styleId(0xFF0000FF, 8f);
+        assertEquals(red, store.styleId(0xFFFF0000, 8f));
+        assertNotEquals(red, blue);
+
+        for (int i = 0; i < 50; i++) {
+            store.beginStroke(i, i, i % 2 == 0 ? red : blue);
+            store.commitStroke(1f);
+        }
+        assertEquals(2, store.getStyleCount());
+        assertEquals(50, store.getStrokeCount());
+        assertEquals(blue, store.getStrokeStyle(49));
+
+        store.clear();
+        assertEquals(0, store.getStrokeCount());
+        assertEquals(0, store.getPointCount());
+    }
+
+    @Test
+    public void replay_curvesThroughMidpoints() {
+        StrokeStore store = new StrokeStore();
+        float[] xy = {0, 0, 10, 0, 10, 10, 20, 10};
+        int stroke = store.addStroke(store.styleId(0, 4f), xy, 0, 4);
+
+        StringBuilder commands = new StringBuilder();
+        store.replay(stroke, new StrokeStore.PathSink() {
+            @Override
+            public void moveTo(float x, float y) {
+                commands.append("M").append(x).append(",").append(y).append(" ");
+            }
+
+            @Override
+            public void lineTo(float x, float y) {
+                commands.append("L").append(x).append(",").append(y).append(" ");
+            }
+
+            @Override
+            public void quadTo(float controlX, float controlY, float x, float y) {
+                commands.append("Q").append(controlX).append(",").append(controlY)
+                        .append(" ").append(x).append(",").append(y).append(" ");
+            }
+        });
+        assertEquals("M0.0,0.0 Q10.0,0.0 10.0,5.0 Q10.0,10.0 15.0,10.0 L20.0,10.0 ", commands.toString());
+
+        float[] bounds = new float[4];
+        store.getBounds(stroke, bounds);
+        assertArrayEquals(new float[]{0, 0, 20, 10}, bounds, 0f);
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Purge of soft-deleted questions.
+ *
+ * The app deletes a question by turning it into a tombstone (deleted: true,
+ * with deletedAt and updatedAt set) so the delta sync of every on-device
+ * question bank sees the deletion. Once a tombstone is older than the banks'
+ * full-refresh interval, every bank has either seen it or been rebuilt, so it
+ * can be removed for good.
+ */
+
+const { Timestamp } = require("firebase-admin/firestore");
+
+const QUESTIONS_COLLECTION = "questions";
+// Well past the app's one-day full refresh (QuestionBankCache.FULL_REFRESH_INTERVAL_MS)
+const TOMBSTONE_RETENTION_MS = 7 * 24 * 60 * 60 * 1000;
+const BATCH_SIZE = 400;
+
+/**
+ * Delete tombstones older than the retention period. Returns how many were removed.
+ */
+async function purgeDeletedQuestions(db, now = Date.now()) {
+  const cutoff = Timestamp.fromMillis(now - TOMBSTONE_RETENTION_MS);
+  let purged = 0;
+
+  for (;;) {
+    // Only tombstones have deletedAt
+    const page = await db.collection(QUESTIONS_COLLECTION)
+      .where("deletedAt", "<", cutoff)
+      .limit(BATCH_SIZE)
+      .get();
+    if (page.empty) break;
+
+    const batch = db.batch();
+    let removed = 0;
+    for (const doc of page.docs) {
+      if (doc.data().deleted !== true) continue;
+      batch.delete(doc.ref);
+      removed++;
+    }
+    if (removed === 0) break;
+    await batch.commit();
+    purged += removed;
+    if (page.size < BATCH_SIZE) break;
+  }
+  return purged;
+}
+
+module.exports = {
+  TOMBSTONE_RETENTION_MS,
+  purgeDeletedQuestions,
+};
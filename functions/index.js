@@ -5,14 +5,29 @@
  * - New question created (notify all students)
  * - Quiz completed (notify teachers)
  * - Low score alerts (notify teachers)
+ * - Student leaderboard maintenance (on grade created, rebuilt nightly)
+ * - Per-question item analysis (on grade created, in its own trigger)
+ * - Question sortKey backfill (scheduled, or on demand by a teacher)
+ * - Purge of soft-deleted questions (scheduled)
  * - Weekly digest (scheduled)
  */
 
 const { onDocumentCreated } = require("firebase-functions/v2/firestore");
 const { onSchedule } = require("firebase-functions/v2/scheduler");
+const { onCall, HttpsError } = require("firebase-functions/v2/https");
 const { initializeApp } = require("firebase-admin/app");
-const { getFirestore } = require("firebase-admin/firestore");
+const { getFirestore, FieldValue } = require("firebase-admin/firestore");
 const { getMessaging } = require("firebase-admin/messaging");
+const { sendInactivityReminders } = require("./reminders");
+const { updateItemAnalysis } = require("./itemAnalysis");
+const { backfillSortKeys } = require("./sortKeys");
+const { purgeDeletedQuestions } = require("./deletedQuestions");
+const {
+  LEADERBOARD_BUCKET_SIZE,
+  LEADERBOARD_DOC,
+  LEADERBOARD_TOP_N,
+  rebuildLeaderboard,
+} = require("./leaderboard");
 
 // Initialize Firebase Admin
 initializeApp();
@@ -20,6 +35,16 @@ initializeApp();
 const db = getFirestore();
 const messaging = getMessaging();
 
+// Grade events still failing after this long are dropped; the nightly
+// leaderboard rebuild makes up for them
+const GRADE_EVENT_MAX_AGE_MS = 60 * 60 * 1000;
+
+// Weekly digest counters, one document per digest run (keyed by its local date).
+// The zone is Cloud Scheduler's default, which the digest has always run in.
+const DIGEST_COLLECTION = "weeklyDigests";
+const DIGEST_TIME_ZONE = "America/Los_Angeles";
+const DIGEST_HOUR = 10;
+
 /**
  * Triggered when a new question is created.
  * Sends a notification to all students via the "all_students" topic.
@@ -30,6 +55,12 @@ exports.onQuestionCreated = onDocumentCreated("questions/{questionId}", async (e
 
   console.log(`New question created: ${questionId}`);
 
+  // Questions added outside the app (e.g. the console) need a random sortKey
+  // so the client's sampled quiz selection can find them
+  if (typeof questionData.sortKey !== "number") {
+    await event.data.ref.update({ sortKey: Math.random() });
+  }
+
   // Build the notification message
   const message = {
     topic: "all_students",
@@ -61,14 +92,67 @@ exports.onQuestionCreated = onDocumentCreated("questions/{questionId}", async (e
   }
 });
 
+/**
+ * Daily sortKey backfill for questions that predate onQuestionCreated or were
+ * written without one, so every question can be drawn by sampled quizzes
+ */
+exports.questionSortKeyBackfill = onSchedule("every day 03:00", async (event) => {
+  const metrics = await backfillSortKeys(db);
+  console.log(`sortKey backfill: ${metrics.updated} of ${metrics.scanned} question(s) updated`);
+  return metrics;
+});
+
+/**
+ * Run the sortKey backfill now, e.g. right after importing questions. Teachers only.
+ */
+exports.backfillQuestionSortKeys = onCall(async (request) => {
+  if (!request.auth) {
+    throw new HttpsError("unauthenticated", "Sign in to run the backfill");
+  }
+  const caller = await db.collection("users").doc(request.auth.uid).get();
+  if (!caller.exists || caller.data().role !== "teacher") {
+    throw new HttpsError("permission-denied", "Only teachers can run the backfill");
+  }
+  return await backfillSortKeys(db);
+});
+
+/**
+ * Daily removal of deleted-question tombstones that every device has had time to sync
+ */
+exports.purgeDeletedQuestions = onSchedule("every day 03:30", async (event) => {
+  const purged = await purgeDeletedQuestions(db);
+  console.log(`Purged ${purged} deleted question(s)`);
+  return { purged };
+});
+
+/**
+ * Nightly leaderboard rebuild, reconciling anything the per-grade updates missed
+ */
+exports.leaderboardRebuild = onSchedule("every day 04:00", async (event) => {
+  const metrics = await rebuildLeaderboard(db);
+  console.log(`Leaderboard rebuilt: ${metrics.ranked} student(s), ${metrics.corrected} corrected`);
+  return metrics;
+});
+
 /**
  * Triggered when a new grade is created in a user's grades subcollection.
  * Notifies teachers when a student completes a quiz.
+ *
+ * Retried on failure: every update below is flagged on the grade, so a retry
+ * only redoes what failed, and teachers are only notified once they all succeed.
  */
-exports.onGradeCreated = onDocumentCreated("users/{userId}/grades/{gradeId}", async (event) => {
+exports.onGradeCreated = onDocumentCreated({
+  document: "users/{userId}/grades/{gradeId}",
+  retry: true,
+}, async (event) => {
   const gradeData = event.data.data();
   const userId = event.params.userId;
 
+  if (Date.now() - Date.parse(event.time) > GRADE_EVENT_MAX_AGE_MS) {
+    console.error(`Dropping grade event ${event.id} for user ${userId}: still failing after retries`);
+    return null;
+  }
+
   console.log(`New grade created for user: ${userId}`);
 
   // Get user info for the notification
@@ -80,11 +164,33 @@ exports.onGradeCreated = onDocumentCreated("users/{userId}/grades/{gradeId}", as
 
   const userData = userDoc.data();
 
+  // Denormalize the student's name onto the grade so the teacher grade feed
+  // can page through a single collection-group query without user lookups
+  if (!gradeData.userName && userData.name) {
+    await event.data.ref.update({ userName: userData.name });
+  }
+
   // Only notify for students
   if (userData.role !== "student") {
     return null;
   }
 
+  try {
+    await updateLeaderboard(userId, event.data.ref);
+  } catch (error) {
+    // The one leaderboard document is contended; let the trigger retry
+    console.error("Error updating leaderboard:", error);
+    throw error;
+  }
+
+  try {
+    await updateWeeklyDigestCounters(userId, event.data.ref);
+  } catch (error) {
+    // digestApplied on the grade makes the retry idempotent
+    console.error("Error updating weekly digest counters:", error);
+    throw error;
+  }
+
   const studentName = userData.name || "A student";
   const score = gradeData.score || 0;
   const totalQuestions = gradeData.totalQuestions || 5;
@@ -128,6 +234,164 @@ exports.onGradeCreated = onDocumentCreated("users/{userId}/grades/{gradeId}", as
   }
 });
 
+/**
+ * Folds each new student grade into the per-question item statistics. Kept out
+ * of onGradeCreated so a retry here never holds up the teacher notification.
+ */
+exports.onGradeCreatedItemAnalysis = onDocumentCreated({
+  document: "users/{userId}/grades/{gradeId}",
+  retry: true,
+}, async (event) => {
+  const userId = event.params.userId;
+
+  if (Date.now() - Date.parse(event.time) > GRADE_EVENT_MAX_AGE_MS) {
+    console.error(`Dropping item analysis for grade event ${event.id}: still failing after retries`);
+    return null;
+  }
+
+  const userDoc = await db.collection("users").doc(userId).get();
+  if (!userDoc.exists || userDoc.data().role !== "student") {
+    return null;
+  }
+
+  try {
+    await updateItemAnalysis(db, event.data.ref);
+  } catch (error) {
+    // itemAnalysisApplied on the grade makes the retry idempotent
+    console.error("Error updating item analysis:", error);
+    throw error;
+  }
+  return null;
+});
+
+/**
+ * Apply one student's new total score to the leaderboard document.
+ *
+ * The leaderboard keeps the top LEADERBOARD_TOP_N students and a histogram of
+ * students per score bucket, so any student's rank can be shown from one read.
+ * The score last applied is stored on the user as leaderboardScore, which moves
+ * the student between buckets and makes retried triggers a no-op. Scores only
+ * grow, so a student can only leave the top list by being overtaken.
+ */
+async function updateLeaderboard(userId, gradeRef) {
+  const userRef = db.collection("users").doc(userId);
+  const leaderboardRef = db.doc(LEADERBOARD_DOC);
+
+  await db.runTransaction(async (transaction) => {
+    const [gradeDoc, userDoc, leaderboardDoc] = await Promise.all([
+      transaction.get(gradeRef),
+      transaction.get(userRef),
+      transaction.get(leaderboardRef),
+    ]);
+    if (!gradeDoc.exists || gradeDoc.data().leaderboardApplied || !userDoc.exists) {
+      return;
+    }
+
+    const user = userDoc.data();
+    const newScore = user.totalScore || 0;
+    const oldScore = typeof user.leaderboardScore === "number" ? user.leaderboardScore : null;
+
+    const leaderboard = leaderboardDoc.exists ? leaderboardDoc.data() : {};
+    const buckets = Object.assign({}, leaderboard.buckets);
+    let studentCount = leaderboard.studentCount || 0;
+
+    if (oldScore === null) {
+      studentCount++;
+    } else {
+      const oldBucket = String(Math.floor(oldScore / LEADERBOARD_BUCKET_SIZE));
+      buckets[oldBucket] = Math.max((buckets[oldBucket] || 0) - 1, 0);
+      if (buckets[oldBucket] === 0) delete buckets[oldBucket];
+    }
+    const newBucket = String(Math.floor(newScore / LEADERBOARD_BUCKET_SIZE));
+    buckets[newBucket] = (buckets[newBucket] || 0) + 1;
+
+    const top = (leaderboard.top || []).filter((entry) => entry.uid !== userId);
+    top.push({ uid: userId, name: user.name || "", totalScore: newScore });
+    top.sort((a, b) => b.totalScore - a.totalScore);
+    top.length = Math.min(top.length, LEADERBOARD_TOP_N);
+
+    transaction.set(leaderboardRef, {
+      top: top,
+      buckets: buckets,
+      bucketSize: LEADERBOARD_BUCKET_SIZE,
+      studentCount: studentCount,
+      updatedAt: FieldValue.serverTimestamp(),
+    });
+    transaction.update(userRef, { leaderboardScore: newScore });
+    transaction.update(gradeRef, { leaderboardApplied: true });
+  });
+}
+
+const digestClock = new Intl.DateTimeFormat("en-US", {
+  timeZone: DIGEST_TIME_ZONE,
+  hourCycle: "h23",
+  year: "numeric",
+  month: "numeric",
+  day: "numeric",
+  hour: "numeric",
+  weekday: "short",
+});
+const WEEKDAYS = ["Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"];
+
+/**
+ * Calendar date, weekday and hour of an instant in the digest's time zone
+ */
+function digestLocalTime(date) {
+  const parts = {};
+  for (const part of digestClock.formatToParts(date)) parts[part.type] = part.value;
+  return {
+    date: new Date(Date.UTC(Number(parts.year), Number(parts.month) - 1, Number(parts.day))),
+    weekday: WEEKDAYS.indexOf(parts.weekday),
+    hour: Number(parts.hour),
+  };
+}
+
+/**
+ * Id of the weekly digest run that will report a grade made at the given time:
+ * the local date of the first Sunday DIGEST_HOUR:00 strictly after it.
+ */
+function digestWeekId(date) {
+  const local = digestLocalTime(date);
+  let days = (7 - local.weekday) % 7;
+  if (days === 0 && local.hour >= DIGEST_HOUR) {
+    days = 7;
+  }
+  local.date.setUTCDate(local.date.getUTCDate() + days);
+  return local.date.toISOString().slice(0, 10);
+}
+
+/**
+ * Add one student grade to the running counters of the digest week it falls in.
+ * A marker per student and week counts distinct active students; a flag on the
+ * grade makes retried triggers a no-op.
+ */
+async function updateWeeklyDigestCounters(userId, gradeRef) {
+  await db.runTransaction(async (transaction) => {
+    const gradeDoc = await transaction.get(gradeRef);
+    if (!gradeDoc.exists || gradeDoc.data().digestApplied) {
+      return;
+    }
+
+    const grade = gradeDoc.data();
+    const gradedAt = grade.timestamp ? grade.timestamp.toDate() : new Date();
+    const weekRef = db.collection(DIGEST_COLLECTION).doc(digestWeekId(gradedAt));
+    const studentRef = weekRef.collection("students").doc(userId);
+    const studentDoc = await transaction.get(studentRef);
+
+    const counters = {
+      totalQuizzes: FieldValue.increment(1),
+      totalScore: FieldValue.increment(grade.score || 0),
+      updatedAt: FieldValue.serverTimestamp(),
+    };
+    if (!studentDoc.exists) {
+      counters.activeStudents = FieldValue.increment(1);
+      transaction.set(studentRef, { firstGradeAt: grade.timestamp || FieldValue.serverTimestamp() });
+    }
+    transaction.set(weekRef, counters, { merge: true });
+    transaction.update(gradeRef, { digestApplied: true });
+  });
+}
+
 /**
  * Send a low score alert to teachers
  */
@@ -166,41 +430,45 @@ async function sendLowScoreAlert(studentName, score, percentage) {
  * Weekly digest for teachers - runs every Sunday at 10:00 AM
  * Summarizes student activity for the week
  */
-exports.weeklyTeacherDigest = onSchedule("every sunday 10:00", async (event) => {
+exports.weeklyTeacherDigest = onSchedule({
+  schedule: `every sunday ${DIGEST_HOUR}:00`,
+  timeZone: DIGEST_TIME_ZONE,
+}, async (event) => {
   console.log("Running weekly teacher digest...");
 
-  // Get all students
-  const studentsSnapshot = await db.collection("users")
-    .where("role", "==", "student")
-    .get();
-
-  if (studentsSnapshot.empty) {
-    console.log("No students found");
-    return null;
-  }
-
-  // Calculate weekly stats
-  const oneWeekAgo = new Date();
-  oneWeekAgo.setDate(oneWeekAgo.getDate() - 7);
+  // The counters for this run were built up by onGradeCreated during the week
+  const runTime = event.scheduleTime ? new Date(event.scheduleTime) : new Date();
+  const weekId = digestLocalTime(runTime).date.toISOString().slice(0, 10);
+  const weekDoc = await db.collection(DIGEST_COLLECTION).doc(weekId).get();
 
   let totalQuizzes = 0;
   let totalScore = 0;
   let activeStudents = 0;
 
-  for (const studentDoc of studentsSnapshot.docs) {
-    const gradesSnapshot = await db.collection("users")
-      .doc(studentDoc.id)
-      .collection("grades")
-      .where("timestamp", ">=", oneWeekAgo)
-      .get();
-
-    if (!gradesSnapshot.empty) {
-      activeStudents++;
-      totalQuizzes += gradesSnapshot.size;
-      gradesSnapshot.forEach((gradeDoc) => {
-        totalScore += gradeDoc.data().score || 0;
-      });
-    }
+  if (weekDoc.exists) {
+    const counters = weekDoc.data();
+    totalQuizzes = counters.totalQuizzes || 0;
+    totalScore = counters.totalScore || 0;
+    activeStudents = counters.activeStudents || 0;
+  } else {
+    // No counters (e.g. the first week after deploying them): one collection-group
+    // query over the week's grades instead of one query per student
+    const oneWeekAgo = new Date(runTime.getTime() - 7 * 24 * 60 * 60 * 1000);
+    const [gradesSnapshot, teachersSnapshot] = await Promise.all([
+      db.collectionGroup("grades").where("timestamp", ">=", oneWeekAgo).select("score").get(),
+      db.collection("users").where("role", "==", "teacher").select().get(),
+    ]);
+
+    const teacherIds = new Set(teachersSnapshot.docs.map((doc) => doc.id));
+    const students = new Set();
+    gradesSnapshot.forEach((gradeDoc) => {
+      const studentId = gradeDoc.ref.parent.parent.id;
+      if (teacherIds.has(studentId)) return;
+      students.add(studentId);
+      totalQuizzes++;
+      totalScore += gradeDoc.data().score || 0;
+    });
+    activeStudents = students.size;
   }
 
   const avgScore = totalQuizzes > 0 ? Math.round(totalScore / totalQuizzes) : 0;
@@ -238,76 +506,23 @@ exports.weeklyTeacherDigest = onSchedule("every sunday 10:00", async (event) =>
 
 /**
  * Inactivity reminder - runs daily at 6 PM
- * Checks for students who haven't used the app in 3+ days
+ * Checks for students who haven't used the app in 3+ days and sends
+ * reminders in sendEach batches (see reminders.js)
  */
 exports.inactivityReminder = onSchedule("every day 18:00", async (event) => {
   console.log("Running inactivity check...");
 
-  const threeDaysAgo = new Date();
-  threeDaysAgo.setDate(threeDaysAgo.getDate() - 3);
-
-  // Find inactive students
-  const inactiveSnapshot = await db.collection("users")
-    .where("role", "==", "student")
-    .where("lastActivityAt", "<", threeDaysAgo)
-    .get();
-
-  console.log(`Found ${inactiveSnapshot.size} inactive students`);
-
-  // Send personalized reminders to each inactive student
-  const promises = inactiveSnapshot.docs.map(async (studentDoc) => {
-    const studentData = studentDoc.data();
-    const token = studentData.fcmToken;
-
-    if (!token) {
-      console.log(`No FCM token for user: ${studentDoc.id}`);
-      return null;
-    }
-
-    // Calculate days since last activity
-    const lastActivity = studentData.lastActivityAt ? studentData.lastActivityAt.toDate() : new Date(0);
-    const daysSince = Math.floor((Date.now() - lastActivity.getTime()) / (1000 * 60 * 60 * 24));
-
-    const message = {
-      token: token,
-      notification: {
-        title: "We Miss You!",
-        body: `It's been ${daysSince} days since your last visit. Come back and keep learning physics!`,
-      },
-      data: {
-        type: "inactivity_reminder",
-        days_inactive: String(daysSince),
-      },
-      android: {
-        notification: {
-          channelId: "reminder_notifications",
-          priority: "default",
-        },
-      },
-    };
-
-    try {
-      const response = await messaging.send(message);
-      console.log(`Reminder sent to ${studentDoc.id}:`, response);
-      return response;
-    } catch (error) {
-      console.error(`Error sending reminder to ${studentDoc.id}:`, error);
-      return null;
-    }
-  });
-
-  const results = await Promise.all(promises);
-  const successCount = results.filter((r) => r !== null).length;
+  const metrics = await sendInactivityReminders({ db, messaging });
 
-  console.log(`Sent ${successCount} inactivity reminders`);
-  return { success: true, sentCount: successCount };
+  console.log(`Sent ${metrics.sent} inactivity reminders`);
+  return { success: true, sentCount: metrics.sent };
 });
 
 /**
  * Send notification to a specific user by their FCM token
  * This can be called from client-side via HTTPS callable function
  */
-exports.sendNotificationToUser = require("firebase-functions/v2/https").onCall(async (request) => {
+exports.sendNotificationToUser = onCall(async (request) => {
   const { userId, title, body, data } = request.data;
 
   if (!userId || !title || !body) {
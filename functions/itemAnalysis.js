@@ -0,0 +1,172 @@
+/**
+ * Incremental item analysis over quiz responses.
+ *
+ * Every grade carries parallel arrays (questionIds, selectedOptions, correct,
+ * responseTimesMs). Each one is folded into running sums kept in one document
+ * per question (analytics/items/questions/{questionId}), so grades only contend
+ * when they share a question and no document grows with the bank. The classic
+ * statistics are re-derived from the sums:
+ *
+ * - difficulty: share of attempts answered correctly (the p-value)
+ * - discrimination: point-biserial correlation between getting the question
+ *   right and the student's score on the rest of that quiz
+ * - meanLatencyMs: mean response time of answered attempts
+ *
+ * The math is kept free of Firestore so it can be tested on its own
+ * (see test/itemAnalysis.spec.js).
+ */
+
+const { FieldValue } = require("firebase-admin/firestore");
+
+const ITEM_ANALYSIS_DOC = "analytics/items";
+const ITEM_STATS_COLLECTION = `${ITEM_ANALYSIS_DOC}/questions`;
+
+// selectedOptions value for a question that timed out
+const NO_ANSWER = -1;
+
+/**
+ * The grade's responses as one record per question, or [] if the arrays are missing or inconsistent
+ */
+function responsesOf(grade) {
+  const ids = grade.questionIds;
+  const selected = grade.selectedOptions;
+  const correct = grade.correct;
+  const times = grade.responseTimesMs;
+  if (!Array.isArray(ids) || !Array.isArray(selected) || !Array.isArray(correct) ||
+      selected.length !== ids.length || correct.length !== ids.length) {
+    return [];
+  }
+
+  const responses = [];
+  for (let i = 0; i < ids.length; i++) {
+    if (typeof ids[i] !== "string" || ids[i] === "") continue;
+    const time = Array.isArray(times) ? times[i] : null;
+    responses.push({
+      questionId: ids[i],
+      selectedOption: typeof selected[i] === "number" ? selected[i] : NO_ANSWER,
+      correct: correct[i] === true,
+      responseTimeMs: typeof time === "number" && time >= 0 ? time : null,
+    });
+  }
+  return responses;
+}
+
+function emptyStats() {
+  return {
+    attempts: 0,
+    correct: 0,
+    unanswered: 0,
+    optionCounts: {},
+    latencyCount: 0,
+    latencySumMs: 0,
+    // Sums over attempts whose quiz had other questions: x = correct (0/1), y = rest-of-quiz score
+    pairs: 0,
+    sumPairedCorrect: 0,
+    sumRest: 0,
+    sumRestSq: 0,
+    sumCorrectRest: 0,
+  };
+}
+
+/**
+ * Fold one grade into the per-question stats and refresh the derived values.
+ * Returns the ids of the questions that changed.
+ */
+function applyGrade(items, grade) {
+  const responses = responsesOf(grade);
+  const totalCorrect = responses.filter((r) => r.correct).length;
+  const changed = [];
+
+  for (const response of responses) {
+    const stats = Object.assign(emptyStats(), items[response.questionId]);
+    stats.optionCounts = Object.assign({}, stats.optionCounts);
+
+    stats.attempts++;
+    if (response.correct) stats.correct++;
+    if (response.selectedOption === NO_ANSWER) {
+      stats.unanswered++;
+    } else {
+      const option = String(response.selectedOption);
+      stats.optionCounts[option] = (stats.optionCounts[option] || 0) + 1;
+    }
+    if (response.responseTimeMs !== null) {
+      stats.latencyCount++;
+      stats.latencySumMs += response.responseTimeMs;
+    }
+
+    if (responses.length > 1) {
+      const x = response.correct ? 1 : 0;
+      const rest = (totalCorrect - x) / (responses.length - 1);
+      stats.pairs++;
+      stats.sumPairedCorrect += x;
+      stats.sumRest += rest;
+      stats.sumRestSq += rest * rest;
+      stats.sumCorrectRest += x * rest;
+    }
+
+    Object.assign(stats, derive(stats));
+    items[response.questionId] = stats;
+    changed.push(response.questionId);
+  }
+  return changed;
+}
+
+/**
+ * Difficulty index, discrimination and mean latency from the running sums.
+ * A statistic that can't be computed yet is null.
+ */
+function derive(stats) {
+  const difficulty = stats.attempts > 0 ? stats.correct / stats.attempts : null;
+  const meanLatencyMs = stats.latencyCount > 0 ? stats.latencySumMs / stats.latencyCount : null;
+
+  // Point-biserial r = (n Σxy - Σx Σy) / sqrt((n Σx - (Σx)²)(n Σy² - (Σy)²)), using x² = x.
+  // Undefined until both the item and the rest scores vary.
+  let discrimination = null;
+  const n = stats.pairs;
+  const sumX = stats.sumPairedCorrect;
+  const varianceX = n * sumX - sumX * sumX;
+  const varianceY = n * stats.sumRestSq - stats.sumRest * stats.sumRest;
+  if (n >= 2 && varianceX > 0 && varianceY > 1e-12) {
+    discrimination = (n * stats.sumCorrectRest - sumX * stats.sumRest) / Math.sqrt(varianceX * varianceY);
+  }
+
+  return { difficulty, discrimination, meanLatencyMs };
+}
+
+/**
+ * Add one grade to the per-question item statistics. A flag on the grade makes
+ * retried triggers a no-op.
+ */
+async function updateItemAnalysis(db, gradeRef) {
+  await db.runTransaction(async (transaction) => {
+    const gradeDoc = await transaction.get(gradeRef);
+    if (!gradeDoc.exists || gradeDoc.data().itemAnalysisApplied) {
+      return;
+    }
+
+    const questionIds = [...new Set(responsesOf(gradeDoc.data()).map((r) => r.questionId))];
+    const statsRefs = questionIds.map((id) => db.collection(ITEM_STATS_COLLECTION).doc(id));
+    const statsDocs = await Promise.all(statsRefs.map((ref) => transaction.get(ref)));
+
+    const items = {};
+    statsDocs.forEach((doc, i) => {
+      if (doc.exists) items[questionIds[i]] = doc.data();
+    });
+    applyGrade(items, gradeDoc.data());
+
+    statsRefs.forEach((ref, i) => {
+      transaction.set(ref, Object.assign({}, items[questionIds[i]], {
+        updatedAt: FieldValue.serverTimestamp(),
+      }));
+    });
+    transaction.update(gradeRef, { itemAnalysisApplied: true });
+  });
+}
+
+module.exports = {
+  ITEM_ANALYSIS_DOC,
+  ITEM_STATS_COLLECTION,
+  applyGrade,
+  derive,
+  updateItemAnalysis,
+};
@@ -0,0 +1,94 @@
+/**
+ * Nightly rebuild of the student leaderboard.
+ *
+ * onGradeCreated applies each grade to the leaderboard document incrementally.
+ * A grade whose trigger gave up (or a score edited by hand) would leave the
+ * document wrong for good, so once a day it is rebuilt from the users'
+ * totalScore: the top LEADERBOARD_TOP_N students, the histogram of students per
+ * score bucket, and each student's leaderboardScore, which the incremental
+ * updates move students between buckets by.
+ *
+ * A grade applied while the rebuild runs may be overwritten by it; that
+ * student's score is corrected by their next grade or the next rebuild.
+ */
+
+const { FieldPath, FieldValue } = require("firebase-admin/firestore");
+
+const LEADERBOARD_DOC = "leaderboards/students";
+const LEADERBOARD_TOP_N = 50;
+const LEADERBOARD_BUCKET_SIZE = 100;
+const PAGE_SIZE = 400;
+
+/**
+ * Students only count once they have completed a quiz, as with the incremental updates
+ */
+function isRanked(user) {
+  return (user.testsCompleted || 0) > 0 || typeof user.leaderboardScore === "number";
+}
+
+/**
+ * Recompute the leaderboard from every ranked student's totalScore.
+ * Returns how many students were scanned, ranked, and had leaderboardScore corrected.
+ */
+async function rebuildLeaderboard(db) {
+  const metrics = { scanned: 0, ranked: 0, corrected: 0 };
+  const buckets = {};
+  let top = [];
+  let last = null;
+
+  for (;;) {
+    let query = db.collection("users")
+      .where("role", "==", "student")
+      .select("name", "totalScore", "testsCompleted", "leaderboardScore")
+      .orderBy(FieldPath.documentId())
+      .limit(PAGE_SIZE);
+    if (last) query = query.startAfter(last);
+
+    const page = await query.get();
+    if (page.empty) break;
+
+    const batch = db.batch();
+    let writes = 0;
+    for (const doc of page.docs) {
+      const user = doc.data();
+      if (!isRanked(user)) continue;
+
+      const score = user.totalScore || 0;
+      const bucket = String(Math.floor(score / LEADERBOARD_BUCKET_SIZE));
+      buckets[bucket] = (buckets[bucket] || 0) + 1;
+      top.push({ uid: doc.id, name: user.name || "", totalScore: score });
+      metrics.ranked++;
+
+      if (user.leaderboardScore !== score) {
+        batch.update(doc.ref, { leaderboardScore: score });
+        writes++;
+      }
+    }
+    // Keep the running top list short instead of holding every student
+    top.sort((a, b) => b.totalScore - a.totalScore);
+    top = top.slice(0, LEADERBOARD_TOP_N);
+    if (writes > 0) await batch.commit();
+
+    metrics.scanned += page.size;
+    metrics.corrected += writes;
+    last = page.docs[page.docs.length - 1];
+    if (page.size < PAGE_SIZE) break;
+  }
+
+  await db.doc(LEADERBOARD_DOC).set({
+    top: top,
+    buckets: buckets,
+    bucketSize: LEADERBOARD_BUCKET_SIZE,
+    studentCount: metrics.ranked,
+    updatedAt: FieldValue.serverTimestamp(),
+  });
+  return metrics;
+}
+
+module.exports = {
+  LEADERBOARD_BUCKET_SIZE,
+  LEADERBOARD_DOC,
+  LEADERBOARD_TOP_N,
+  PAGE_SIZE,
+  rebuildLeaderboard,
+};
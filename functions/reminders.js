@@ -0,0 +1,176 @@
+/**
+ * Batched delivery of inactivity reminders.
+ *
+ * Kept separate from index.js so it can be run against the emulator suite with
+ * its Firestore and Messaging dependencies passed in (see test/reminders.spec.js).
+ */
+
+const { FieldValue } = require("firebase-admin/firestore");
+
+// sendEach accepts at most 500 messages per call
+const FCM_BATCH_SIZE = 500;
+const DEFAULT_CONCURRENCY = 4;
+const DAY_MS = 24 * 60 * 60 * 1000;
+
+// Errors meaning the token will never work again and should be dropped
+const UNREGISTERED_TOKEN_ERRORS = new Set([
+  "messaging/registration-token-not-registered",
+  "messaging/invalid-registration-token",
+]);
+
+/**
+ * Build the personalized reminder for one student
+ */
+function buildReminderMessage(token, daysSince) {
+  return {
+    token: token,
+    notification: {
+      title: "We Miss You!",
+      body: `It's been ${daysSince} days since your last visit. Come back and keep learning physics!`,
+    },
+    data: {
+      type: "inactivity_reminder",
+      days_inactive: String(daysSince),
+    },
+    android: {
+      notification: {
+        channelId: "reminder_notifications",
+        priority: "default",
+      },
+    },
+  };
+}
+
+/**
+ * Run fn over items with at most `limit` calls in flight, keeping result order
+ */
+async function mapWithConcurrency(items, limit, fn) {
+  const results = new Array(items.length);
+  let next = 0;
+  const workers = Array.from({ length: Math.min(limit, items.length) }, async () => {
+    while (next < items.length) {
+      const index = next++;
+      results[index] = await fn(items[index], index);
+    }
+  });
+  await Promise.all(workers);
+  return results;
+}
+
+/**
+ * Send reminders to students inactive for `inactiveDays` or more.
+ *
+ * Messages go out through sendEach in batches of `batchSize`, with at most
+ * `concurrency` batches in flight. Tokens reported as unregistered are removed
+ * from the user document, unless it changed since it was read (the app may
+ * have saved a fresh token). Returns throughput metrics, which are also logged.
+ */
+async function sendInactivityReminders({
+  db,
+  messaging,
+  now = new Date(),
+  inactiveDays = 3,
+  batchSize = FCM_BATCH_SIZE,
+  concurrency = DEFAULT_CONCURRENCY,
+  dryRun = false,
+}) {
+  const startedAt = Date.now();
+  const cutoff = new Date(now.getTime() - inactiveDays * DAY_MS);
+
+  const inactiveSnapshot = await db.collection("users")
+    .where("role", "==", "student")
+    .where("lastActivityAt", "<", cutoff)
+    .select("fcmToken", "lastActivityAt")
+    .get();
+
+  const targets = [];
+  let skippedNoToken = 0;
+  inactiveSnapshot.forEach((studentDoc) => {
+    const studentData = studentDoc.data();
+    if (!studentData.fcmToken) {
+      skippedNoToken++;
+      return;
+    }
+    const lastActivity = studentData.lastActivityAt ? studentData.lastActivityAt.toDate() : new Date(0);
+    const daysSince = Math.floor((now.getTime() - lastActivity.getTime()) / DAY_MS);
+    targets.push({
+      doc: studentDoc,
+      message: buildReminderMessage(studentData.fcmToken, daysSince),
+    });
+  });
+
+  const batches = [];
+  for (let i = 0; i < targets.length; i += batchSize) {
+    batches.push(targets.slice(i, i + batchSize));
+  }
+
+  const batchResults = await mapWithConcurrency(batches, concurrency, async (batch) => {
+    try {
+      const response = await messaging.sendEach(batch.map((target) => target.message), dryRun);
+      const unregistered = [];
+      response.responses.forEach((result, i) => {
+        if (!result.success && result.error && UNREGISTERED_TOKEN_ERRORS.has(result.error.code)) {
+          unregistered.push(batch[i].doc);
+        }
+      });
+      return { sent: response.successCount, failed: response.failureCount, unregistered };
+    } catch (error) {
+      console.error(`Error sending reminder batch of ${batch.length}:`, error);
+      return { sent: 0, failed: batch.length, unregistered: [] };
+    }
+  });
+
+  let sent = 0;
+  let failed = 0;
+  const unregistered = [];
+  for (const result of batchResults) {
+    sent += result.sent;
+    failed += result.failed;
+    unregistered.push(...result.unregistered);
+  }
+
+  const pruned = dryRun ? 0 : await pruneTokens(db, unregistered);
+
+  const durationMs = Date.now() - startedAt;
+  const metrics = {
+    inactiveStudents: inactiveSnapshot.size,
+    skippedNoToken: skippedNoToken,
+    batches: batches.length,
+    sent: sent,
+    failed: failed,
+    prunedTokens: pruned,
+    durationMs: durationMs,
+    messagesPerSecond: durationMs > 0 ? Math.round(targets.length * 1000 / durationMs) : targets.length,
+    dryRun: dryRun,
+  };
+  console.log("Inactivity reminder metrics:", JSON.stringify(metrics));
+  return metrics;
+}
+
+/**
+ * Delete fcmToken from the given user documents. Each delete is conditioned on
+ * the document being unchanged since it was read, so a token refreshed in the
+ * meantime survives. Returns the number of tokens removed.
+ */
+async function pruneTokens(db, docs) {
+  if (docs.length === 0) return 0;
+
+  let pruned = 0;
+  const writer = db.bulkWriter();
+  writer.onWriteError((error) => {
+    console.log(`Skipped pruning token for ${error.documentRef.id}: ${error.message}`);
+    return false;
+  });
+  const writes = docs.map((doc) =>
+    writer.update(doc.ref, { fcmToken: FieldValue.delete() }, { lastUpdateTime: doc.updateTime })
+      .then(() => pruned++)
+      .catch(() => {}));
+  await writer.close();
+  await Promise.all(writes);
+  return pruned;
+}
+
+module.exports = {
+  FCM_BATCH_SIZE,
+  sendInactivityReminders,
+};
@@ -0,0 +1,62 @@
+/**
+ * Backfill of the random sortKey that the app's sampled quiz selection orders
+ * questions by.
+ *
+ * onQuestionCreated gives every new question a sortKey, but questions written
+ * before it existed never got one, and a question without one can never be
+ * drawn. The backfill pages through the whole bank by document id and fills in
+ * the missing keys in batches. It only touches questions without a key, so it
+ * is safe to run any number of times. Deleted questions (tombstones) have had
+ * their key removed on purpose and are left alone.
+ */
+
+const { FieldPath } = require("firebase-admin/firestore");
+
+const QUESTIONS_COLLECTION = "questions";
+const PAGE_SIZE = 300;
+
+function needsSortKey(data) {
+  return data.deleted !== true && typeof data.sortKey !== "number";
+}
+
+/**
+ * Give every question without a sortKey a uniform random one.
+ * Returns how many questions were scanned and how many were updated.
+ */
+async function backfillSortKeys(db, random = Math.random) {
+  const metrics = { scanned: 0, updated: 0 };
+  let last = null;
+
+  for (;;) {
+    let query = db.collection(QUESTIONS_COLLECTION)
+      .select("sortKey", "deleted")
+      .orderBy(FieldPath.documentId())
+      .limit(PAGE_SIZE);
+    if (last) query = query.startAfter(last);
+
+    const page = await query.get();
+    if (page.empty) break;
+
+    const batch = db.batch();
+    let writes = 0;
+    for (const doc of page.docs) {
+      if (needsSortKey(doc.data())) {
+        batch.update(doc.ref, { sortKey: random() });
+        writes++;
+      }
+    }
+    if (writes > 0) await batch.commit();
+
+    metrics.scanned += page.size;
+    metrics.updated += writes;
+    last = page.docs[page.docs.length - 1];
+    if (page.size < PAGE_SIZE) break;
+  }
+  return metrics;
+}
+
+module.exports = {
+  PAGE_SIZE,
+  backfillSortKeys,
+  needsSortKey,
+};
@@ -0,0 +1,101 @@
+/**
+ * Checks the item analysis math on plain objects; needs no emulator.
+ * Run with `node --test test/`.
+ */
+
+const test = require("node:test");
+const assert = require("node:assert");
+const { ITEM_STATS_COLLECTION, applyGrade, updateItemAnalysis } = require("../itemAnalysis");
+
+function grade(responses) {
+  return {
+    questionIds: responses.map((r) => r[0]),
+    selectedOptions: responses.map((r) => r[1]),
+    correct: responses.map((r) => r[2]),
+    responseTimesMs: responses.map((r) => r[3]),
+  };
+}
+
+test("accumulates difficulty, option counts and mean latency", () => {
+  const items = {};
+  applyGrade(items, grade([["q1", 0, true, 4000], ["q2", -1, false, 30000]]));
+  applyGrade(items, grade([["q1", 2, false, 6000], ["q2", 1, true, 10000]]));
+
+  assert.strictEqual(items.q1.attempts, 2);
+  assert.strictEqual(items.q1.difficulty, 0.5);
+  assert.deepStrictEqual(items.q1.optionCounts, { "0": 1, "2": 1 });
+  assert.strictEqual(items.q1.meanLatencyMs, 5000);
+  assert.strictEqual(items.q2.unanswered, 1);
+  assert.strictEqual(items.q2.meanLatencyMs, 20000);
+});
+
+test("discrimination follows the rest of the quiz", () => {
+  const items = {};
+  // "good" is answered right exactly by the students who do well elsewhere; "noise" is not
+  const quizzes = [
+    [true, true, true, true],
+    [true, true, true, false],
+    [false, false, false, true],
+    [false, false, false, false],
+    [true, true, false, true],
+    [false, false, true, false],
+  ];
+  for (const [good, noise, other1, other2] of quizzes) {
+    const otherRight = [other1, other2].filter(Boolean).length;
+    applyGrade(items, grade([
+      ["good", 0, good, 1000],
+      ["noise", 0, noise === (otherRight === 1), 1000],
+      ["o1", 0, other1, 1000],
+      ["o2", 0, other2, 1000],
+    ]));
+  }
+
+  assert.ok(items.good.discrimination > 0.5, `good: ${items.good.discrimination}`);
+  assert.ok(items.good.discrimination > items.noise.discrimination);
+  assert.ok(items.good.discrimination <= 1 + 1e-9);
+});
+
+test("ignores grades without consistent response arrays", () => {
+  const items = {};
+  assert.deepStrictEqual(applyGrade(items, { score: 40 }), []);
+  assert.deepStrictEqual(applyGrade(items, { questionIds: ["q1"], selectedOptions: [], correct: [true] }), []);
+  assert.deepStrictEqual(items, {});
+
+  // One question alone has no rest score, so no discrimination yet
+  applyGrade(items, grade([["q1", 0, true, 1000]]));
+  assert.strictEqual(items.q1.discrimination, null);
+  assert.strictEqual(items.q1.pairs, 0);
+});
+
+/**
+ * Just enough of Firestore for updateItemAnalysis: documents by path and a
+ * transaction that reads and writes them
+ */
+function fakeDb(docs) {
+  const ref = (path) => ({ path });
+  const snapshot = (path) => ({ exists: path in docs, data: () => ({ ...docs[path] }) });
+  return {
+    collection: (name) => ({ doc: (id) => ref(`${name}/${id}`) }),
+    runTransaction: async (fn) => fn({
+      get: async (r) => snapshot(r.path),
+      set: (r, data) => {
+        docs[r.path] = data;
+      },
+      update: (r, data) => Object.assign(docs[r.path], data),
+    }),
+  };
+}
+
+test("keeps one stats document per question and applies each grade once", async () => {
+  const docs = { "users/u/grades/g": grade([["q1", 0, true, 4000], ["q2", 1, false, 8000]]) };
+  const db = fakeDb(docs);
+  const gradeRef = { path: "users/u/grades/g" };
+
+  await updateItemAnalysis(db, gradeRef);
+  await updateItemAnalysis(db, gradeRef);
+
+  assert.strictEqual(docs[`${ITEM_STATS_COLLECTION}/q1`].attempts, 1);
+  assert.strictEqual(docs[`${ITEM_STATS_COLLECTION}/q1`].difficulty, 1);
+  assert.strictEqual(docs[`${ITEM_STATS_COLLECTION}/q2`].meanLatencyMs, 8000);
+  assert.strictEqual(docs["users/u/grades/g"].itemAnalysisApplied, true);
+});
@@ -0,0 +1,100 @@
+/**
+ * Runs the leaderboard rebuild against a small in-memory stand-in for the
+ * Firestore queries it uses; needs no emulator. Run with `node --test test/`.
+ */
+
+const test = require("node:test");
+const assert = require("node:assert");
+const {
+  LEADERBOARD_BUCKET_SIZE,
+  LEADERBOARD_DOC,
+  LEADERBOARD_TOP_N,
+  PAGE_SIZE,
+  rebuildLeaderboard,
+} = require("../leaderboard");
+
+/**
+ * Just enough of Firestore for the rebuild: an equality where plus a
+ * select/orderBy/limit/startAfter chain over users ordered by id, batched
+ * updates, and a set of the leaderboard document
+ */
+function fakeDb(users) {
+  const db = { commits: 0, written: {} };
+  const ids = Object.keys(users).sort();
+  const snapshot = (id) => ({ id, ref: { id }, data: () => ({ ...users[id] }) });
+
+  function query(filter, after, limit) {
+    return {
+      where: (field, op, value) => query((user) => user[field] === value, after, limit),
+      select: () => query(filter, after, limit),
+      orderBy: () => query(filter, after, limit),
+      limit: (n) => query(filter, after, n),
+      startAfter: (doc) => query(filter, doc.id, limit),
+      get: async () => {
+        const page = ids
+          .filter((id) => (after === null || id > after) && filter(users[id]))
+          .slice(0, limit)
+          .map(snapshot);
+        return { docs: page, size: page.length, empty: page.length === 0 };
+      },
+    };
+  }
+
+  db.collection = () => query(() => true, null, Infinity);
+  db.batch = () => {
+    const updates = [];
+    return {
+      update: (ref, data) => updates.push([ref.id, data]),
+      commit: async () => {
+        db.commits++;
+        for (const [id, data] of updates) Object.assign(users[id], data);
+      },
+    };
+  };
+  db.doc = (path) => ({
+    set: async (data) => {
+      db.written[path] = data;
+    },
+  });
+  return db;
+}
+
+test("rebuilds top list, buckets and leaderboardScore from totalScore", async () => {
+  const users = {};
+  const students = PAGE_SIZE + 30;
+  for (let i = 0; i < students; i++) {
+    const id = `u${String(i).padStart(4, "0")}`;
+    users[id] = { role: "student", name: id, totalScore: i * 7, testsCompleted: 1 };
+    // Some were applied incrementally already, some with a stale score
+    if (i % 2 === 0) users[id].leaderboardScore = i * 7;
+    if (i % 5 === 0) users[id].leaderboardScore = 0;
+  }
+  users.t0001 = { role: "teacher", name: "Teacher", totalScore: 100000, testsCompleted: 3 };
+  users.u9999 = { role: "student", name: "Never played", totalScore: 0 };
+  const db = fakeDb(users);
+
+  const metrics = await rebuildLeaderboard(db);
+
+  assert.strictEqual(metrics.ranked, students);
+  assert.strictEqual(metrics.scanned, students + 1);
+  const board = db.written[LEADERBOARD_DOC];
+  assert.strictEqual(board.studentCount, students);
+  assert.strictEqual(board.bucketSize, LEADERBOARD_BUCKET_SIZE);
+  assert.strictEqual(Object.values(board.buckets).reduce((a, b) => a + b, 0), students);
+  assert.strictEqual(board.top.length, LEADERBOARD_TOP_N);
+  assert.strictEqual(board.top[0].totalScore, (students - 1) * 7);
+  assert.ok(board.top.every((entry, i) => i === 0 || board.top[i - 1].totalScore >= entry.totalScore));
+  assert.ok(board.top.every((entry) => entry.uid !== "t0001"));
+
+  for (const [id, user] of Object.entries(users)) {
+    if (user.role === "student" && user.testsCompleted) {
+      assert.strictEqual(user.leaderboardScore, user.totalScore, id);
+    }
+  }
+  assert.strictEqual(users.u9999.leaderboardScore, undefined);
+
+  // A second run finds nothing to correct
+  const commits = db.commits;
+  assert.strictEqual((await rebuildLeaderboard(db)).corrected, 0);
+  assert.strictEqual(db.commits, commits);
+});
@@ -0,0 +1,79 @@
+/**
+ * Runs sendInactivityReminders against the Firestore emulator with a fake
+ * Messaging client. Start it with `npm test`, which wraps the run in
+ * `firebase emulators:exec`; without FIRESTORE_EMULATOR_HOST the test is skipped.
+ */
+
+const test = require("node:test");
+const assert = require("node:assert");
+const { initializeApp } = require("firebase-admin/app");
+const { getFirestore, Timestamp } = require("firebase-admin/firestore");
+const { sendInactivityReminders } = require("../reminders");
+
+const DAY_MS = 24 * 60 * 60 * 1000;
+
+/**
+ * Fake Messaging: tokens starting with "stale" come back unregistered.
+ * Records batch sizes and the peak number of concurrent sendEach calls.
+ */
+function fakeMessaging() {
+  const fake = { batchSizes: [], inFlight: 0, maxInFlight: 0 };
+  fake.sendEach = async (messages) => {
+    fake.batchSizes.push(messages.length);
+    fake.inFlight++;
+    fake.maxInFlight = Math.max(fake.maxInFlight, fake.inFlight);
+    await new Promise((resolve) => setTimeout(resolve, 10));
+    fake.inFlight--;
+
+    const responses = messages.map((message) => message.token.startsWith("stale") ?
+      { success: false, error: { code: "messaging/registration-token-not-registered" } } :
+      { success: true, messageId: `sent-${message.token}` });
+    const successCount = responses.filter((r) => r.success).length;
+    return { responses, successCount, failureCount: responses.length - successCount };
+  };
+  return fake;
+}
+
+test("sends in bounded batches and prunes unregistered tokens", {
+  skip: !process.env.FIRESTORE_EMULATOR_HOST && "FIRESTORE_EMULATOR_HOST not set",
+}, async () => {
+  initializeApp({ projectId: process.env.GCLOUD_PROJECT || "demo-phiz" });
+  const db = getFirestore();
+  await db.recursiveDelete(db.collection("users"));
+
+  const now = new Date();
+  const inactive = Timestamp.fromDate(new Date(now.getTime() - 5 * DAY_MS));
+  const active = Timestamp.fromDate(now);
+  const users = {
+    s1: { role: "student", lastActivityAt: inactive, fcmToken: "ok-1" },
+    s2: { role: "student", lastActivityAt: inactive, fcmToken: "ok-2" },
+    s3: { role: "student", lastActivityAt: inactive, fcmToken: "stale-3" },
+    s4: { role: "student", lastActivityAt: inactive, fcmToken: "ok-4" },
+    s5: { role: "student", lastActivityAt: inactive, fcmToken: "stale-5" },
+    s6: { role: "student", lastActivityAt: inactive },
+    s7: { role: "student", lastActivityAt: active, fcmToken: "ok-7" },
+    t1: { role: "teacher", lastActivityAt: inactive, fcmToken: "ok-t1" },
+  };
+  const batch = db.batch();
+  for (const [uid, data] of Object.entries(users)) {
+    batch.set(db.collection("users").doc(uid), data);
+  }
+  await batch.commit();
+
+  const messaging = fakeMessaging();
+  const metrics = await sendInactivityReminders({ db, messaging, now, batchSize: 2, concurrency: 2 });
+
+  assert.strictEqual(metrics.inactiveStudents, 6);
+  assert.strictEqual(metrics.skippedNoToken, 1);
+  assert.strictEqual(metrics.batches, 3);
+  assert.strictEqual(metrics.sent, 3);
+  assert.strictEqual(metrics.failed, 2);
+  assert.strictEqual(metrics.prunedTokens, 2);
+  assert.deepStrictEqual(messaging.batchSizes.sort(), [1, 2, 2]);
+  assert.ok(messaging.maxInFlight <= 2);
+
+  const s3 = await db.collection("users").doc("s3").get();
+  const s1 = await db.collection("users").doc("s1").get();
+  assert.strictEqual(s3.get("fcmToken"), undefined);
+  assert.strictEqual(s1.get("fcmToken"), "ok-1");
+});
@@ -0,0 +1,78 @@
+/**
+ * Runs the sortKey backfill against a small in-memory stand-in for the
+ * Firestore queries it uses; needs no emulator. Run with `node --test test/`.
+ */
+
+const test = require("node:test");
+const assert = require("node:assert");
+const { PAGE_SIZE, backfillSortKeys } = require("../sortKeys");
+
+/**
+ * Just enough of Firestore for the backfill: a select/orderBy/limit/startAfter
+ * chain over one collection ordered by id, and batched updates
+ */
+function fakeDb(docs) {
+  const db = { commits: 0 };
+  const ids = Object.keys(docs).sort();
+  const snapshot = (id) => ({ id, ref: { id }, data: () => ({ ...docs[id] }) });
+
+  function query(after, limit) {
+    return {
+      select: () => query(after, limit),
+      orderBy: () => query(after, limit),
+      limit: (n) => query(after, n),
+      startAfter: (doc) => query(doc.id, limit),
+      get: async () => {
+        const page = ids.filter((id) => after === null || id > after).slice(0, limit).map(snapshot);
+        return { docs: page, size: page.length, empty: page.length === 0 };
+      },
+    };
+  }
+
+  db.collection = () => query(null, Infinity);
+  db.batch = () => {
+    const updates = [];
+    return {
+      update: (ref, data) => updates.push([ref.id, data]),
+      commit: async () => {
+        db.commits++;
+        for (const [id, data] of updates) Object.assign(docs[id], data);
+      },
+    };
+  };
+  return db;
+}
+
+test("fills in missing sortKeys across pages and leaves existing ones", async () => {
+  const docs = {};
+  const total = PAGE_SIZE * 2 + 7;
+  for (let i = 0; i < total; i++) {
+    const id = `q${String(i).padStart(4, "0")}`;
+    docs[id] = i % 3 === 0 ? { questionText: id } : { questionText: id, sortKey: 0.5 };
+  }
+  const missing = Object.values(docs).filter((d) => typeof d.sortKey !== "number").length;
+  const db = fakeDb(docs);
+
+  const metrics = await backfillSortKeys(db, () => 0.25);
+
+  assert.deepStrictEqual(metrics, { scanned: total, updated: missing });
+  assert.strictEqual(db.commits, 3);
+  assert.ok(Object.values(docs).every((d) => d.sortKey === 0.25 || d.sortKey === 0.5));
+
+  // A second run has nothing left to do
+  assert.deepStrictEqual(await backfillSortKeys(db), { scanned: total, updated: 0 });
+  assert.strictEqual(db.commits, 3);
+});
+
+test("leaves deleted questions without a sortKey", async () => {
+  const docs = {
+    q1: { questionText: "q1" },
+    q2: { questionText: "q2", deleted: true },
+  };
+
+  const metrics = await backfillSortKeys(fakeDb(docs), () => 0.25);
+
+  assert.deepStrictEqual(metrics, { scanned: 2, updated: 1 });
+  assert.strictEqual(docs.q1.sortKey, 0.25);
+  assert.strictEqual(docs.q2.sortKey, undefined);
+});